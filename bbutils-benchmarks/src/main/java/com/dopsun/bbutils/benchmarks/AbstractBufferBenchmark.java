@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dopsun.bbutils.Buffer;
+
+/**
+ * Primitive get/put benchmarks shared by all {@link Buffer} implementations. Every benchmark
+ * fills (or drains) the whole buffer, so the score is per {@link #CAPACITY} bytes.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractBufferBenchmark {
+    /** Capacity of buffer under test, in bytes. */
+    protected static final int CAPACITY = 4096;
+
+    /**
+     * @return buffer under test, with at least {@link #CAPACITY} bytes available.
+     */
+    protected abstract Buffer buffer();
+
+    @Benchmark
+    public void putByte() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY; i++) {
+            buffer.putByte((byte) i);
+        }
+    }
+
+    @Benchmark
+    public long getByte() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        long sum = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            sum += buffer.getByte();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void putChar() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            buffer.putChar((char) i);
+        }
+    }
+
+    @Benchmark
+    public long getChar() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        long sum = 0;
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            sum += buffer.getChar();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void putShort() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            buffer.putShort((short) i);
+        }
+    }
+
+    @Benchmark
+    public long getShort() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        long sum = 0;
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            sum += buffer.getShort();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void putInt() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY / 4; i++) {
+            buffer.putInt(i);
+        }
+    }
+
+    @Benchmark
+    public long getInt() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        long sum = 0;
+        for (int i = 0; i < CAPACITY / 4; i++) {
+            sum += buffer.getInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void putLong() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY / 8; i++) {
+            buffer.putLong(i);
+        }
+    }
+
+    @Benchmark
+    public long getLong() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        long sum = 0;
+        for (int i = 0; i < CAPACITY / 8; i++) {
+            sum += buffer.getLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void putFloat() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY / 4; i++) {
+            buffer.putFloat(i);
+        }
+    }
+
+    @Benchmark
+    public double getFloat() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        double sum = 0;
+        for (int i = 0; i < CAPACITY / 4; i++) {
+            sum += buffer.getFloat();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void putDouble() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        for (int i = 0; i < CAPACITY / 8; i++) {
+            buffer.putDouble(i);
+        }
+    }
+
+    @Benchmark
+    public double getDouble() {
+        Buffer buffer = buffer();
+        buffer.clear();
+        double sum = 0;
+        for (int i = 0; i < CAPACITY / 8; i++) {
+            sum += buffer.getDouble();
+        }
+        return sum;
+    }
+}
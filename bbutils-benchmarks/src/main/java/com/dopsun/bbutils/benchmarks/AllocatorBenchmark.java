@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dopsun.bbutils.FixedBuffer;
+import com.dopsun.bbutils.FixedBufferAllocator;
+
+/**
+ * Allocates and releases one buffer of <code>capacity</code> bytes.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocatorBenchmark {
+    @Param({ "heap", "direct", "heapPool", "directPool", "directSizeClassPool",
+            "directArena" })
+    public String allocatorName;
+
+    @Param({ "64", "1024", "65536" })
+    public int capacity;
+
+    private FixedBufferAllocator allocator;
+
+    @Setup
+    public void setup() {
+        allocator = Benchmarks.allocator(allocatorName);
+    }
+
+    @Benchmark
+    public FixedBuffer allocRelease() {
+        FixedBuffer buffer = allocator.alloc(capacity);
+        allocator.release(buffer);
+        return buffer;
+    }
+}
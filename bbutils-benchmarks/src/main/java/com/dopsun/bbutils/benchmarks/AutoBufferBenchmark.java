@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.dopsun.bbutils.AutoBuffer;
+import com.dopsun.bbutils.Buffer;
+import com.dopsun.bbutils.Buffers;
+
+/**
+ * Primitive get/put on an {@link AutoBuffer}, with enough initial capacity so it never grows. The
+ * difference to {@link FixedBufferBenchmark} is the cost of capacity check and delegation.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public class AutoBufferBenchmark extends AbstractBufferBenchmark {
+    @Param({ "heap", "direct", "unsafeHeap", "unsafeDirect" })
+    public String memory;
+
+    private AutoBuffer buffer;
+
+    @Setup
+    public void setup() {
+        buffer = Buffers.pow2AutoBuffer(Benchmarks.allocator(memory), CAPACITY);
+    }
+
+    @Override
+    protected Buffer buffer() {
+        return buffer;
+    }
+}
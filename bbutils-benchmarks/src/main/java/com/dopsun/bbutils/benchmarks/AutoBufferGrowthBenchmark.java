@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.dopsun.bbutils.AutoBuffer;
+import com.dopsun.bbutils.Buffers;
+import com.dopsun.bbutils.FixedBufferAllocator;
+
+/**
+ * Writes a message of <code>messageSize</code> bytes into a new {@link AutoBuffer}, starting from
+ * <code>initCapacity</code>, to compare growth strategies. The buffer is closed in each invocation,
+ * so its memory is released to allocator, not left to GC.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoBufferGrowthBenchmark {
+    /** Chunk capacity for <code>chunked</code>, as it does not grow from initial capacity. */
+    private static final int CHUNK_CAPACITY = 4096;
+
+    @Param({ "pow2", "ap", "gp", "chunked" })
+    public String growth;
+
+    @Param({ "heap", "direct" })
+    public String memory;
+
+    @Param({ "64" })
+    public int initCapacity;
+
+    @Param({ "1024", "65536", "1048576" })
+    public int messageSize;
+
+    private FixedBufferAllocator allocator;
+
+    @Setup
+    public void setup() {
+        allocator = Benchmarks.allocator(memory);
+    }
+
+    @Benchmark
+    public void grow(Blackhole bh) {
+        // Closed in each invocation, so direct memory is not left to GC to free.
+        try (AutoBuffer buffer = newAutoBuffer()) {
+            for (int i = 0; i < messageSize / 8; i++) {
+                buffer.putLong(i);
+            }
+            bh.consume(buffer.position());
+        }
+    }
+
+    private AutoBuffer newAutoBuffer() {
+        switch (growth) {
+        case "pow2":
+            return Buffers.pow2AutoBuffer(allocator, initCapacity);
+        case "ap":
+            return Buffers.apAutoBuffer(allocator, initCapacity, initCapacity);
+        case "gp":
+            return Buffers.gpAutoBuffer(allocator, initCapacity, 1.5);
+        case "chunked":
+            return Buffers.chunkedAutoBuffer(allocator, CHUNK_CAPACITY);
+        default:
+            throw new IllegalArgumentException("growth invalid: " + growth);
+        }
+    }
+}
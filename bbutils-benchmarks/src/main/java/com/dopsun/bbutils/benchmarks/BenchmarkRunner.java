@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with GC and allocation profiler attached.
+ * 
+ * <p>
+ * Usage: <code>java -jar target/benchmarks.jar [regexp]</code>, where <code>regexp</code> selects
+ * benchmarks to run (all by default). For full JMH command line options, use
+ * <code>java -cp target/benchmarks.jar org.openjdk.jmh.Main -prof gc</code> instead.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class BenchmarkRunner {
+    /**
+     * @param args
+     *            optional regular expression of benchmarks to include.
+     * @throws RunnerException
+     *             if benchmark failed.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName();
+
+        Options options = new OptionsBuilder().include(include).addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
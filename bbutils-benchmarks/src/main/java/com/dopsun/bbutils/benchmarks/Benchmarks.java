@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import com.dopsun.bbutils.Allocators;
+import com.dopsun.bbutils.FixedBufferAllocator;
+import com.dopsun.bbutils.Pools;
+
+/**
+ * Shared fixtures for benchmarks.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class Benchmarks {
+    /**
+     * @param name
+     *            one of <code>heap</code>, <code>direct</code>, <code>unsafeHeap</code>,
+     *            <code>unsafeDirect</code>, <code>heapPool</code>, <code>directPool</code>,
+     *            <code>directSizeClassPool</code> and <code>directArena</code>.
+     * @return allocator for the <code>name</code>.
+     */
+    static FixedBufferAllocator allocator(String name) {
+        switch (name) {
+        case "heap":
+            return Allocators.heap();
+        case "direct":
+            return Allocators.direct();
+        case "unsafeHeap":
+            return Allocators.unsafeHeap();
+        case "unsafeDirect":
+            return Allocators.unsafeDirect();
+        case "heapPool":
+            return Allocators.fromPool(c -> Pools.fromAllocator(Allocators.heap(), c, 16));
+        case "directPool":
+            return Allocators.fromPool(c -> Pools.fromAllocator(Allocators.direct(), c, 16));
+        case "directSizeClassPool":
+            return Allocators.sizeClassed(c -> Pools.fromAllocator(Allocators.direct(), c, 16), 64,
+                    1 << 20, 4);
+        case "directArena":
+            return Allocators.directArena(1 << 24, 64);
+        default:
+            throw new IllegalArgumentException("allocator invalid: " + name);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import com.dopsun.bbutils.Allocators;
+import com.dopsun.bbutils.Buffer;
+import com.dopsun.bbutils.FixedBuffer;
+import com.dopsun.bbutils.FixedBufferAllocator;
+
+/**
+ * Primitive get/put on a {@link FixedBuffer} wrapping a {@link java.nio.ByteBuffer}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public class FixedBufferBenchmark extends AbstractBufferBenchmark {
+    @Param({ "heap", "direct", "unsafeHeap", "unsafeDirect" })
+    public String memory;
+
+    private FixedBuffer buffer;
+
+    @Setup
+    public void setup() {
+        FixedBufferAllocator allocator = Benchmarks.allocator(memory);
+        buffer = allocator.alloc(CAPACITY);
+    }
+
+    @Override
+    protected Buffer buffer() {
+        return buffer;
+    }
+}
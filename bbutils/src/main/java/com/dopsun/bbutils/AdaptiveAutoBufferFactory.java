@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Makes {@link AutoBuffer}s sized by history of buffers made before. Bytes written to each buffer
+ * are recorded to a {@link SizeHistogram} when cleared or closed, so buffers recycled by a pool
+ * are learned from too. The histogram predicts initial capacity of new buffers and capacity to
+ * jump to on first overflow. Buffers double afterwards, up to <code>Integer.MAX_VALUE</code>.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class AdaptiveAutoBufferFactory implements AutoBufferFactory {
+    private final FixedBufferAllocator allocator;
+    private final SizeHistogram histogram;
+
+    /**
+     * @param allocator
+     *            allocator for buffers made.
+     * @param minCapacity
+     *            smallest initial capacity, power of 2.
+     * @param maxCapacity
+     *            largest initial capacity, power of 2 and not less than <code>minCapacity</code>.
+     */
+    public AdaptiveAutoBufferFactory(FixedBufferAllocator allocator, int minCapacity,
+            int maxCapacity) {
+        Objects.requireNonNull(allocator);
+
+        this.allocator = allocator;
+        this.histogram = new SizeHistogram(minCapacity, maxCapacity);
+    }
+
+    @Override
+    public AutoBuffer newAutoBuffer() {
+        int initCapacity = histogram.initCapacity();
+        int growCapacity = histogram.growCapacity();
+
+        return new AutoBufferImpl(allocator, initCapacity, old -> grow(old, growCapacity),
+                histogram::record);
+    }
+
+    private static int grow(int old, int growCapacity) {
+        if (old < growCapacity) {
+            return growCapacity;
+        }
+        return old < (1 << 30) ? old * 2 : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return histogram of sizes recorded.
+     */
+    SizeHistogram histogram() {
+        return histogram;
+    }
+}
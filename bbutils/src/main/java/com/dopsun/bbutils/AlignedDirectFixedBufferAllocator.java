@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Fixed buffer allocator from direct memory, with start address of each buffer aligned.
+ * 
+ * <p>
+ * Each buffer is sliced from a direct buffer over-allocated by <code>alignment - 1</code> bytes,
+ * which is freed when the slice released. Address is read with <code>sun.misc.Unsafe</code>, or
+ * {@code ByteBuffer#alignmentOffset} since Java 9.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class AlignedDirectFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
+    /** <code>(ByteBuffer,int,int)int</code>, since Java 9. */
+    @Nullable
+    private static final MethodHandle alignmentOffset;
+
+    static {
+        MethodHandle alignmentOffsetHandle = null;
+        if (!UnsafeAccess.isAvailable()) {
+            try {
+                alignmentOffsetHandle = MethodHandles.publicLookup().findVirtual(ByteBuffer.class,
+                        "alignmentOffset", MethodType.methodType(int.class, int.class, int.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Not Java 9+.
+            }
+        }
+
+        alignmentOffset = alignmentOffsetHandle;
+    }
+
+    private final int alignment;
+    private final ByteOrder order;
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(true);
+
+    /**
+     * @param alignment
+     *            alignment of start address, should be power of 2.
+     * @param order
+     *            byte order of allocated buffers.
+     */
+    AlignedDirectFixedBufferAllocator(int alignment, ByteOrder order) {
+        Objects.requireNonNull(order);
+        checkAlignment(alignment);
+
+        this.alignment = alignment;
+        this.order = order;
+    }
+
+    /**
+     * @return a chunk source allocating direct chunks with start address aligned.
+     */
+    static ChunkSource chunkSource(int alignment) {
+        checkAlignment(alignment);
+
+        return new ChunkSource() {
+            /** Roots of chunks, guarded by itself. */
+            private final Map<ByteBuffer, ByteBuffer> roots = new IdentityHashMap<>();
+
+            @Override
+            public ByteBuffer allocate(int capacity) {
+                ByteBuffer root = allocateRoot(capacity, alignment);
+                ByteBuffer chunk = slice(root, capacity, alignment);
+                synchronized (roots) {
+                    roots.put(chunk, root);
+                }
+                return chunk;
+            }
+
+            @Override
+            public void release(ByteBuffer chunk) {
+                ByteBuffer root;
+                synchronized (roots) {
+                    root = roots.remove(chunk);
+                }
+                if (root == null) {
+                    throw new IllegalArgumentException("chunk is not for this source.");
+                }
+                DirectFixedBufferAllocator.cleanDirectBuffer(root);
+            }
+        };
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        ByteBuffer root = allocateRoot(capacity, alignment);
+        ByteBuffer byteBuffer = slice(root, capacity, alignment).order(order);
+
+        metrics.recordAlloc(capacity);
+        return new SlicedFixedBuffer(byteBuffer, root, 0);
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        Object owner = buffer instanceof SlicedFixedBuffer ? ((SlicedFixedBuffer) buffer).owner()
+                : null;
+        if (!(owner instanceof ByteBuffer) || !((ByteBuffer) owner).isDirect()) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+
+        DirectFixedBufferAllocator.cleanDirectBuffer((ByteBuffer) owner);
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
+    }
+
+    private static void checkAlignment(int alignment) {
+        if (alignment <= 0 || (alignment & (alignment - 1)) != 0) {
+            throw new IllegalArgumentException("alignment invalid: " + alignment);
+        }
+        if (!UnsafeAccess.isAvailable() && alignmentOffset == null) {
+            throw new UnsupportedOperationException("Address of direct buffer not available.");
+        }
+    }
+
+    private static ByteBuffer allocateRoot(int capacity, int alignment) {
+        if (capacity > Integer.MAX_VALUE - alignment + 1) {
+            throw new IllegalStateException("capacity not supported: " + capacity);
+        }
+        return ByteBuffer.allocateDirect(capacity + alignment - 1);
+    }
+
+    /**
+     * @return slice of <code>root</code> with <code>capacity</code> bytes, starting from first
+     *         aligned address.
+     */
+    private static ByteBuffer slice(ByteBuffer root, int capacity, int alignment) {
+        int offset = (alignment - misalignment(root, alignment)) & (alignment - 1);
+
+        ByteBuffer byteBuffer = root.duplicate();
+        byteBuffer.limit(offset + capacity);
+        byteBuffer.position(offset);
+        return byteBuffer.slice();
+    }
+
+    /**
+     * @return address of <code>root</code> modulo <code>alignment</code>.
+     */
+    static int misalignment(ByteBuffer root, int alignment) {
+        if (UnsafeAccess.isAvailable()) {
+            return (int) (UnsafeAccess.address(root) & (alignment - 1));
+        }
+
+        try {
+            return (int) alignmentOffset.invokeExact(root, 0, alignment);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
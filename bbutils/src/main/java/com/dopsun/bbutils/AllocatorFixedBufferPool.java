@@ -20,17 +20,25 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
 /**
- * An {@link FixedBufferPool} grows automatically.
+ * An {@link FixedBufferPool} grows automatically. With {@link IdleEviction}, idle buffers beyond
+ * recent usage are released to allocator when returning or {@link #trim()}.
  * 
  * @author Dop Sun
  * @since 1.0.0
  */
-final class AllocatorFixedBufferPool implements FixedBufferPool {
+final class AllocatorFixedBufferPool implements TrimmableFixedBufferPool, HasPoolStats {
     private final FixedBufferAllocator allocator;
     private final int bufferCapacity;
     private final List<FixedBuffer> list;
 
+    @Nullable
+    private final IdleEviction eviction;
+
+    private final PoolMetrics metrics = new PoolMetrics();
+
     /**
      * @param allocator
      *            allocator to allocate the buffer.
@@ -41,6 +49,21 @@ final class AllocatorFixedBufferPool implements FixedBufferPool {
      */
     public AllocatorFixedBufferPool(FixedBufferAllocator allocator, int bufferCapacity,
             int initSize) {
+        this(allocator, bufferCapacity, initSize, null);
+    }
+
+    /**
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param initSize
+     *            allocates this number of buffer if greater than zero.
+     * @param eviction
+     *            eviction of idle buffers, or <code>null</code> to keep all until closed.
+     */
+    public AllocatorFixedBufferPool(FixedBufferAllocator allocator, int bufferCapacity,
+            int initSize, @Nullable IdleEviction eviction) {
         Objects.requireNonNull(allocator);
         if (bufferCapacity <= 0) {
             throw new IllegalArgumentException("bufferCapacity");
@@ -48,6 +71,7 @@ final class AllocatorFixedBufferPool implements FixedBufferPool {
 
         this.allocator = allocator;
         this.bufferCapacity = bufferCapacity;
+        this.eviction = eviction;
 
         if (initSize > 0) {
             list = new ArrayList<>(initSize);
@@ -59,6 +83,8 @@ final class AllocatorFixedBufferPool implements FixedBufferPool {
         } else {
             list = new ArrayList<>();
         }
+
+        metrics.recordIdleSize(list.size());
     }
 
     @Override
@@ -77,11 +103,19 @@ final class AllocatorFixedBufferPool implements FixedBufferPool {
 
     @Override
     public FixedBuffer borrowBuffer() {
+        FixedBuffer buffer;
         if (list.size() > 0) {
-            return list.remove(list.size() - 1);
+            buffer = list.remove(list.size() - 1);
+            metrics.recordBorrow(true);
+        } else {
+            buffer = allocator.alloc(bufferCapacity);
+            metrics.recordBorrow(false);
         }
 
-        return allocator.alloc(bufferCapacity);
+        if (eviction != null) {
+            eviction.recordBorrow();
+        }
+        return buffer;
     }
 
     @Override
@@ -93,8 +127,42 @@ final class AllocatorFixedBufferPool implements FixedBufferPool {
         }
 
         buffer.clear();
+        Buffers.restoreOrder(buffer);
 
         list.add(buffer);
+        metrics.recordReturn(list.size());
+
+        if (eviction != null) {
+            eviction.recordReturn();
+            trim();
+        }
+    }
+
+    /**
+     * This pool is not thread-safe, so should be trimmed by the thread using it.
+     */
+    @Override
+    public int trim() {
+        if (eviction == null) {
+            return 0;
+        }
+
+        int count = eviction.evictCount(list.size());
+        if (count > 0) {
+            // Bottom of the stack is least recently used.
+            List<FixedBuffer> evicted = list.subList(0, count);
+            for (FixedBuffer buffer : evicted) {
+                allocator.release(buffer);
+            }
+            evicted.clear();
+        }
+
+        return count;
+    }
+
+    @Override
+    public PoolStats poolStats() {
+        return metrics.snapshot(list.size());
     }
 
 }
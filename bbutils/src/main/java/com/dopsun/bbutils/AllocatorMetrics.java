@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counters of an allocator. Counters are striped with {@link LongAdder}, so recording from many
+ * threads does not contend on one cache line.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class AllocatorMetrics {
+    private final boolean roundUpToPow2;
+
+    private final LongAdder allocCount = new LongAdder();
+    private final LongAdder releaseCount = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder releasedBytes = new LongAdder();
+
+    /** Outstanding bytes of power of 2 size classes, indexed by log2 of size class. */
+    private final LongAdder[] outstandingBytesByPow2SizeClass = new LongAdder[32];
+    /** Outstanding bytes of other size classes, only for allocators of exact capacities. */
+    private final ConcurrentMap<Integer, LongAdder> outstandingBytesBySizeClass;
+
+    /**
+     * @param roundUpToPow2
+     *            <code>true</code> to use capacity rounded up to power of 2 as size class, for
+     *            allocators of any capacity; otherwise capacity is the size class.
+     */
+    AllocatorMetrics(boolean roundUpToPow2) {
+        this.roundUpToPow2 = roundUpToPow2;
+        this.outstandingBytesBySizeClass = new ConcurrentHashMap<>();
+        for (int i = 0; i < outstandingBytesByPow2SizeClass.length; i++) {
+            outstandingBytesByPow2SizeClass[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param capacity
+     *            capacity of buffer allocated.
+     */
+    void recordAlloc(int capacity) {
+        allocCount.increment();
+        allocatedBytes.add(capacity);
+        outstandingBytes(capacity).add(capacity);
+    }
+
+    /**
+     * @param capacity
+     *            capacity of buffer released.
+     */
+    void recordRelease(int capacity) {
+        releaseCount.increment();
+        releasedBytes.add(capacity);
+        outstandingBytes(capacity).add(-capacity);
+    }
+
+    /**
+     * @return snapshot of counters. Size classes without outstanding bytes are not included.
+     */
+    AllocatorStats snapshot() {
+        SortedMap<Integer, Long> outstanding = new TreeMap<>();
+        for (int i = 0; i < outstandingBytesByPow2SizeClass.length; i++) {
+            long bytes = outstandingBytesByPow2SizeClass[i].sum();
+            if (bytes != 0) {
+                outstanding.put(1 << i, bytes);
+            }
+        }
+        for (Map.Entry<Integer, LongAdder> entry : outstandingBytesBySizeClass.entrySet()) {
+            long bytes = entry.getValue().sum();
+            if (bytes != 0) {
+                outstanding.put(entry.getKey(), bytes);
+            }
+        }
+
+        return new AllocatorStats(allocCount.sum(), releaseCount.sum(), allocatedBytes.sum(),
+                releasedBytes.sum(), outstanding);
+    }
+
+    /**
+     * Power of 2 size classes, which are all size classes of allocators rounding up, are counted
+     * without boxing or map lookup.
+     */
+    private LongAdder outstandingBytes(int capacity) {
+        int sizeClass = roundUpToPow2 && capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1
+                : capacity;
+        if ((sizeClass & (sizeClass - 1)) == 0) {
+            return outstandingBytesByPow2SizeClass[Integer.numberOfTrailingZeros(sizeClass)];
+        }
+
+        LongAdder adder = outstandingBytesBySizeClass.get(sizeClass);
+        if (adder == null) {
+            adder = outstandingBytesBySizeClass.computeIfAbsent(sizeClass, c -> new LongAdder());
+        }
+        return adder;
+    }
+}
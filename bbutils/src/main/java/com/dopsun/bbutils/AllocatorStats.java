@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of counters of a {@link FixedBufferAllocator}. Counters are read one by one without
+ * locking, so they may not be consistent with each other when the allocator is in use.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class AllocatorStats {
+    private final long allocCount;
+    private final long releaseCount;
+    private final long allocatedBytes;
+    private final long releasedBytes;
+    private final SortedMap<Integer, Long> outstandingBytesBySizeClass;
+
+    /**
+     * @param allocCount
+     *            number of buffers allocated.
+     * @param releaseCount
+     *            number of buffers released.
+     * @param allocatedBytes
+     *            total capacity of buffers allocated.
+     * @param releasedBytes
+     *            total capacity of buffers released.
+     * @param outstandingBytesBySizeClass
+     *            capacity of buffers allocated but not released, by size class.
+     */
+    public AllocatorStats(long allocCount, long releaseCount, long allocatedBytes,
+            long releasedBytes, SortedMap<Integer, Long> outstandingBytesBySizeClass) {
+        Objects.requireNonNull(outstandingBytesBySizeClass);
+
+        this.allocCount = allocCount;
+        this.releaseCount = releaseCount;
+        this.allocatedBytes = allocatedBytes;
+        this.releasedBytes = releasedBytes;
+        this.outstandingBytesBySizeClass = Collections
+                .unmodifiableSortedMap(new TreeMap<>(outstandingBytesBySizeClass));
+    }
+
+    /**
+     * @return number of buffers allocated.
+     */
+    public long allocCount() {
+        return allocCount;
+    }
+
+    /**
+     * @return number of buffers released.
+     */
+    public long releaseCount() {
+        return releaseCount;
+    }
+
+    /**
+     * @return total capacity of buffers allocated.
+     */
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return total capacity of buffers released.
+     */
+    public long releasedBytes() {
+        return releasedBytes;
+    }
+
+    /**
+     * @return capacity of buffers allocated but not released.
+     */
+    public long outstandingBytes() {
+        return allocatedBytes - releasedBytes;
+    }
+
+    /**
+     * Size class is capacity of buffers for allocators with discrete capacities, like pools and
+     * arenas, or capacity rounded up to power of 2 for allocators of any capacity.
+     * 
+     * @return capacity of buffers allocated but not released, by size class.
+     */
+    public SortedMap<Integer, Long> outstandingBytesBySizeClass() {
+        return outstandingBytesBySizeClass;
+    }
+
+    @Override
+    public String toString() {
+        return "AllocatorStats [allocCount=" + allocCount + ", releaseCount=" + releaseCount
+                + ", allocatedBytes=" + allocatedBytes + ", releasedBytes=" + releasedBytes
+                + ", outstandingBytesBySizeClass=" + outstandingBytesBySizeClass + "]";
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link AllocatorStats}, registered by
+ * {@link BufferMetrics#registerMBean(String, HasAllocatorStats)}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface AllocatorStatsMXBean {
+    /**
+     * @return number of buffers allocated.
+     */
+    long getAllocCount();
+
+    /**
+     * @return number of buffers released.
+     */
+    long getReleaseCount();
+
+    /**
+     * @return total capacity of buffers allocated.
+     */
+    long getAllocatedBytes();
+
+    /**
+     * @return total capacity of buffers released.
+     */
+    long getReleasedBytes();
+
+    /**
+     * @return capacity of buffers allocated but not released.
+     */
+    long getOutstandingBytes();
+
+    /**
+     * @return capacity of buffers allocated but not released, by size class.
+     */
+    Map<Integer, Long> getOutstandingBytesBySizeClass();
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+/**
+ * A tier of tiered allocator: buffers not larger than {@link #maxCapacity()} are allocated from
+ * {@link #allocator()}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ * @see Allocators#tiered(AllocatorTier...)
+ */
+public final class AllocatorTier {
+    private final int maxCapacity;
+    private final FixedBufferAllocator allocator;
+
+    /**
+     * @param maxCapacity
+     *            capacity of largest buffer allocated from this tier.
+     * @param allocator
+     *            allocator of this tier.
+     */
+    public AllocatorTier(int maxCapacity, FixedBufferAllocator allocator) {
+        Objects.requireNonNull(allocator);
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("maxCapacity invalid: " + maxCapacity);
+        }
+
+        this.maxCapacity = maxCapacity;
+        this.allocator = allocator;
+    }
+
+    /**
+     * @return capacity of largest buffer allocated from this tier.
+     */
+    public int maxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * @return allocator of this tier.
+     */
+    public FixedBufferAllocator allocator() {
+        return allocator;
+    }
+
+    @Override
+    public String toString() {
+        return "AllocatorTier [maxCapacity=" + maxCapacity + ", allocator=" + allocator + "]";
+    }
+}
@@ -16,7 +16,12 @@
 
 package com.dopsun.bbutils;
 
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
 
 /**
@@ -27,11 +32,19 @@ import java.util.function.IntFunction;
  */
 public final class Allocators {
 
+    /** Alignment to cache line, so buffers written by different threads not share lines. */
+    public static final int CACHE_LINE_ALIGNMENT = 64;
+
+    /** Alignment to memory page, as required by <code>O_DIRECT</code> file I/O. */
+    public static final int PAGE_ALIGNMENT = 4096;
+
     /** Sync for lazy initialized fields. */
     private static final Object lazy_sync = new Object();
 
     private static volatile FixedBufferAllocator directAllocator;
     private static volatile FixedBufferAllocator heapAllocator;
+    private static volatile FixedBufferAllocator unsafeDirectAllocator;
+    private static volatile FixedBufferAllocator unsafeHeapAllocator;
 
     /**
      * @return allocator with direct memory.
@@ -54,6 +67,18 @@ public final class Allocators {
         }
     }
 
+    /**
+     * @param order
+     *            byte order of allocated buffers, {@link ByteOrder#nativeOrder()} avoids swapping
+     *            bytes on every access.
+     * @return allocator with direct memory, in <code>order</code>.
+     */
+    public static FixedBufferAllocator direct(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        return order == ByteOrder.BIG_ENDIAN ? direct() : new DirectFixedBufferAllocator(order);
+    }
+
     /**
      * @return allocator with heap memory.
      */
@@ -75,6 +100,138 @@ public final class Allocators {
         }
     }
 
+    /**
+     * @param order
+     *            byte order of allocated buffers, {@link ByteOrder#nativeOrder()} avoids swapping
+     *            bytes on every access.
+     * @return allocator with heap memory, in <code>order</code>.
+     */
+    public static FixedBufferAllocator heap(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        return order == ByteOrder.BIG_ENDIAN ? heap() : new HeapFixedBufferAllocator(order);
+    }
+
+    /**
+     * Allocator with direct memory, whose buffers read and write memory directly with
+     * <code>sun.misc.Unsafe</code>, bypassing {@link java.nio.ByteBuffer}.
+     * 
+     * @return allocator with direct memory.
+     * 
+     * @throws UnsupportedOperationException
+     *             if <code>sun.misc.Unsafe</code> is not available on this platform.
+     */
+    public static FixedBufferAllocator unsafeDirect() {
+        FixedBufferAllocator alloc = unsafeDirectAllocator;
+        if (alloc != null) {
+            return alloc;
+        }
+
+        synchronized (lazy_sync) {
+            alloc = unsafeDirectAllocator;
+            if (alloc != null) {
+                return alloc;
+            }
+
+            alloc = new UnsafeFixedBufferAllocator(true);
+            unsafeDirectAllocator = alloc;
+            return alloc;
+        }
+    }
+
+    /**
+     * @param order
+     *            byte order of allocated buffers.
+     * @return allocator with direct memory, in <code>order</code>.
+     * 
+     * @throws UnsupportedOperationException
+     *             if <code>sun.misc.Unsafe</code> is not available on this platform.
+     * 
+     * @see #unsafeDirect()
+     */
+    public static FixedBufferAllocator unsafeDirect(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        return order == ByteOrder.BIG_ENDIAN ? unsafeDirect()
+                : new UnsafeFixedBufferAllocator(true, order);
+    }
+
+    /**
+     * Allocator with heap memory, whose buffers read and write memory directly with
+     * <code>sun.misc.Unsafe</code>, bypassing {@link java.nio.ByteBuffer}.
+     * 
+     * @return allocator with heap memory.
+     * 
+     * @throws UnsupportedOperationException
+     *             if <code>sun.misc.Unsafe</code> is not available on this platform.
+     */
+    public static FixedBufferAllocator unsafeHeap() {
+        FixedBufferAllocator alloc = unsafeHeapAllocator;
+        if (alloc != null) {
+            return alloc;
+        }
+
+        synchronized (lazy_sync) {
+            alloc = unsafeHeapAllocator;
+            if (alloc != null) {
+                return alloc;
+            }
+
+            alloc = new UnsafeFixedBufferAllocator(false);
+            unsafeHeapAllocator = alloc;
+            return alloc;
+        }
+    }
+
+    /**
+     * @param order
+     *            byte order of allocated buffers.
+     * @return allocator with heap memory, in <code>order</code>.
+     * 
+     * @throws UnsupportedOperationException
+     *             if <code>sun.misc.Unsafe</code> is not available on this platform.
+     * 
+     * @see #unsafeHeap()
+     */
+    public static FixedBufferAllocator unsafeHeap(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        return order == ByteOrder.BIG_ENDIAN ? unsafeHeap()
+                : new UnsafeFixedBufferAllocator(false, order);
+    }
+
+    /**
+     * Creates an allocator with direct memory, whose buffers start from address aligned to
+     * <code>alignment</code>, e.g. {@link #CACHE_LINE_ALIGNMENT} or {@link #PAGE_ALIGNMENT}. Each
+     * buffer over-allocates <code>alignment - 1</code> bytes.
+     * 
+     * @param alignment
+     *            alignment of start address, should be power of 2.
+     * @return allocator with aligned direct memory.
+     * 
+     * @throws UnsupportedOperationException
+     *             if address of direct buffer is not available on this platform.
+     */
+    public static FixedBufferAllocator alignedDirect(int alignment) {
+        return alignedDirect(alignment, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @param alignment
+     *            alignment of start address, should be power of 2.
+     * @param order
+     *            byte order of allocated buffers.
+     * @return allocator with aligned direct memory, in given byte order.
+     * 
+     * @throws UnsupportedOperationException
+     *             if address of direct buffer is not available on this platform.
+     * 
+     * @see #alignedDirect(int)
+     */
+    public static FixedBufferAllocator alignedDirect(int alignment, ByteOrder order) {
+        return new AlignedDirectFixedBufferAllocator(alignment, order);
+    }
+
     /**
      * Creates an allocator based on pool.
      * 
@@ -87,4 +244,300 @@ public final class Allocators {
 
         return new PoolFixedBufferAllocator(poolFactory);
     }
+
+    /**
+     * Creates an allocator based on pools of power of 2 size classes. Requested capacity is rounded
+     * up to the smallest class can hold it, and the pool of the class is found by array index.
+     * 
+     * @param poolFactory
+     *            factory to create pool for capacity of a class.
+     * @param minCapacity
+     *            capacity of smallest class, should be power of 2.
+     * @param maxCapacity
+     *            capacity of largest class, should be power of 2. Allocating more than this throws
+     *            {@link IllegalStateException}.
+     * @return an allocator which allocates from pools of size classes
+     */
+    public static FixedBufferAllocator sizeClassed(IntFunction<FixedBufferPool> poolFactory,
+            int minCapacity, int maxCapacity) {
+        return sizeClassed(poolFactory, minCapacity, maxCapacity, 1);
+    }
+
+    /**
+     * Creates an allocator based on pools of size classes. Every doubling of capacity is split into
+     * <code>classesPerDoubling</code> equally spaced classes: 1 for power of 2 classes, 4 for
+     * jemalloc-style spacing (<code>64, 80, 96, 112, 128, 160, ...</code>).
+     * 
+     * @param poolFactory
+     *            factory to create pool for capacity of a class.
+     * @param minCapacity
+     *            capacity of smallest class, should be power of 2 and not less than
+     *            <code>classesPerDoubling</code>.
+     * @param maxCapacity
+     *            capacity of largest class, should be power of 2. Allocating more than this throws
+     *            {@link IllegalStateException}.
+     * @param classesPerDoubling
+     *            number of classes per doubling, should be power of 2.
+     * @return an allocator which allocates from pools of size classes
+     */
+    public static FixedBufferAllocator sizeClassed(IntFunction<FixedBufferPool> poolFactory,
+            int minCapacity, int maxCapacity, int classesPerDoubling) {
+        Objects.requireNonNull(poolFactory);
+
+        SizeClasses sizeClasses = new SizeClasses(minCapacity, maxCapacity, classesPerDoubling);
+        return new SizeClassFixedBufferAllocator(poolFactory, sizeClasses);
+    }
+
+    /**
+     * Creates an allocator slicing buffers from large direct memory chunks, with buddy allocation.
+     * Requested capacity is rounded up to power of 2, and not less than <code>minCapacity</code>.
+     * Released buffers are merged with their free buddies, so allocating from existing chunks costs
+     * a walk on the buddy tree only. The returned allocator is thread-safe, and frees all chunks
+     * when closed.
+     * 
+     * @param chunkCapacity
+     *            capacity of each direct memory chunk, should be power of 2. Allocating more than
+     *            this throws {@link IllegalStateException}.
+     * @param minCapacity
+     *            capacity of smallest buffer, should be power of 2 and not greater than
+     *            <code>chunkCapacity</code>.
+     * @return an allocator which slices buffers from direct memory chunks
+     */
+    public static CloseableFixedBufferAllocator directArena(int chunkCapacity, int minCapacity) {
+        return new BuddyFixedBufferAllocator(chunkCapacity, minCapacity);
+    }
+
+    /**
+     * Same as {@link #directArena(int, int)}, with start address of each chunk aligned to
+     * <code>alignment</code>. So each buffer is aligned to the smaller of its rounded capacity and
+     * <code>alignment</code>.
+     * 
+     * @param chunkCapacity
+     *            capacity of each direct memory chunk, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest buffer, should be power of 2 and not greater than
+     *            <code>chunkCapacity</code>.
+     * @param alignment
+     *            alignment of chunks, should be power of 2, e.g. {@link #PAGE_ALIGNMENT}.
+     * @return an allocator which slices buffers from aligned direct memory chunks
+     * 
+     * @throws UnsupportedOperationException
+     *             if address of direct buffer is not available on this platform.
+     */
+    public static CloseableFixedBufferAllocator directArena(int chunkCapacity, int minCapacity,
+            int alignment) {
+        return new BuddyFixedBufferAllocator(
+                AlignedDirectFixedBufferAllocator.chunkSource(alignment), chunkCapacity,
+                minCapacity);
+    }
+
+    /**
+     * Creates an allocator slicing heap buffers from slabs owned by the allocating thread.
+     * Requested capacity is rounded up to power of 2, and buffers released are reused by their
+     * owner thread without synchronization. The returned allocator is thread-safe.
+     * 
+     * @param slabCapacity
+     *            capacity of each slab, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest buffer, should be power of 2.
+     * @param maxCapacity
+     *            capacity of largest buffer, should be power of 2 and not greater than
+     *            <code>slabCapacity</code>. Allocating more than this throws
+     *            {@link IllegalStateException}.
+     * @param maxSlabs
+     *            maximum number of slabs per thread. When exhausted, allocating throws
+     *            {@link IllegalStateException}.
+     * @return an allocator which slices buffers from thread-local heap slabs
+     */
+    public static FixedBufferAllocator threadLocalSlab(int slabCapacity, int minCapacity,
+            int maxCapacity, int maxSlabs) {
+        return new SlabFixedBufferAllocator(slabCapacity, minCapacity, maxCapacity, maxSlabs);
+    }
+
+    /**
+     * Creates an allocator routing each request by capacity to the first tier fitting it. When a
+     * tier throws {@link IllegalStateException}, for example it is bounded and exhausted, request
+     * falls through to next tiers. Buffers are released to the tier allocated them. The returned
+     * allocator is thread-safe if all tiers are, and closes tiers which are {@link AutoCloseable}
+     * when closed.
+     * 
+     * @param tiers
+     *            tiers in ascending order of maximum capacity.
+     * @return an allocator which routes requests to tiers
+     */
+    public static CloseableFixedBufferAllocator tiered(AllocatorTier... tiers) {
+        return new TieredFixedBufferAllocator(tiers.clone());
+    }
+
+    /**
+     * Creates an allocator reserving capacity of each buffer from <code>budget</code> with
+     * <code>tag</code> before allocating it. When budget is used up, allocating fails fast with
+     * {@link IllegalStateException}, so a tier of {@link #tiered(AllocatorTier...)} falls through.
+     * The returned allocator is thread-safe if <code>allocator</code> is.
+     * 
+     * @param allocator
+     *            allocator to allocate buffers, e.g. {@link #direct()}.
+     * @param budget
+     *            budget shared by allocators.
+     * @param tag
+     *            tag to account reservations, e.g. name of allocator or tenant.
+     * @return an allocator limited by budget
+     */
+    public static FixedBufferAllocator budgeted(FixedBufferAllocator allocator,
+            MemoryBudget budget, String tag) {
+        return new BudgetedFixedBufferAllocator(allocator, budget, tag, 0);
+    }
+
+    /**
+     * Same as {@link #budgeted(FixedBufferAllocator, MemoryBudget, String)}, but waits up to
+     * <code>maxWait</code> for buffers released when budget is used up, before throwing
+     * {@link IllegalStateException}.
+     * 
+     * @param allocator
+     *            allocator to allocate buffers, e.g. {@link #direct()}.
+     * @param budget
+     *            budget shared by allocators.
+     * @param tag
+     *            tag to account reservations, e.g. name of allocator or tenant.
+     * @param maxWait
+     *            maximum time to wait for budget, or <code>0</code> to fail fast.
+     * @param unit
+     *            unit of <code>maxWait</code>.
+     * @return an allocator limited by budget
+     */
+    public static FixedBufferAllocator budgeted(FixedBufferAllocator allocator,
+            MemoryBudget budget, String tag, long maxWait, TimeUnit unit) {
+        Objects.requireNonNull(unit);
+
+        return new BudgetedFixedBufferAllocator(allocator, budget, tag, unit.toNanos(maxWait));
+    }
+
+    /**
+     * Creates an allocator mapping each buffer from a region of file at <code>path</code>, which
+     * is created if not exists. Released buffers are forced to storage and unmapped immediately.
+     * 
+     * <p>
+     * Regions are mapped from start of the file in order of allocation, and a released region is
+     * reused for next buffer of same capacity. So after reopening the file, allocating same
+     * capacities in same order maps the content persisted before. The returned allocator is
+     * thread-safe, and unmaps all buffers and closes the file when closed.
+     * </p>
+     * 
+     * @param path
+     *            file to map.
+     * @return an allocator which maps buffers from file
+     * @throws IOException
+     *             if failed to open the file.
+     */
+    public static CloseableFixedBufferAllocator mapped(Path path) throws IOException {
+        return new MappedFixedBufferAllocator(new MappedChunkSource(path, false));
+    }
+
+    /**
+     * Creates an allocator mapping each buffer from a region of a new temporary file, which is
+     * deleted when the allocator closed. Useful for buffers larger than heap and direct memory
+     * limits, paged by operating system.
+     * 
+     * @return an allocator which maps buffers from temporary file
+     * @throws IOException
+     *             if failed to create the file.
+     * 
+     * @see #mapped(Path)
+     */
+    public static CloseableFixedBufferAllocator mappedTempFile() throws IOException {
+        return new MappedFixedBufferAllocator(MappedChunkSource.tempFile());
+    }
+
+    /**
+     * Creates an allocator slicing buffers from large chunks mapped from file at
+     * <code>path</code>, with buddy allocation as {@link #directArena(int, int)}. Chunks are
+     * unmapped when the allocator closed.
+     * 
+     * @param path
+     *            file to map, created if not exists.
+     * @param chunkCapacity
+     *            capacity of each mapped chunk, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest buffer, should be power of 2 and not greater than
+     *            <code>chunkCapacity</code>.
+     * @return an allocator which slices buffers from mapped chunks
+     * @throws IOException
+     *             if failed to open the file.
+     */
+    public static CloseableFixedBufferAllocator mappedArena(Path path, int chunkCapacity,
+            int minCapacity) throws IOException {
+        // Checked before opening the file, which would leak if constructor throws.
+        BuddyFixedBufferAllocator.checkCapacities(chunkCapacity, minCapacity);
+        return new BuddyFixedBufferAllocator(new MappedChunkSource(path, false), chunkCapacity,
+                minCapacity);
+    }
+
+    /**
+     * Creates an allocator slicing buffers from large chunks mapped from a new temporary file,
+     * which is deleted when the allocator closed.
+     * 
+     * @param chunkCapacity
+     *            capacity of each mapped chunk, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest buffer, should be power of 2 and not greater than
+     *            <code>chunkCapacity</code>.
+     * @return an allocator which slices buffers from mapped chunks
+     * @throws IOException
+     *             if failed to create the file.
+     * 
+     * @see #mappedArena(Path, int, int)
+     */
+    public static CloseableFixedBufferAllocator mappedArenaTempFile(int chunkCapacity,
+            int minCapacity) throws IOException {
+        BuddyFixedBufferAllocator.checkCapacities(chunkCapacity, minCapacity);
+        return new BuddyFixedBufferAllocator(MappedChunkSource.tempFile(), chunkCapacity,
+                minCapacity);
+    }
+
+    /**
+     * Makes an allocator reporting buffers allocated by <code>allocator</code> but never released.
+     * One of every <code>samplingInterval</code> allocated buffers is tracked on average: its
+     * allocation stack trace is recorded, and it is reported to <code>listener</code> if garbage
+     * collected before released. Leaks are checked when buffers are allocated or released.
+     * 
+     * @param allocator
+     *            allocator to track.
+     * @param samplingInterval
+     *            <code>1</code> to track all buffers, or <code>0</code> to disable tracking and
+     *            return <code>allocator</code> itself.
+     * @param listener
+     *            receives leaks, with stack trace of where leaked buffers were allocated.
+     * 
+     * @return an allocator tracking leaks.
+     */
+    public static FixedBufferAllocator leakTracking(FixedBufferAllocator allocator,
+            int samplingInterval, Consumer<? super BufferLeakException> listener) {
+        Objects.requireNonNull(allocator);
+        Objects.requireNonNull(listener);
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException("samplingInterval invalid: " + samplingInterval);
+        }
+
+        if (samplingInterval == 0) {
+            return allocator;
+        }
+        return new LeakTrackingFixedBufferAllocator(allocator,
+                new LeakDetector(samplingInterval, listener));
+    }
+
+    /**
+     * Same as {@link #leakTracking(FixedBufferAllocator, int, Consumer)}, printing leaks to
+     * standard error.
+     * 
+     * @param allocator
+     *            allocator to track.
+     * @param samplingInterval
+     *            <code>1</code> to track all buffers, or <code>0</code> to disable tracking.
+     * 
+     * @return an allocator tracking leaks.
+     */
+    public static FixedBufferAllocator leakTracking(FixedBufferAllocator allocator,
+            int samplingInterval) {
+        return leakTracking(allocator, samplingInterval, Throwable::printStackTrace);
+    }
 }
@@ -27,6 +27,7 @@ package com.dopsun.bbutils;
  * <p>
  * Following methods will makes buffer grow:
  * <ul>
+ * <li>{@link Buffer#putBuffer(Buffer)}</li>
  * <li>{@link Buffer#putByte(byte)}</li>
  * <li>{@link Buffer#putChar(char)}</li>
  * <li>{@link Buffer#putShort(short)}</li>
@@ -34,13 +35,23 @@ package com.dopsun.bbutils;
  * <li>{@link Buffer#putLong(long)}</li>
  * <li>{@link Buffer#putFloat(float)}</li>
  * <li>{@link Buffer#putDouble(double)}</li>
+ * <li>bulk puts, like {@link Buffer#putBytes(byte[], int, int)}</li>
+ * <li>{@link Buffer#putVarInt(int)} and other varint puts</li>
+ * <li>{@link Buffer#putUtf8(CharSequence)}, {@link Buffer#putAscii(CharSequence)} and
+ * {@link Buffer#putLatin1(CharSequence)}</li>
  * </ul>
  * </p>
  * 
+ * <p>
+ * Memory is allocated from a {@link FixedBufferAllocator}, and released to it when grown, shrunk or
+ * {@link #close()}d. Bytes written are kept when shrinking: bytes before {@link #position()}, or
+ * before {@link #limit()} if this buffer cannot grow.
+ * </p>
+ * 
  * @author Dop Sun
  * @since 1.0.0
  */
-public interface AutoBuffer extends Buffer {
+public interface AutoBuffer extends Buffer, AutoCloseable {
     /**
      * Returns <code>false</code> if {@link #flip()} or {@link #limit(int)} called. Call
      * {@link #clear()} to make the buffer grow-able again.
@@ -48,4 +59,116 @@ public interface AutoBuffer extends Buffer {
      * @return <code>true</code> if this buffer can grow.
      */
     boolean canGrow();
+
+    /**
+     * @return capacity of memory held now.
+     */
+    int capacity();
+
+    /**
+     * Releases memory beyond <code>capacity</code> to allocator, keeping bytes written. Capacity
+     * after shrunk may be larger than <code>capacity</code>, e.g. rounded up to chunk capacity, and
+     * nothing is done if it is not less than current capacity.
+     * 
+     * @param capacity
+     *            capacity to keep.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>capacity</code> is less than bytes written.
+     */
+    void shrinkTo(int capacity);
+
+    /**
+     * Shrinks to the smallest capacity holding bytes written, which this buffer would have grown to
+     * from its initial capacity.
+     */
+    void trim();
+
+    /**
+     * Shrinks automatically on {@link #clear()}. Every <code>clearInterval</code> clears, this
+     * buffer shrinks to the smallest capacity holding most bytes written since last check, as
+     * {@link #trim()}, if its capacity is more than 4 times of that. Disabled by default.
+     * 
+     * @param clearInterval
+     *            number of clears between checks, or <code>0</code> to disable.
+     */
+    void autoShrink(int clearInterval);
+
+    /**
+     * Releases memory to allocator. This buffer should not be used after closed: puts throw
+     * {@link IllegalStateException}, and gets throw as an empty buffer.
+     */
+    @Override
+    void close();
+
+    /**
+     * @return <code>true</code> if {@link #close()} called.
+     */
+    boolean isClosed();
+
+    /**
+     * Relative put of <code>value</code> as UTF-8, prefixed by its length in bytes as varint.
+     * 
+     * @param value
+     * 
+     * @see #getUtf8WithLength(StringBuilder)
+     */
+    default void putUtf8WithLength(CharSequence value) {
+        putVarInt(StringCodecs.utf8Length(value));
+        putUtf8(value);
+    }
+
+    /**
+     * Relative get of a string written by {@link #putUtf8WithLength(CharSequence)}, appended to
+     * <code>dst</code>.
+     * 
+     * @param dst
+     */
+    default void getUtf8WithLength(StringBuilder dst) {
+        getUtf8(getVarInt(), dst);
+    }
+
+    /**
+     * Relative put of <code>value</code> as ASCII, prefixed by its length as varint.
+     * 
+     * @param value
+     * 
+     * @see #getAsciiWithLength(StringBuilder)
+     */
+    default void putAsciiWithLength(CharSequence value) {
+        putVarInt(value.length());
+        putAscii(value);
+    }
+
+    /**
+     * Relative get of a string written by {@link #putAsciiWithLength(CharSequence)}, appended to
+     * <code>dst</code>.
+     * 
+     * @param dst
+     */
+    default void getAsciiWithLength(StringBuilder dst) {
+        getAscii(getVarInt(), dst);
+    }
+
+    /**
+     * Relative put of <code>value</code> as Latin-1, prefixed by its length as varint.
+     * 
+     * @param value
+     * 
+     * @see #getLatin1WithLength(StringBuilder)
+     */
+    default void putLatin1WithLength(CharSequence value) {
+        putVarInt(value.length());
+        putLatin1(value);
+    }
+
+    /**
+     * Relative get of a string written by {@link #putLatin1WithLength(CharSequence)}, appended to
+     * <code>dst</code>.
+     * 
+     * @param dst
+     */
+    default void getLatin1WithLength(StringBuilder dst) {
+        getLatin1(getVarInt(), dst);
+    }
 }
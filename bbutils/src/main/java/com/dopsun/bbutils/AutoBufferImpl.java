@@ -17,9 +17,13 @@
 package com.dopsun.bbutils;
 
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 import java.util.function.IntUnaryOperator;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
@@ -29,14 +33,32 @@ import javax.annotation.concurrent.NotThreadSafe;
  * @since 1.0.0
  */
 @NotThreadSafe
-final class AutoBufferImpl implements AutoBuffer {
+final class AutoBufferImpl implements PooledAutoBuffer, HasByteBuffers {
     private final FixedBufferAllocator allocator;
 
+    private final int initCapacity;
     private final IntUnaryOperator nextCapacityProducer;
 
-    /** this is not null, but can be changed. */
+    /** this is not null, but can be changed. An empty buffer once closed. */
     private FixedBuffer fixedBuffer;
+    /** Order of {@link #fixedBuffer} when allocated, restored before released. */
+    private ByteOrder allocatedOrder;
     private boolean canGrow = true;
+    private boolean closed;
+
+    @Nullable
+    private AutoShrink autoShrink;
+
+    /** Receives bytes written when cleared or closed, or <code>null</code>. */
+    @Nullable
+    private final IntConsumer sizeListener;
+
+    /** Pool which made this buffer, or <code>null</code>. */
+    @Nullable
+    private Object pool;
+    /** Order when made for {@link #pool}. */
+    @Nullable
+    private ByteOrder pooledOrder;
 
     /**
      * @param allocator
@@ -51,6 +73,24 @@ final class AutoBufferImpl implements AutoBuffer {
      */
     public AutoBufferImpl(FixedBufferAllocator allocator, int initCapacity,
             IntUnaryOperator nextCapacityProducer) {
+        this(allocator, initCapacity, nextCapacityProducer, null);
+    }
+
+    /**
+     * @param allocator
+     *            allocator for initialization and growing
+     * @param initCapacity
+     *            initial capacity, should be greater than zero.
+     * @param nextCapacityProducer
+     *            a function to produce next capacity based on current capacity
+     * @param sizeListener
+     *            receives bytes written when cleared or closed, if any, or <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>initCapacity</code> is less than or equal to zero.
+     */
+    public AutoBufferImpl(FixedBufferAllocator allocator, int initCapacity,
+            IntUnaryOperator nextCapacityProducer, @Nullable IntConsumer sizeListener) {
         Objects.requireNonNull(allocator);
         if (initCapacity <= 0) {
             throw new IllegalArgumentException("initCapacity invalid: " + initCapacity);
@@ -58,9 +98,12 @@ final class AutoBufferImpl implements AutoBuffer {
         Objects.requireNonNull(nextCapacityProducer);
 
         this.allocator = allocator;
+        this.initCapacity = initCapacity;
         this.nextCapacityProducer = nextCapacityProducer;
+        this.sizeListener = sizeListener;
 
         this.fixedBuffer = allocator.alloc(initCapacity);
+        this.allocatedOrder = fixedBuffer.order();
     }
 
     @Override
@@ -68,6 +111,92 @@ final class AutoBufferImpl implements AutoBuffer {
         return this.canGrow;
     }
 
+    @Override
+    public int capacity() {
+        return fixedBuffer.capacity();
+    }
+
+    @Override
+    public void shrinkTo(int capacity) {
+        if (capacity < dataSize()) {
+            throw new IllegalArgumentException("capacity less than bytes written: " + capacity);
+        }
+        if (capacity >= fixedBuffer.capacity()) {
+            return;
+        }
+
+        replaceBuffer(capacity);
+    }
+
+    @Override
+    public void trim() {
+        shrinkTo(fitCapacity(dataSize()));
+    }
+
+    @Override
+    public void autoShrink(int clearInterval) {
+        if (clearInterval < 0) {
+            throw new IllegalArgumentException("clearInterval invalid: " + clearInterval);
+        }
+
+        autoShrink = clearInterval == 0 ? null : new AutoShrink(clearInterval);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        int used = dataSize();
+        if (sizeListener != null && used > 0) {
+            sizeListener.accept(used);
+        }
+
+        ByteOrder order = fixedBuffer.order();
+        releaseBuffer();
+        fixedBuffer = Buffers.wrap(ByteBuffer.allocate(0), order);
+    }
+
+    @Override
+    public ByteBuffer[] getByteBuffers() {
+        if (fixedBuffer instanceof HasByteBuffers) {
+            return ((HasByteBuffers) fixedBuffer).getByteBuffers();
+        }
+        if (fixedBuffer instanceof HasByteBuffer) {
+            ByteBuffer view = ((HasByteBuffer) fixedBuffer).getByteBuffer().duplicate();
+            return new ByteBuffer[] { view };
+        }
+
+        throw new UnsupportedOperationException("Unsupported buffer: " + fixedBuffer);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void pooledBy(Object pool) {
+        Objects.requireNonNull(pool);
+
+        this.pool = pool;
+        this.pooledOrder = order();
+    }
+
+    @Override
+    public boolean isPooledBy(Object pool) {
+        return this.pool == pool;
+    }
+
+    @Override
+    public void restorePooledOrder() {
+        if (pooledOrder != null) {
+            order(pooledOrder);
+        }
+    }
+
     @Override
     public int position() {
         return fixedBuffer.position();
@@ -106,8 +235,20 @@ final class AutoBufferImpl implements AutoBuffer {
 
     @Override
     public void clear() {
+        int used = dataSize();
+        if (sizeListener != null && used > 0) {
+            sizeListener.accept(used);
+        }
+
         fixedBuffer.clear();
         canGrow = true;
+
+        if (autoShrink != null) {
+            int size = autoShrink.recordClear(used, fixedBuffer.capacity());
+            if (size >= 0) {
+                shrinkTo(fitCapacity(size));
+            }
+        }
     }
 
     @Override
@@ -131,10 +272,22 @@ final class AutoBufferImpl implements AutoBuffer {
         return fixedBuffer.hasRemaining();
     }
 
+    @Override
+    public ByteOrder order() {
+        return fixedBuffer.order();
+    }
+
+    @Override
+    public void order(ByteOrder order) {
+        fixedBuffer.order(order);
+    }
+
     @Override
     public void putBuffer(Buffer buffer) {
         Objects.requireNonNull(buffer);
 
+        ensureCapacity(buffer.remaining());
+
         fixedBuffer.putBuffer(buffer);
     }
 
@@ -292,6 +445,18 @@ final class AutoBufferImpl implements AutoBuffer {
         fixedBuffer.putDouble(index, value);
     }
 
+    /**
+     * Ensures capacity for writing <code>length</code> elements of <code>width</code> bytes each.
+     * Checked before multiplying, so large <code>length</code> does not overflow.
+     */
+    private void ensureCapacity(int length, int width) {
+        if (length > (Integer.MAX_VALUE - fixedBuffer.position()) / width) {
+            throw new BufferOverflowException();
+        }
+
+        ensureCapacity(length * width);
+    }
+
     /**
      * @param deltaCapacity
      * 
@@ -304,6 +469,9 @@ final class AutoBufferImpl implements AutoBuffer {
             return;
         }
 
+        if (closed) {
+            throw new IllegalStateException("AutoBuffer closed.");
+        }
         if (!canGrow) {
             throw new BufferOverflowException();
         }
@@ -313,15 +481,47 @@ final class AutoBufferImpl implements AutoBuffer {
             nextCapacity = nextCapacityProducer.applyAsInt(nextCapacity);
         }
 
+        replaceBuffer(nextCapacity);
+    }
+
+    /**
+     * @return bytes written, which are before position, or before limit if cannot grow.
+     */
+    private int dataSize() {
+        return canGrow ? fixedBuffer.position() : fixedBuffer.limit();
+    }
+
+    /**
+     * @return smallest capacity grown from initial capacity, not less than <code>size</code>.
+     */
+    private int fitCapacity(int size) {
+        int capacity = initCapacity;
+        while (capacity < size) {
+            capacity = nextCapacityProducer.applyAsInt(capacity);
+        }
+        return capacity;
+    }
+
+    /**
+     * Copies bytes written to a new buffer of <code>newCapacity</code>, keeping position, limit
+     * and mark, and releases current buffer.
+     */
+    private void replaceBuffer(int newCapacity) {
         int oldPosition = fixedBuffer.position();
+        int oldLimit = fixedBuffer.limit();
         int oldMarkValue = fixedBuffer.markValue();
 
+        FixedBuffer newBuffer = allocator.alloc(newCapacity);
+        ByteOrder newAllocatedOrder = newBuffer.order();
+        newBuffer.order(fixedBuffer.order());
+        fixedBuffer.limit(dataSize());
         fixedBuffer.position(0);
-
-        FixedBuffer newBuffer = allocator.alloc(nextCapacity);
-        fixedBuffer.flip();
         newBuffer.putBuffer(fixedBuffer);
 
+        if (!canGrow) {
+            newBuffer.limit(oldLimit);
+        }
+
         if (oldMarkValue >= 0) {
             newBuffer.position(oldMarkValue);
             newBuffer.mark();
@@ -331,7 +531,132 @@ final class AutoBufferImpl implements AutoBuffer {
             newBuffer.position(oldPosition);
         }
 
-        allocator.release(fixedBuffer);
+        releaseBuffer();
         fixedBuffer = newBuffer;
+        allocatedOrder = newAllocatedOrder;
+    }
+
+    /**
+     * Releases {@link #fixedBuffer} to allocator, in order when allocated, so order of this buffer
+     * not leaked to next user of the memory.
+     */
+    private void releaseBuffer() {
+        fixedBuffer.order(allocatedOrder);
+        allocator.release(fixedBuffer);
+    }
+
+    @Override
+    public void getBytes(byte[] dst, int offset, int length) {
+        fixedBuffer.getBytes(dst, offset, length);
+    }
+
+    @Override
+    public void putBytes(byte[] src, int offset, int length) {
+        ensureCapacity(length);
+
+        fixedBuffer.putBytes(src, offset, length);
+    }
+
+    @Override
+    public void getInts(int[] dst, int offset, int length) {
+        fixedBuffer.getInts(dst, offset, length);
+    }
+
+    @Override
+    public void putInts(int[] src, int offset, int length) {
+        ensureCapacity(length, Integer.BYTES);
+
+        fixedBuffer.putInts(src, offset, length);
+    }
+
+    @Override
+    public void getLongs(long[] dst, int offset, int length) {
+        fixedBuffer.getLongs(dst, offset, length);
+    }
+
+    @Override
+    public void putLongs(long[] src, int offset, int length) {
+        ensureCapacity(length, Long.BYTES);
+
+        fixedBuffer.putLongs(src, offset, length);
+    }
+
+    @Override
+    public void getFloats(float[] dst, int offset, int length) {
+        fixedBuffer.getFloats(dst, offset, length);
+    }
+
+    @Override
+    public void putFloats(float[] src, int offset, int length) {
+        ensureCapacity(length, Float.BYTES);
+
+        fixedBuffer.putFloats(src, offset, length);
+    }
+
+    @Override
+    public void getDoubles(double[] dst, int offset, int length) {
+        fixedBuffer.getDoubles(dst, offset, length);
+    }
+
+    @Override
+    public void putDoubles(double[] src, int offset, int length) {
+        ensureCapacity(length, Double.BYTES);
+
+        fixedBuffer.putDoubles(src, offset, length);
+    }
+
+    @Override
+    public int getVarInt() {
+        return fixedBuffer.getVarInt();
+    }
+
+    @Override
+    public void putVarInt(int value) {
+        ensureCapacity(VarInts.varIntSize(value));
+
+        fixedBuffer.putVarInt(value);
+    }
+
+    @Override
+    public long getVarLong() {
+        return fixedBuffer.getVarLong();
+    }
+
+    @Override
+    public void putVarLong(long value) {
+        ensureCapacity(VarInts.varLongSize(value));
+
+        fixedBuffer.putVarLong(value);
+    }
+
+    @Override
+    public int putUtf8(CharSequence value) {
+        int length = StringCodecs.utf8Length(value);
+        ensureCapacity(length);
+
+        return StringCodecs.putUtf8(fixedBuffer, value, length);
+    }
+
+    @Override
+    public void putUtf8WithLength(CharSequence value) {
+        int length = StringCodecs.utf8Length(value);
+        putVarInt(length);
+        ensureCapacity(length);
+
+        StringCodecs.putUtf8(fixedBuffer, value, length);
+    }
+
+    @Override
+    public int putAscii(CharSequence value) {
+        ensureCapacity(value.length());
+
+        return fixedBuffer.putAscii(value);
+    }
+
+    @Override
+    public int putLatin1(CharSequence value) {
+        ensureCapacity(value.length());
+
+        return fixedBuffer.putLatin1(value);
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+/**
+ * A pool for {@link AutoBuffer}. Buffers returned keep memory they have grown to, so borrowers
+ * writing similar messages do not allocate or grow again.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface AutoBufferPool extends Pool {
+    @Override
+    AutoBuffer borrowBuffer();
+
+    /**
+     * Returns buffer to the pool. {@link AutoBuffer#clear()} is called, so it can grow again when
+     * borrowed. Buffers returned after the pool closed are closed.
+     * 
+     * @param buffer
+     *            auto buffer borrowed from this pool, should not be closed.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>buffer</code> closed, or not borrowed from this pool.
+     */
+    void returnBuffer(AutoBuffer buffer);
+
+    @Override
+    default void returnBuffer(Buffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (!(buffer instanceof AutoBuffer)) {
+            throw new IllegalArgumentException("buffer is not AutoBuffer.");
+        }
+
+        returnBuffer((AutoBuffer) buffer);
+    }
+}
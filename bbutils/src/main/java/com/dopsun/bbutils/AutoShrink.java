@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Decides when an {@link AutoBuffer} stays much larger than needed, by bytes used between clears.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@NotThreadSafe
+final class AutoShrink {
+    /** Shrinks if capacity is more than this times of most bytes used. */
+    static final int RATIO = 4;
+
+    private final int clearInterval;
+
+    private int clearCount;
+    private int maxUsed;
+
+    /**
+     * @param clearInterval
+     *            number of clears between checks, should be greater than zero.
+     */
+    AutoShrink(int clearInterval) {
+        if (clearInterval <= 0) {
+            throw new IllegalArgumentException("clearInterval invalid: " + clearInterval);
+        }
+
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * @param used
+     *            bytes used before cleared.
+     * @param capacity
+     *            capacity when cleared.
+     * @return most bytes used since last check, to shrink buffer to; or <code>-1</code> if buffer
+     *         should not shrink.
+     */
+    int recordClear(int used, int capacity) {
+        if (used > maxUsed) {
+            maxUsed = used;
+        }
+        if (++clearCount < clearInterval) {
+            return -1;
+        }
+
+        int size = capacity / RATIO > maxUsed ? maxUsed : -1;
+        clearCount = 0;
+        maxUsed = 0;
+        return size;
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded pool allocating buffers from allocator on demand, up to a maximum size. Borrowers
+ * waiting for buffers are queued as futures, and completed by threads returning buffers. With
+ * {@link IdleEviction}, idle buffers beyond recent usage are released to allocator when returning
+ * or {@link #trim()}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class BlockingFixedBufferPool implements BoundedFixedBufferPool, HasPoolStats {
+    private final FixedBufferAllocator allocator;
+    private final int bufferCapacity;
+    private final int maxSize;
+
+    /* Following fields are guarded by this. */
+    private final ArrayDeque<FixedBuffer> idle = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<FixedBuffer>> waiters = new ArrayDeque<>();
+    /** Number of buffers allocated and not released, borrowed or idle. */
+    private int size;
+    private boolean closed;
+    @Nullable
+    private final IdleEviction eviction;
+
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    /**
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxSize
+     *            maximum number of buffers, borrowed or idle.
+     * @param initSize
+     *            allocates this number of buffer if greater than zero.
+     */
+    public BlockingFixedBufferPool(FixedBufferAllocator allocator, int bufferCapacity, int maxSize,
+            int initSize) {
+        this(allocator, bufferCapacity, maxSize, initSize, null);
+    }
+
+    /**
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxSize
+     *            maximum number of buffers, borrowed or idle.
+     * @param initSize
+     *            allocates this number of buffer if greater than zero.
+     * @param eviction
+     *            eviction of idle buffers, or <code>null</code> to keep all until closed.
+     */
+    public BlockingFixedBufferPool(FixedBufferAllocator allocator, int bufferCapacity, int maxSize,
+            int initSize, @Nullable IdleEviction eviction) {
+        Objects.requireNonNull(allocator);
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize");
+        }
+
+        this.allocator = allocator;
+        this.bufferCapacity = bufferCapacity;
+        this.maxSize = maxSize;
+        this.eviction = eviction;
+
+        synchronized (this) {
+            for (int i = 0; i < Math.min(initSize, maxSize); i++) {
+                idle.addLast(allocator.alloc(bufferCapacity));
+                size++;
+            }
+        }
+
+        metrics.recordIdleSize(size);
+    }
+
+    /**
+     * Releases idle buffers to allocator, and fails waiting borrowers. Buffers returned after
+     * closed are released to allocator.
+     */
+    @Override
+    public void close() throws Exception {
+        List<FixedBuffer> buffers;
+        List<CompletableFuture<FixedBuffer>> futures;
+        synchronized (this) {
+            closed = true;
+
+            buffers = new ArrayList<>(idle);
+            idle.clear();
+            size -= buffers.size();
+
+            futures = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+
+        for (FixedBuffer buffer : buffers) {
+            allocator.release(buffer);
+        }
+        for (CompletableFuture<FixedBuffer> future : futures) {
+            future.completeExceptionally(new IllegalStateException("Pool closed."));
+        }
+    }
+
+    @Override
+    public int bufferCapacity() {
+        return bufferCapacity;
+    }
+
+    @Override
+    public int maxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public FixedBuffer borrowBuffer() {
+        FixedBuffer buffer = tryBorrowBuffer();
+        if (buffer == null) {
+            throw new IllegalStateException("Pool is exhausted.");
+        }
+
+        return buffer;
+    }
+
+    @Override
+    @Nullable
+    public FixedBuffer tryBorrowBuffer() {
+        synchronized (this) {
+            checkOpen();
+
+            FixedBuffer buffer = idle.pollLast();
+            if (buffer != null) {
+                recordBorrow(true);
+                return buffer;
+            }
+
+            if (size == maxSize) {
+                metrics.recordMiss();
+                return null;
+            }
+            size++;
+            recordBorrow(false);
+        }
+
+        return allocate();
+    }
+
+    @Override
+    @Nullable
+    public FixedBuffer borrowBuffer(long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(unit);
+
+        CompletableFuture<FixedBuffer> future = borrowBufferAsync();
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            if (cancel(future)) {
+                metrics.recordMiss();
+                return null;
+            }
+
+            // Completed after timed out, maybe failed by close().
+            try {
+                return future.join();
+            } catch (CompletionException ce) {
+                throw failure(ce.getCause());
+            }
+        } catch (InterruptedException e) {
+            if (!cancel(future) && !future.isCompletedExceptionally()) {
+                returnBuffer(future.join());
+            }
+
+            throw e;
+        } catch (ExecutionException e) {
+            throw failure(e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<FixedBuffer> borrowBufferAsync() {
+        synchronized (this) {
+            checkOpen();
+
+            FixedBuffer buffer = idle.pollLast();
+            if (buffer != null) {
+                recordBorrow(true);
+                return CompletableFuture.completedFuture(buffer);
+            }
+
+            if (size == maxSize) {
+                CompletableFuture<FixedBuffer> future = new CompletableFuture<>();
+                waiters.addLast(future);
+                return future;
+            }
+            size++;
+            recordBorrow(false);
+        }
+
+        return CompletableFuture.completedFuture(allocate());
+    }
+
+    @Override
+    public void returnBuffer(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (buffer.capacity() != bufferCapacity) {
+            throw new IllegalArgumentException("buffer is not for this pool.");
+        }
+
+        buffer.clear();
+        Buffers.restoreOrder(buffer);
+
+        while (true) {
+            CompletableFuture<FixedBuffer> waiter;
+            List<FixedBuffer> evicted = null;
+            synchronized (this) {
+                if (idle.size() >= size) {
+                    throw new IllegalArgumentException("Pool is full.");
+                }
+
+                if (closed) {
+                    size--;
+                    waiter = null;
+                } else {
+                    waiter = waiters.pollFirst();
+                    if (waiter == null) {
+                        idle.addLast(buffer);
+                        metrics.recordReturn(idle.size());
+
+                        if (eviction == null) {
+                            return;
+                        }
+                        eviction.recordReturn();
+                        evicted = evictIdle();
+                    }
+                }
+            }
+
+            if (evicted != null) {
+                releaseAll(evicted);
+                return;
+            }
+
+            if (waiter == null) {
+                metrics.recordReturn();
+                allocator.release(buffer);
+                return;
+            }
+
+            // Waiter may be cancelled, then tries next one.
+            if (waiter.complete(buffer)) {
+                metrics.recordReturn();
+                metrics.recordBorrow(false);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int trim() {
+        List<FixedBuffer> evicted;
+        synchronized (this) {
+            evicted = evictIdle();
+        }
+
+        releaseAll(evicted);
+        return evicted.size();
+    }
+
+    @Override
+    public synchronized PoolStats poolStats() {
+        return metrics.snapshot(idle.size());
+    }
+
+    /**
+     * @return number of buffers allocated and not released.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Allocates a buffer for the slot reserved by caller.
+     */
+    private FixedBuffer allocate() {
+        try {
+            return allocator.alloc(bufferCapacity);
+        } catch (RuntimeException | Error e) {
+            releaseSlot();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives up a slot whose allocation failed. A borrower queued while allocating takes it over,
+     * otherwise it would wait though pool has room. It is completed with a buffer allocated for it,
+     * or with the failure if allocating fails again, then the slot goes to next one.
+     */
+    private void releaseSlot() {
+        while (true) {
+            CompletableFuture<FixedBuffer> waiter;
+            synchronized (this) {
+                waiter = closed ? null : waiters.pollFirst();
+                if (waiter == null) {
+                    size--;
+                    if (eviction != null) {
+                        eviction.recordReturn();
+                    }
+                    return;
+                }
+            }
+
+            FixedBuffer buffer;
+            try {
+                buffer = allocator.alloc(bufferCapacity);
+            } catch (RuntimeException | Error e) {
+                waiter.completeExceptionally(e);
+                continue;
+            }
+
+            if (waiter.complete(buffer)) {
+                metrics.recordBorrow(false);
+            } else {
+                // Waiter cancelled, buffer goes to idle or next waiter.
+                returnBuffer(buffer);
+            }
+            return;
+        }
+    }
+
+    private void recordBorrow(boolean hit) {
+        metrics.recordBorrow(hit);
+        if (eviction != null) {
+            eviction.recordBorrow();
+        }
+    }
+
+    /**
+     * Removes idle buffers to evict, if eviction window elapsed. Bottom of idle stack is least
+     * recently used, so removed first.
+     */
+    private List<FixedBuffer> evictIdle() {
+        int count = eviction == null ? 0 : eviction.evictCount(idle.size());
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<FixedBuffer> evicted = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            evicted.add(idle.pollFirst());
+        }
+        size -= count;
+        return evicted;
+    }
+
+    private void releaseAll(List<FixedBuffer> buffers) {
+        for (FixedBuffer buffer : buffers) {
+            allocator.release(buffer);
+        }
+    }
+
+    /**
+     * @return <code>cause</code> of a failed borrow, as {@link RuntimeException}.
+     */
+    private static RuntimeException failure(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * @return <code>true</code> if cancelled, or <code>false</code> if completed already.
+     */
+    private boolean cancel(CompletableFuture<FixedBuffer> future) {
+        if (!future.cancel(false)) {
+            return false;
+        }
+
+        synchronized (this) {
+            waiters.remove(future);
+        }
+        return true;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Pool closed.");
+        }
+    }
+}
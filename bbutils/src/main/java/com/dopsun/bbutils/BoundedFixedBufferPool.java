@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link FixedBufferPool} holding at most {@link #maxSize()} buffers, borrowed or idle. When all
+ * buffers are borrowed, borrowers wait for a buffer returned, instead of allocating more memory.
+ * 
+ * <p>
+ * {@link #borrowBuffer()} never waits, and throws {@link IllegalStateException} if all buffers are
+ * borrowed. Buffers returned are handed to waiting borrowers in arrival order. Pools without idle
+ * eviction release nothing when trimmed.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface BoundedFixedBufferPool extends TrimmableFixedBufferPool {
+    /**
+     * @return maximum number of buffers, borrowed or idle.
+     */
+    int maxSize();
+
+    /**
+     * Borrows a buffer without waiting.
+     * 
+     * @return buffer borrowed, or <code>null</code> if all buffers are borrowed.
+     * 
+     * @throws IllegalStateException
+     *             if pool is closed.
+     */
+    @Nullable
+    FixedBuffer tryBorrowBuffer();
+
+    /**
+     * Borrows a buffer, waiting up to <code>timeout</code> for one returned if all buffers are
+     * borrowed.
+     * 
+     * @param timeout
+     *            maximum time to wait.
+     * @param unit
+     *            unit of <code>timeout</code>.
+     * @return buffer borrowed, or <code>null</code> if timed out.
+     * 
+     * @throws InterruptedException
+     *             if interrupted when waiting.
+     * @throws IllegalStateException
+     *             if pool is closed.
+     */
+    @Nullable
+    FixedBuffer borrowBuffer(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Borrows a buffer asynchronously. Returned future is completed when a buffer is available, or
+     * completed exceptionally with {@link IllegalStateException} if pool is closed. Cancelling the
+     * future gives up waiting.
+     * 
+     * @return future of buffer borrowed, completed already if a buffer is available.
+     */
+    CompletableFuture<FixedBuffer> borrowBufferAsync();
+}
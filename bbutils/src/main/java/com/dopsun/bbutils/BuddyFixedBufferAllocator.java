@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Allocates buffers by slicing large memory chunks, with buddy allocation.
+ * 
+ * <p>
+ * Each chunk is <code>chunkCapacity</code> bytes, and can be split into runs of power of 2 bytes,
+ * not less than <code>minCapacity</code>. Requested capacity is rounded up to run size. Free runs
+ * are tracked by a complete binary tree: each node stores the smallest depth of a free run in its
+ * subtree, so finding a free run walks from root to the run, and releasing a run merges it with its
+ * buddy when both are free. No memory is allocated from system after chunks created, and memory of
+ * returned buffers is not zeroed.
+ * </p>
+ * 
+ * <p>
+ * Chunks are allocated from a {@link ChunkSource} on demand, and kept until this allocator is
+ * closed. Closing releases all chunks to the source, and buffers allocated should not be used
+ * after. Releasing a buffer twice throws {@link IllegalStateException}, and does not free its run
+ * again.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class BuddyFixedBufferAllocator implements CloseableFixedBufferAllocator, HasAllocatorStats {
+    private final ChunkSource chunkSource;
+    private final int chunkCapacity;
+    private final int minCapacity;
+    private final int maxDepth;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private boolean closed;
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(false);
+
+    /**
+     * @param chunkCapacity
+     *            capacity of each chunk, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest run, should be power of 2 and not greater than
+     *            <code>chunkCapacity</code>.
+     */
+    public BuddyFixedBufferAllocator(int chunkCapacity, int minCapacity) {
+        this(ChunkSource.DIRECT, chunkCapacity, minCapacity);
+    }
+
+    /**
+     * @param chunkSource
+     *            source of chunks.
+     * @param chunkCapacity
+     *            capacity of each chunk, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest run, should be power of 2 and not greater than
+     *            <code>chunkCapacity</code>.
+     */
+    public BuddyFixedBufferAllocator(ChunkSource chunkSource, int chunkCapacity,
+            int minCapacity) {
+        Objects.requireNonNull(chunkSource);
+        checkCapacities(chunkCapacity, minCapacity);
+
+        this.chunkSource = chunkSource;
+        this.chunkCapacity = chunkCapacity;
+        this.minCapacity = minCapacity;
+        this.maxDepth = log2(chunkCapacity) - log2(minCapacity);
+    }
+
+    /**
+     * Checks capacities for constructor, so callers can check before opening a chunk source.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>chunkCapacity</code> or <code>minCapacity</code> is invalid.
+     */
+    static void checkCapacities(int chunkCapacity, int minCapacity) {
+        if (!isPow2(chunkCapacity)) {
+            throw new IllegalArgumentException("chunkCapacity invalid: " + chunkCapacity);
+        }
+        if (!isPow2(minCapacity) || minCapacity > chunkCapacity) {
+            throw new IllegalArgumentException("minCapacity invalid: " + minCapacity);
+        }
+    }
+
+    @Override
+    public synchronized FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (capacity > chunkCapacity) {
+            throw new IllegalStateException("capacity not supported: " + capacity);
+        }
+        if (closed) {
+            throw new IllegalStateException("Allocator closed.");
+        }
+
+        int runCapacity = Math.max(minCapacity, roundUpPow2(capacity));
+        int depth = log2(chunkCapacity) - log2(runCapacity);
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            int id = chunk.allocate(depth);
+            if (id > 0) {
+                metrics.recordAlloc(runCapacity);
+                return chunk.slice(id, depth);
+            }
+        }
+
+        Chunk chunk = new Chunk(chunkSource.allocate(chunkCapacity));
+        chunks.add(chunk);
+
+        metrics.recordAlloc(runCapacity);
+        return chunk.slice(chunk.allocate(depth), depth);
+    }
+
+    @Override
+    public synchronized void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (!(buffer instanceof SlicedFixedBuffer)) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+
+        SlicedFixedBuffer slicedBuffer = (SlicedFixedBuffer) buffer;
+        Object owner = slicedBuffer.owner();
+        if (!(owner instanceof Chunk) || ((Chunk) owner).allocator() != this) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+        if (!slicedBuffer.markReleased()) {
+            throw new IllegalStateException("buffer released already.");
+        }
+
+        Buffers.restoreOrder(buffer);
+        ((Chunk) owner).free(slicedBuffer.handle());
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Releases all chunks to chunk source, and closes it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        for (Chunk chunk : chunks) {
+            chunkSource.release(chunk.memory);
+        }
+        chunks.clear();
+
+        chunkSource.close();
+    }
+
+    /**
+     * @return number of chunks allocated.
+     */
+    synchronized int chunkCount() {
+        return chunks.size();
+    }
+
+    private static int log2(int pow2) {
+        return Integer.numberOfTrailingZeros(pow2);
+    }
+
+    private static int roundUpPow2(int value) {
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * From Guava IntMath.
+     */
+    private static boolean isPow2(int x) {
+        return x > 0 & (x & (x - 1)) == 0;
+    }
+
+    /**
+     * A chunk of memory, with its buddy tree. Node <code>1</code> is root, and children of node
+     * <code>id</code> are <code>2 * id</code> and <code>2 * id + 1</code>. Value of a node is depth
+     * of the largest free run in its subtree, or <code>maxDepth + 1</code> if none.
+     */
+    private final class Chunk {
+        private final ByteBuffer memory;
+        private final byte[] tree;
+        private final byte unusable;
+
+        Chunk(ByteBuffer memory) {
+            this.memory = memory;
+            this.tree = new byte[2 << maxDepth];
+            this.unusable = (byte) (maxDepth + 1);
+
+            for (int id = 1; id < tree.length; id++) {
+                tree[id] = (byte) depthOf(id);
+            }
+        }
+
+        BuddyFixedBufferAllocator allocator() {
+            return BuddyFixedBufferAllocator.this;
+        }
+
+        /**
+         * @return id of allocated node at <code>depth</code>, or -1 if no free run large enough.
+         */
+        int allocate(int depth) {
+            if (tree[1] > depth) {
+                return -1;
+            }
+
+            int id = 1;
+            // Nodes at depth has bit (1 << depth) set and no higher bit.
+            int mask = -(1 << depth);
+            while (tree[id] < depth || (id & mask) == 0) {
+                id <<= 1;
+                if (tree[id] > depth) {
+                    id ^= 1;
+                }
+            }
+
+            tree[id] = unusable;
+            updateParents(id);
+            return id;
+        }
+
+        void free(int id) {
+            tree[id] = (byte) depthOf(id);
+            updateParents(id);
+        }
+
+        SlicedFixedBuffer slice(int id, int depth) {
+            int runCapacity = chunkCapacity >> depth;
+            int offset = (id - (1 << depth)) * runCapacity;
+
+            ByteBuffer byteBuffer = memory.duplicate();
+            byteBuffer.limit(offset + runCapacity);
+            byteBuffer.position(offset);
+
+            return new SlicedFixedBuffer(byteBuffer.slice(), this, id);
+        }
+
+        /**
+         * Updates parents of <code>id</code>. A parent with both children wholly free is wholly
+         * free too, so buddies are merged.
+         */
+        private void updateParents(int id) {
+            while (id > 1) {
+                int parentId = id >>> 1;
+                byte value = tree[id];
+                byte buddyValue = tree[id ^ 1];
+                int childDepth = depthOf(id);
+
+                if (value == childDepth && buddyValue == childDepth) {
+                    tree[parentId] = (byte) (childDepth - 1);
+                } else {
+                    tree[parentId] = value < buddyValue ? value : buddyValue;
+                }
+
+                id = parentId;
+            }
+        }
+
+        private int depthOf(int id) {
+            return 31 - Integer.numberOfLeadingZeros(id);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link FixedBufferAllocator} reserves capacity of each buffer from a {@link MemoryBudget}
+ * before allocating it, and releases the reservation when buffer released. When budget is used up,
+ * allocating fails fast, or waits for releases up to a maximum time, then throws
+ * {@link IllegalStateException}. If interrupted while waiting, it throws
+ * {@link IllegalStateException} caused by the {@link InterruptedException}, with interrupt status
+ * kept.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class BudgetedFixedBufferAllocator implements FixedBufferAllocator {
+    private final FixedBufferAllocator allocator;
+    private final MemoryBudget budget;
+    private final String tag;
+    private final long maxWaitNanos;
+
+    /**
+     * @param allocator
+     *            allocator to allocate buffers, should be thread-safe if this allocator used by
+     *            multiple threads.
+     * @param budget
+     *            budget to reserve from.
+     * @param tag
+     *            tag of reservations.
+     * @param maxWaitNanos
+     *            maximum nanoseconds to wait for budget, or <code>0</code> to fail fast.
+     */
+    public BudgetedFixedBufferAllocator(FixedBufferAllocator allocator, MemoryBudget budget,
+            String tag, long maxWaitNanos) {
+        Objects.requireNonNull(allocator);
+        Objects.requireNonNull(budget);
+        Objects.requireNonNull(tag);
+        if (maxWaitNanos < 0) {
+            throw new IllegalArgumentException("maxWait invalid: " + maxWaitNanos);
+        }
+
+        this.allocator = allocator;
+        this.budget = budget;
+        this.tag = tag;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        if (!reserve(capacity)) {
+            throw new IllegalStateException("Memory budget exceeded: " + tag + ", " + capacity
+                    + " bytes requested, " + budget.availableBytes() + " bytes available.");
+        }
+
+        FixedBuffer buffer;
+        try {
+            buffer = allocator.alloc(capacity);
+        } catch (RuntimeException | Error e) {
+            budget.release(tag, capacity);
+            throw e;
+        }
+
+        // Allocator may round capacity up, and the memory is allocated already.
+        int extra = buffer.capacity() - capacity;
+        if (extra > 0) {
+            budget.forceReserve(tag, extra);
+        } else if (extra < 0) {
+            budget.release(tag, -extra);
+        }
+        return buffer;
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        int capacity = buffer.capacity();
+        allocator.release(buffer);
+        budget.release(tag, capacity);
+    }
+
+    private boolean reserve(int capacity) {
+        if (maxWaitNanos == 0) {
+            return budget.tryReserve(tag, capacity);
+        }
+
+        try {
+            return budget.reserve(tag, capacity, maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for memory budget: " + tag
+                    + ", " + capacity + " bytes requested.", e);
+        }
+    }
+}
@@ -16,7 +16,9 @@
 
 package com.dopsun.bbutils;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * This is an abstraction of {@link ByteBuffer java.nio.ByteBuffer}. Unless otherwise documented,
@@ -101,6 +103,23 @@ public interface Buffer {
      */
     boolean hasRemaining();
 
+    /**
+     * @return byte order of multi-byte values.
+     * 
+     * @see ByteBuffer#order()
+     */
+    ByteOrder order();
+
+    /**
+     * Changes byte order of multi-byte values. {@link ByteOrder#nativeOrder()} avoids swapping
+     * bytes on every access.
+     * 
+     * @param order
+     * 
+     * @see ByteBuffer#order(ByteOrder)
+     */
+    void order(ByteOrder order);
+
     /**
      * @param buffer
      * 
@@ -317,4 +336,376 @@ public interface Buffer {
      * @see ByteBuffer#putDouble(int, double)
      */
     void putDouble(int index, double value);
+
+    /**
+     * Relative bulk get of <code>length</code> values into <code>dst</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param dst
+     * @param offset
+     * @param length
+     * 
+     * @see ByteBuffer#get(byte[], int, int)
+     */
+    void getBytes(byte[] dst, int offset, int length);
+
+    /**
+     * Relative bulk put of <code>length</code> values from <code>src</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param src
+     * @param offset
+     * @param length
+     * 
+     * @see ByteBuffer#put(byte[], int, int)
+     */
+    void putBytes(byte[] src, int offset, int length);
+
+    /**
+     * Relative bulk get of <code>length</code> values into <code>dst</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param dst
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.IntBuffer#get(int[], int, int)
+     */
+    void getInts(int[] dst, int offset, int length);
+
+    /**
+     * Relative bulk put of <code>length</code> values from <code>src</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param src
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.IntBuffer#put(int[], int, int)
+     */
+    void putInts(int[] src, int offset, int length);
+
+    /**
+     * Relative bulk get of <code>length</code> values into <code>dst</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param dst
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.LongBuffer#get(long[], int, int)
+     */
+    void getLongs(long[] dst, int offset, int length);
+
+    /**
+     * Relative bulk put of <code>length</code> values from <code>src</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param src
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.LongBuffer#put(long[], int, int)
+     */
+    void putLongs(long[] src, int offset, int length);
+
+    /**
+     * Relative bulk get of <code>length</code> values into <code>dst</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param dst
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.FloatBuffer#get(float[], int, int)
+     */
+    void getFloats(float[] dst, int offset, int length);
+
+    /**
+     * Relative bulk put of <code>length</code> values from <code>src</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param src
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.FloatBuffer#put(float[], int, int)
+     */
+    void putFloats(float[] src, int offset, int length);
+
+    /**
+     * Relative bulk get of <code>length</code> values into <code>dst</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param dst
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.DoubleBuffer#get(double[], int, int)
+     */
+    void getDoubles(double[] dst, int offset, int length);
+
+    /**
+     * Relative bulk put of <code>length</code> values from <code>src</code>, starting at
+     * <code>offset</code>.
+     * 
+     * @param src
+     * @param offset
+     * @param length
+     * 
+     * @see java.nio.DoubleBuffer#put(double[], int, int)
+     */
+    void putDoubles(double[] src, int offset, int length);
+
+    /**
+     * Relative get of a LEB128 varint, as unsigned 32 bits <code>int</code>. Position is not changed
+     * if it throws, so it can be retried after more bytes arrived.
+     * 
+     * @return value read.
+     * 
+     * @throws java.nio.BufferUnderflowException
+     *             if varint is not complete before limit.
+     * @throws IllegalStateException
+     *             if varint is longer than 5 bytes.
+     */
+    int getVarInt();
+
+    /**
+     * Relative put of <code>value</code> as unsigned 32 bits LEB128 varint, in 1 to 5 bytes.
+     * 
+     * @param value
+     */
+    void putVarInt(int value);
+
+    /**
+     * Relative get of a LEB128 varint, as unsigned 64 bits <code>long</code>. Position is not changed
+     * if it throws, so it can be retried after more bytes arrived.
+     * 
+     * @return value read.
+     * 
+     * @throws java.nio.BufferUnderflowException
+     *             if varint is not complete before limit.
+     * @throws IllegalStateException
+     *             if varint is longer than 10 bytes.
+     */
+    long getVarLong();
+
+    /**
+     * Relative put of <code>value</code> as unsigned 64 bits LEB128 varint, in 1 to 10 bytes.
+     * 
+     * @param value
+     */
+    void putVarLong(long value);
+
+    /**
+     * Relative get of a ZigZag encoded varint.
+     * 
+     * @return value read.
+     * 
+     * @see #getVarInt()
+     */
+    default int getZigZagVarInt() {
+        return VarInts.decodeZigZag(getVarInt());
+    }
+
+    /**
+     * Relative put of <code>value</code> as ZigZag encoded varint, so small negative values take
+     * few bytes too.
+     * 
+     * @param value
+     * 
+     * @see #putVarInt(int)
+     */
+    default void putZigZagVarInt(int value) {
+        putVarInt(VarInts.encodeZigZag(value));
+    }
+
+    /**
+     * Relative get of a ZigZag encoded varint.
+     * 
+     * @return value read.
+     * 
+     * @see #getVarLong()
+     */
+    default long getZigZagVarLong() {
+        return VarInts.decodeZigZag(getVarLong());
+    }
+
+    /**
+     * Relative put of <code>value</code> as ZigZag encoded varint, so small negative values take
+     * few bytes too.
+     * 
+     * @param value
+     * 
+     * @see #putVarLong(long)
+     */
+    default void putZigZagVarLong(long value) {
+        putVarLong(VarInts.encodeZigZag(value));
+    }
+
+    /**
+     * Relative put of <code>value</code> encoded as UTF-8. Unpaired surrogates are written as
+     * <code>'?'</code>.
+     * 
+     * @param value
+     * @return number of bytes written.
+     * 
+     * @throws BufferOverflowException
+     *             if not enough remaining, and nothing written.
+     */
+    default int putUtf8(CharSequence value) {
+        return StringCodecs.putUtf8(this, value, StringCodecs.utf8Length(value));
+    }
+
+    /**
+     * Relative put of <code>value</code> encoded as ASCII, one byte per char. Chars not ASCII are
+     * written as <code>'?'</code>.
+     * 
+     * @param value
+     * @return number of bytes written.
+     * 
+     * @throws BufferOverflowException
+     *             if not enough remaining, and nothing written.
+     */
+    default int putAscii(CharSequence value) {
+        int length = value.length();
+        if (length > remaining()) {
+            throw new BufferOverflowException();
+        }
+
+        int index = position();
+        StringCodecs.putSingleByte(this, index, value, (char) 0x7F);
+        position(index + length);
+        return length;
+    }
+
+    /**
+     * Relative put of <code>value</code> encoded as Latin-1, one byte per char. Chars not Latin-1
+     * are written as <code>'?'</code>.
+     * 
+     * @param value
+     * @return number of bytes written.
+     * 
+     * @throws BufferOverflowException
+     *             if not enough remaining, and nothing written.
+     */
+    default int putLatin1(CharSequence value) {
+        int length = value.length();
+        if (length > remaining()) {
+            throw new BufferOverflowException();
+        }
+
+        int index = position();
+        StringCodecs.putSingleByte(this, index, value, (char) 0xFF);
+        position(index + length);
+        return length;
+    }
+
+    /**
+     * Relative get of <code>length</code> bytes decoded as UTF-8, appended to <code>dst</code>.
+     * Malformed bytes are decoded as <code>U+FFFD</code>.
+     * 
+     * @param length
+     *            number of bytes to read.
+     * @param dst
+     */
+    default void getUtf8(int length, StringBuilder dst) {
+        StringCodecs.checkRemaining(this, length);
+
+        int end = position() + length;
+        while (position() < end) {
+            dst.appendCodePoint(StringCodecs.getUtf8CodePoint(this, end));
+        }
+    }
+
+    /**
+     * Relative get of <code>length</code> bytes decoded as UTF-8, into <code>dst</code> from
+     * <code>offset</code>. Malformed bytes are decoded as <code>U+FFFD</code>.
+     * 
+     * @param length
+     *            number of bytes to read.
+     * @param dst
+     *            should have at least <code>length</code> chars from <code>offset</code>.
+     * @param offset
+     * @return number of chars decoded.
+     */
+    default int getUtf8(int length, char[] dst, int offset) {
+        StringCodecs.checkRemaining(this, length);
+        StringCodecs.checkArray(dst, offset, length);
+
+        int end = position() + length;
+        int index = offset;
+        while (position() < end) {
+            index += Character.toChars(StringCodecs.getUtf8CodePoint(this, end), dst, index);
+        }
+        return index - offset;
+    }
+
+    /**
+     * Relative get of <code>length</code> bytes decoded as ASCII, appended to <code>dst</code>.
+     * Bytes not ASCII are decoded as <code>U+FFFD</code>.
+     * 
+     * @param length
+     *            number of bytes to read.
+     * @param dst
+     */
+    default void getAscii(int length, StringBuilder dst) {
+        StringCodecs.checkRemaining(this, length);
+
+        for (int i = 0; i < length; i++) {
+            dst.append(StringCodecs.getAsciiChar(this));
+        }
+    }
+
+    /**
+     * Relative get of <code>length</code> bytes decoded as ASCII, into <code>dst</code> from
+     * <code>offset</code>. Bytes not ASCII are decoded as <code>U+FFFD</code>.
+     * 
+     * @param length
+     *            number of bytes to read, and chars decoded.
+     * @param dst
+     * @param offset
+     */
+    default void getAscii(int length, char[] dst, int offset) {
+        StringCodecs.checkRemaining(this, length);
+        StringCodecs.checkArray(dst, offset, length);
+
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = StringCodecs.getAsciiChar(this);
+        }
+    }
+
+    /**
+     * Relative get of <code>length</code> bytes decoded as Latin-1, appended to
+     * <code>dst</code>.
+     * 
+     * @param length
+     *            number of bytes to read.
+     * @param dst
+     */
+    default void getLatin1(int length, StringBuilder dst) {
+        StringCodecs.checkRemaining(this, length);
+
+        for (int i = 0; i < length; i++) {
+            dst.append(StringCodecs.getLatin1Char(this));
+        }
+    }
+
+    /**
+     * Relative get of <code>length</code> bytes decoded as Latin-1, into <code>dst</code> from
+     * <code>offset</code>.
+     * 
+     * @param length
+     *            number of bytes to read, and chars decoded.
+     * @param dst
+     * @param offset
+     */
+    default void getLatin1(int length, char[] dst, int offset) {
+        StringCodecs.checkRemaining(this, length);
+        StringCodecs.checkArray(dst, offset, length);
+
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = StringCodecs.getLatin1Char(this);
+        }
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Reads and writes {@link Buffer}s with NIO channels, e.g. <code>SocketChannel</code>,
+ * <code>FileChannel</code> and <code>Pipe</code> channels.
+ * 
+ * <p>
+ * Bytes are written from position to limit of a buffer, and read into position to limit of a
+ * buffer. Positions of buffers are advanced by bytes transferred, same as
+ * {@link java.nio.ByteBuffer}. Buffers should implement either {@link HasByteBuffer} or
+ * {@link HasByteBuffers}, which all buffers from {@link Buffers} and {@link Allocators} do.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class BufferChannels {
+    /**
+     * Writes remaining bytes of <code>buffer</code> to <code>channel</code>, with a single write
+     * call.
+     * 
+     * @param channel
+     *            channel to write to.
+     * @param buffer
+     *            buffer to write from.
+     * @return number of bytes written, possibly zero.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see WritableByteChannel#write(ByteBuffer)
+     */
+    public static int write(WritableByteChannel channel, Buffer buffer) throws IOException {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(buffer);
+
+        if (buffer instanceof HasByteBuffer) {
+            return channel.write(((HasByteBuffer) buffer).getByteBuffer());
+        }
+
+        ByteBuffer[] views = viewsOf(buffer);
+        if (views.length == 1) {
+            int written = channel.write(views[0]);
+            buffer.position(buffer.position() + written);
+            return written;
+        }
+
+        if (!(channel instanceof GatheringByteChannel)) {
+            throw new IllegalArgumentException("channel is not GatheringByteChannel.");
+        }
+
+        long written = ((GatheringByteChannel) channel).write(views);
+        buffer.position(buffer.position() + (int) written);
+        return (int) written;
+    }
+
+    /**
+     * Writes remaining bytes of <code>buffers</code> to <code>channel</code> in order, with a
+     * single gathering write call.
+     * 
+     * @param channel
+     *            channel to write to.
+     * @param buffers
+     *            buffers to write from.
+     * @return number of bytes written, possibly zero.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see GatheringByteChannel#write(ByteBuffer[])
+     */
+    public static long write(GatheringByteChannel channel, Buffer... buffers) throws IOException {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(buffers);
+
+        ByteBuffer[][] views = new ByteBuffer[buffers.length][];
+        long[] remainings = new long[buffers.length];
+        ByteBuffer[] byteBuffers = collect(buffers, views, remainings);
+
+        long written = channel.write(byteBuffers);
+        advance(buffers, views, remainings);
+        return written;
+    }
+
+    /**
+     * Reads bytes from <code>channel</code> into remaining space of <code>buffer</code>, with a
+     * single read call.
+     * 
+     * @param channel
+     *            channel to read from.
+     * @param buffer
+     *            buffer to read into.
+     * @return number of bytes read, possibly zero, or -1 if end of stream.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see ReadableByteChannel#read(ByteBuffer)
+     */
+    public static int read(ReadableByteChannel channel, Buffer buffer) throws IOException {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(buffer);
+
+        if (buffer instanceof HasByteBuffer) {
+            return channel.read(((HasByteBuffer) buffer).getByteBuffer());
+        }
+
+        ByteBuffer[] views = viewsOf(buffer);
+        if (views.length == 1) {
+            int read = channel.read(views[0]);
+            if (read > 0) {
+                buffer.position(buffer.position() + read);
+            }
+            return read;
+        }
+
+        if (!(channel instanceof ScatteringByteChannel)) {
+            throw new IllegalArgumentException("channel is not ScatteringByteChannel.");
+        }
+
+        long read = ((ScatteringByteChannel) channel).read(views);
+        if (read > 0) {
+            buffer.position(buffer.position() + (int) read);
+        }
+        return (int) read;
+    }
+
+    /**
+     * Reads bytes from <code>channel</code> into remaining space of <code>buffers</code> in order,
+     * with a single scattering read call.
+     * 
+     * @param channel
+     *            channel to read from.
+     * @param buffers
+     *            buffers to read into.
+     * @return number of bytes read, possibly zero, or -1 if end of stream.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see ScatteringByteChannel#read(ByteBuffer[])
+     */
+    public static long read(ScatteringByteChannel channel, Buffer... buffers) throws IOException {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(buffers);
+
+        ByteBuffer[][] views = new ByteBuffer[buffers.length][];
+        long[] remainings = new long[buffers.length];
+        ByteBuffer[] byteBuffers = collect(buffers, views, remainings);
+
+        long read = channel.read(byteBuffers);
+        if (read > 0) {
+            advance(buffers, views, remainings);
+        }
+        return read;
+    }
+
+    /**
+     * Collects byte buffers of all <code>buffers</code>. For buffer without its own
+     * {@link ByteBuffer}, its views and their remaining bytes are kept, to advance it afterwards.
+     */
+    private static ByteBuffer[] collect(Buffer[] buffers, ByteBuffer[][] views,
+            long[] remainings) {
+        int count = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            Buffer buffer = buffers[i];
+            Objects.requireNonNull(buffer);
+
+            if (buffer instanceof HasByteBuffer) {
+                count++;
+            } else {
+                views[i] = viewsOf(buffer);
+                remainings[i] = remainingOf(views[i]);
+                count += views[i].length;
+            }
+        }
+
+        ByteBuffer[] byteBuffers = new ByteBuffer[count];
+        int index = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            if (views[i] == null) {
+                byteBuffers[index++] = ((HasByteBuffer) buffers[i]).getByteBuffer();
+            } else {
+                System.arraycopy(views[i], 0, byteBuffers, index, views[i].length);
+                index += views[i].length;
+            }
+        }
+
+        return byteBuffers;
+    }
+
+    /**
+     * Advances buffers by bytes consumed from their views.
+     */
+    private static void advance(Buffer[] buffers, ByteBuffer[][] views, long[] remainings) {
+        for (int i = 0; i < buffers.length; i++) {
+            if (views[i] != null) {
+                int transferred = (int) (remainings[i] - remainingOf(views[i]));
+                if (transferred > 0) {
+                    buffers[i].position(buffers[i].position() + transferred);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer[] viewsOf(Buffer buffer) {
+        if (buffer instanceof HasByteBuffers) {
+            return ((HasByteBuffers) buffer).getByteBuffers();
+        }
+
+        throw new IllegalArgumentException("Unsupported buffer: " + buffer);
+    }
+
+    private static long remainingOf(ByteBuffer[] byteBuffers) {
+        long remaining = 0;
+        for (ByteBuffer byteBuffer : byteBuffers) {
+            remaining += byteBuffer.remaining();
+        }
+        return remaining;
+    }
+}
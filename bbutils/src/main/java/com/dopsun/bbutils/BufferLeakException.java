@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * Reports a buffer garbage collected without being returned to its pool or released to its
+ * allocator. It is not thrown, but passed to the leak listener, with stack trace of where the
+ * buffer was borrowed or allocated.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public class BufferLeakException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    /**
+     * @param capacity
+     *            capacity of leaked buffer.
+     */
+    public BufferLeakException(int capacity) {
+        super("Buffer of capacity " + capacity
+                + " was not returned or released before garbage collected. Borrowed at:");
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return capacity of leaked buffer.
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Publishes counters of pools and allocators, see {@link HasPoolStats} and
+ * {@link HasAllocatorStats}.
+ * 
+ * <p>
+ * Counters are published as MBeans of platform MBean server, under domain
+ * <code>com.dopsun.bbutils</code>, and as periodic JDK Flight Recorder events
+ * <code>com.dopsun.bbutils.PoolStats</code>, <code>com.dopsun.bbutils.AllocatorStats</code> and
+ * <code>com.dopsun.bbutils.AllocatorSizeClass</code>, emitted every second while recording.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class BufferMetrics {
+    /**
+     * Domain of MBeans registered.
+     */
+    public static final String DOMAIN = "com.dopsun.bbutils";
+
+    /**
+     * Registers <code>pool</code> to platform MBean server, as
+     * <code>com.dopsun.bbutils:type=Pool,name="name"</code>.
+     * 
+     * @param name
+     *            name of the pool.
+     * @param pool
+     *            pool to register.
+     * @return name of MBean registered.
+     * @throws JMException
+     *             if failed to register, e.g. <code>name</code> already registered.
+     */
+    public static ObjectName registerMBean(String name, HasPoolStats pool) throws JMException {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(pool);
+
+        return registerMBean(objectName("Pool", name),
+                new StandardMBean(new PoolStatsView(pool), PoolStatsMXBean.class, true));
+    }
+
+    /**
+     * Registers <code>allocator</code> to platform MBean server, as
+     * <code>com.dopsun.bbutils:type=Allocator,name="name"</code>.
+     * 
+     * @param name
+     *            name of the allocator.
+     * @param allocator
+     *            allocator to register.
+     * @return name of MBean registered.
+     * @throws JMException
+     *             if failed to register, e.g. <code>name</code> already registered.
+     */
+    public static ObjectName registerMBean(String name, HasAllocatorStats allocator)
+            throws JMException {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(allocator);
+
+        return registerMBean(objectName("Allocator", name), new StandardMBean(
+                new AllocatorStatsView(allocator), AllocatorStatsMXBean.class, true));
+    }
+
+    /**
+     * @param objectName
+     *            name returned by <code>registerMBean</code>.
+     * @throws JMException
+     *             if failed to unregister, e.g. not registered.
+     */
+    public static void unregisterMBean(ObjectName objectName) throws JMException {
+        Objects.requireNonNull(objectName);
+
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    /**
+     * Emits periodic events of <code>pool</code> to JDK Flight Recorder, while recording.
+     * 
+     * @param name
+     *            name of the pool, which is the <code>name</code> field of events. Replaces any
+     *            pool or allocator with same name.
+     * @param pool
+     *            pool to emit events.
+     * @return <code>false</code> if JDK Flight Recorder is not available on this JVM.
+     */
+    public static boolean enableJfrEvents(String name, HasPoolStats pool) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(pool);
+
+        try {
+            JfrEvents.register(name, pool);
+            return true;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Emits periodic events of <code>allocator</code> to JDK Flight Recorder, while recording.
+     * Bytes outstanding are emitted as one event per size class.
+     * 
+     * @param name
+     *            name of the allocator, which is the <code>name</code> field of events. Replaces
+     *            any pool or allocator with same name.
+     * @param allocator
+     *            allocator to emit events.
+     * @return <code>false</code> if JDK Flight Recorder is not available on this JVM.
+     */
+    public static boolean enableJfrEvents(String name, HasAllocatorStats allocator) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(allocator);
+
+        try {
+            JfrEvents.register(name, allocator);
+            return true;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops emitting events of pool or allocator enabled with <code>name</code>.
+     * 
+     * @param name
+     *            name of the pool or allocator.
+     */
+    public static void disableJfrEvents(String name) {
+        Objects.requireNonNull(name);
+
+        try {
+            JfrEvents.unregister(name);
+        } catch (LinkageError e) {
+            // Nothing enabled without JDK Flight Recorder.
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    private static ObjectName registerMBean(ObjectName objectName, StandardMBean mbean)
+            throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        return server.registerMBean(mbean, objectName).getObjectName();
+    }
+
+    private static final class PoolStatsView implements PoolStatsMXBean {
+        private final HasPoolStats pool;
+
+        PoolStatsView(HasPoolStats pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public long getBorrowCount() {
+            return pool.poolStats().borrowCount();
+        }
+
+        @Override
+        public long getReturnCount() {
+            return pool.poolStats().returnCount();
+        }
+
+        @Override
+        public long getHitCount() {
+            return pool.poolStats().hitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return pool.poolStats().missCount();
+        }
+
+        @Override
+        public double getHitRate() {
+            return pool.poolStats().hitRate();
+        }
+
+        @Override
+        public int getIdleSize() {
+            return pool.poolStats().idleSize();
+        }
+
+        @Override
+        public int getPeakIdleSize() {
+            return pool.poolStats().peakIdleSize();
+        }
+    }
+
+    private static final class AllocatorStatsView implements AllocatorStatsMXBean {
+        private final HasAllocatorStats allocator;
+
+        AllocatorStatsView(HasAllocatorStats allocator) {
+            this.allocator = allocator;
+        }
+
+        @Override
+        public long getAllocCount() {
+            return allocator.allocatorStats().allocCount();
+        }
+
+        @Override
+        public long getReleaseCount() {
+            return allocator.allocatorStats().releaseCount();
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return allocator.allocatorStats().allocatedBytes();
+        }
+
+        @Override
+        public long getReleasedBytes() {
+            return allocator.allocatorStats().releasedBytes();
+        }
+
+        @Override
+        public long getOutstandingBytes() {
+            return allocator.allocatorStats().outstandingBytes();
+        }
+
+        @Override
+        public Map<Integer, Long> getOutstandingBytesBySizeClass() {
+            return allocator.allocatorStats().outstandingBytesBySizeClass();
+        }
+    }
+}
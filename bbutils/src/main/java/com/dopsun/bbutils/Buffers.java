@@ -17,6 +17,7 @@
 package com.dopsun.bbutils;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
 
 /**
@@ -38,6 +39,68 @@ public final class Buffers {
         return new ByteBufferFixedBuffer(byteBuffer);
     }
 
+    /**
+     * Wraps a {@link java.nio.ByteBuffer} as a {@link FixedBuffer}, in <code>order</code>. Order of
+     * <code>byteBuffer</code> is changed too.
+     * 
+     * @param byteBuffer
+     * @param order
+     *            byte order, {@link ByteOrder#nativeOrder()} avoids swapping bytes on every access.
+     * @return fixed buffer
+     */
+    public static FixedBuffer wrap(ByteBuffer byteBuffer, ByteOrder order) {
+        Objects.requireNonNull(byteBuffer);
+        Objects.requireNonNull(order);
+
+        return new ByteBufferFixedBuffer(byteBuffer.order(order));
+    }
+
+    /**
+     * Wraps a {@link java.nio.ByteBuffer} as a {@link FixedBuffer}, which reads and writes memory
+     * directly with <code>sun.misc.Unsafe</code>. Position, limit and mark of returned buffer start
+     * from <code>byteBuffer</code>, but are not shared with it afterwards.
+     * 
+     * @param byteBuffer
+     *            heap or direct byte buffer, should not be read only.
+     * @return fixed buffer
+     * 
+     * @throws UnsupportedOperationException
+     *             if <code>sun.misc.Unsafe</code> is not available on this platform.
+     */
+    public static FixedBuffer unsafeWrap(ByteBuffer byteBuffer) {
+        Objects.requireNonNull(byteBuffer);
+        if (!UnsafeAccess.isAvailable()) {
+            throw new UnsupportedOperationException("sun.misc.Unsafe is not available.");
+        }
+
+        return new UnsafeFixedBuffer(byteBuffer);
+    }
+
+    /**
+     * Wraps a {@link java.nio.ByteBuffer} as a {@link FixedBuffer} accessed with
+     * <code>sun.misc.Unsafe</code>, in <code>order</code>.
+     * 
+     * @param byteBuffer
+     *            heap or direct byte buffer, should not be read only.
+     * @param order
+     *            byte order, {@link ByteOrder#nativeOrder()} avoids swapping bytes on every access.
+     * @return fixed buffer
+     * 
+     * @throws UnsupportedOperationException
+     *             if <code>sun.misc.Unsafe</code> is not available on this platform.
+     * 
+     * @see #unsafeWrap(ByteBuffer)
+     */
+    public static FixedBuffer unsafeWrap(ByteBuffer byteBuffer, ByteOrder order) {
+        Objects.requireNonNull(byteBuffer);
+        Objects.requireNonNull(order);
+        if (!UnsafeAccess.isAvailable()) {
+            throw new UnsupportedOperationException("sun.misc.Unsafe is not available.");
+        }
+
+        return new UnsafeFixedBuffer(byteBuffer, order);
+    }
+
     /**
      * Makes an {@link AutoBuffer} with <code>allocator</code> and <code>initCapacity</code>. The
      * returned auto buffer will double existing capacity every time grows.
@@ -61,6 +124,28 @@ public final class Buffers {
         return new AutoBufferImpl(allocator, initCapacity, old -> old * 2);
     }
 
+    /**
+     * Same as {@link #pow2AutoBuffer(FixedBufferAllocator, int)}, with buffers in
+     * <code>order</code>. The order is kept when growing.
+     * 
+     * @param allocator
+     *            allocator for initialization and growing
+     * @param initCapacity
+     *            initial capacity.
+     * @param order
+     *            byte order, {@link ByteOrder#nativeOrder()} avoids swapping bytes on every access.
+     * 
+     * @return an {@link AutoBuffer}
+     */
+    public static AutoBuffer pow2AutoBuffer(FixedBufferAllocator allocator, int initCapacity,
+            ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        AutoBuffer buffer = pow2AutoBuffer(allocator, initCapacity);
+        buffer.order(order);
+        return buffer;
+    }
+
     /**
      * Make a new {@link AutoBuffer}, growing with Arithmetic Progression (AP).
      * 
@@ -86,6 +171,30 @@ public final class Buffers {
         return new AutoBufferImpl(allocator, initCapacity, old -> old + difference);
     }
 
+    /**
+     * Same as {@link #apAutoBuffer(FixedBufferAllocator, int, int)}, with buffers in
+     * <code>order</code>. The order is kept when growing.
+     * 
+     * @param allocator
+     *            allocator for initialization and growing
+     * @param initCapacity
+     *            initial capacity.
+     * @param difference
+     *            common difference to grow.
+     * @param order
+     *            byte order, {@link ByteOrder#nativeOrder()} avoids swapping bytes on every access.
+     * 
+     * @return an {@link AutoBuffer}
+     */
+    public static AutoBuffer apAutoBuffer(FixedBufferAllocator allocator, int initCapacity,
+            int difference, ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        AutoBuffer buffer = apAutoBuffer(allocator, initCapacity, difference);
+        buffer.order(order);
+        return buffer;
+    }
+
     /**
      * Make a new {@link AutoBuffer}, growing with Geometric Progression (GP).
      * 
@@ -115,6 +224,155 @@ public final class Buffers {
         return new AutoBufferImpl(allocator, initCapacity, old -> (int) (old * ratio));
     }
 
+    /**
+     * Same as {@link #gpAutoBuffer(FixedBufferAllocator, int, double)}, with buffers in
+     * <code>order</code>. The order is kept when growing.
+     * 
+     * @param allocator
+     *            allocator for initialization and growing
+     * @param initCapacity
+     *            initial capacity.
+     * @param ratio
+     *            ratio to grow.
+     * @param order
+     *            byte order, {@link ByteOrder#nativeOrder()} avoids swapping bytes on every access.
+     * 
+     * @return an {@link AutoBuffer}
+     */
+    public static AutoBuffer gpAutoBuffer(FixedBufferAllocator allocator, int initCapacity,
+            double ratio, ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        AutoBuffer buffer = gpAutoBuffer(allocator, initCapacity, ratio);
+        buffer.order(order);
+        return buffer;
+    }
+
+    /**
+     * Make a new {@link AutoBuffer}, made of chunks of <code>chunkCapacity</code> bytes. It grows by
+     * allocating one more chunk, so existing bytes are not copied. The returned buffer implements
+     * {@link HasByteBuffers}, to expose its chunks for gathering writes.
+     * 
+     * @param allocator
+     *            allocator for chunks.
+     * @param chunkCapacity
+     *            capacity of each chunk, should be power of 2.
+     * 
+     * @return an {@link AutoBuffer}
+     */
+    public static AutoBuffer chunkedAutoBuffer(FixedBufferAllocator allocator, int chunkCapacity) {
+        Objects.requireNonNull(allocator);
+        if (!isPow2(chunkCapacity)) {
+            throw new IllegalArgumentException("chunkCapacity is not power of 2: " + chunkCapacity);
+        }
+
+        return new ChunkedAutoBuffer(allocator, chunkCapacity);
+    }
+
+    /**
+     * Same as {@link #chunkedAutoBuffer(FixedBufferAllocator, int)}, with buffers in
+     * <code>order</code>. The order is kept when growing.
+     * 
+     * @param allocator
+     *            allocator for initialization and growing
+     * @param chunkCapacity
+     *            capacity of each chunk, should be power of 2.
+     * @param order
+     *            byte order, {@link ByteOrder#nativeOrder()} avoids swapping bytes on every access.
+     * 
+     * @return an {@link AutoBuffer}
+     */
+    public static AutoBuffer chunkedAutoBuffer(FixedBufferAllocator allocator, int chunkCapacity,
+            ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        AutoBuffer buffer = chunkedAutoBuffer(allocator, chunkCapacity);
+        buffer.order(order);
+        return buffer;
+    }
+
+    /**
+     * Makes a factory of {@link AutoBuffer}s, learning sizes of buffers it made. Bytes written to
+     * each buffer are recorded in a decaying histogram when the buffer is cleared or closed, so
+     * buffers recycled by {@link Pools#autoBuffers} are learned from too. New buffers
+     * start with capacity fitting half of recent sizes, and jump to capacity fitting 90% of them on
+     * first overflow, then double. So most buffers never grow, and the rest grow once.
+     * 
+     * <p>
+     * Returned factory is thread-safe, and should be kept per call site or message type, so its
+     * history is representative. Buffers made should be cleared or closed, to record their sizes.
+     * </p>
+     * 
+     * @param allocator
+     *            allocator for initialization and growing
+     * @param minCapacity
+     *            smallest initial capacity, should be power of 2.
+     * @param maxCapacity
+     *            largest initial capacity, should be power of 2 and not less than
+     *            <code>minCapacity</code>. Buffers can still grow beyond it.
+     * 
+     * @return a thread-safe {@link AutoBufferFactory}.
+     */
+    public static AutoBufferFactory adaptiveAutoBufferFactory(FixedBufferAllocator allocator,
+            int minCapacity, int maxCapacity) {
+        Objects.requireNonNull(allocator);
+        if (!isPow2(minCapacity)) {
+            throw new IllegalArgumentException("minCapacity is not power of 2: " + minCapacity);
+        }
+        if (!isPow2(maxCapacity) || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException("maxCapacity invalid: " + maxCapacity);
+        }
+
+        return new AdaptiveAutoBufferFactory(allocator, minCapacity, maxCapacity);
+    }
+
+    /**
+     * Borrows a buffer from <code>pool</code> with reference counting. The buffer is returned to
+     * <code>pool</code> when the last reference released, including references held by its slices
+     * and duplicates.
+     * 
+     * @param pool
+     *            pool of buffers with {@link java.nio.ByteBuffer}.
+     * @return a buffer with one reference.
+     */
+    public static RefCountedFixedBuffer refCounted(FixedBufferPool pool) {
+        Objects.requireNonNull(pool);
+
+        return new RefCountedFixedBufferImpl(pool.borrowBuffer(),
+                buffer -> pool.returnBuffer(buffer));
+    }
+
+    /**
+     * Allocates a buffer from <code>allocator</code> with reference counting. The buffer is
+     * released to <code>allocator</code> when the last reference released, including references
+     * held by its slices and duplicates.
+     * 
+     * @param allocator
+     *            allocator of buffers with {@link java.nio.ByteBuffer}.
+     * @param capacity
+     *            capacity of the buffer.
+     * @return a buffer with one reference.
+     */
+    public static RefCountedFixedBuffer refCounted(FixedBufferAllocator allocator, int capacity) {
+        Objects.requireNonNull(allocator);
+
+        return new RefCountedFixedBufferImpl(allocator.alloc(capacity), allocator::release);
+    }
+
+    /**
+     * Restores byte order <code>buffer</code> was created with, so order set by one borrower of a
+     * pooled buffer is not seen by next one. Called with {@link Buffer#clear()} when released.
+     */
+    static void restoreOrder(FixedBuffer buffer) {
+        if (buffer instanceof ByteBufferFixedBuffer) {
+            ((ByteBufferFixedBuffer) buffer).restoreOrder();
+        } else if (buffer instanceof UnsafeFixedBuffer) {
+            ((UnsafeFixedBuffer) buffer).restoreOrder();
+        } else if (buffer instanceof DelegatingFixedBuffer) {
+            restoreOrder(((DelegatingFixedBuffer) buffer).delegate());
+        }
+    }
+
     /**
      * From Guava IntMath.
      */
@@ -16,34 +16,36 @@
 
 package com.dopsun.bbutils;
 
-import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
 import java.util.Objects;
 
 /**
+ * A {@link FixedBuffer} on a {@link ByteBuffer}.
+ * 
+ * <p>
+ * Mark is tracked by this buffer, as {@link ByteBuffer} does not expose it. Initial mark is not
+ * set, and changing mark of the {@link ByteBuffer} directly is not reflected by
+ * {@link #markValue()}.
+ * </p>
+ * 
  * @author Dop Sun
  * @since 1.0.0
  */
-final class ByteBufferFixedBuffer implements FixedBuffer, HasByteBuffer {
-    private static final Field markField;
-
-    static {
-        try {
-            Field field = java.nio.Buffer.class.getDeclaredField("mark");
-            field.setAccessible(true);
-
-            markField = field;
-        } catch (NoSuchFieldException | SecurityException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
+class ByteBufferFixedBuffer implements FixedBuffer, HasByteBuffer {
     private final ByteBuffer byteBuffer;
+    /** Order of {@link #byteBuffer} when wrapped, restored by {@link #restoreOrder()}. */
+    private final ByteOrder allocatedOrder;
+
+    private int mark = -1;
 
     ByteBufferFixedBuffer(ByteBuffer byteBuffer) {
         Objects.requireNonNull(byteBuffer);
 
         this.byteBuffer = byteBuffer;
+        this.allocatedOrder = byteBuffer.order();
     }
 
     @Override
@@ -64,6 +66,9 @@ final class ByteBufferFixedBuffer implements FixedBuffer, HasByteBuffer {
     @Override
     public void position(int newPosition) {
         byteBuffer.position(newPosition);
+        if (mark > newPosition) {
+            mark = -1;
+        }
     }
 
     @Override
@@ -74,40 +79,47 @@ final class ByteBufferFixedBuffer implements FixedBuffer, HasByteBuffer {
     @Override
     public void limit(int newLimit) {
         byteBuffer.limit(newLimit);
+        if (mark > newLimit) {
+            mark = -1;
+        }
     }
 
     @Override
     public void mark() {
         byteBuffer.mark();
+        mark = byteBuffer.position();
     }
 
     @Override
     public int markValue() {
-        try {
-            return markField.getInt(byteBuffer);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        return mark;
     }
 
     @Override
     public void reset() {
-        byteBuffer.reset();
+        if (mark < 0) {
+            throw new InvalidMarkException();
+        }
+
+        byteBuffer.position(mark);
     }
 
     @Override
     public void clear() {
         byteBuffer.clear();
+        mark = -1;
     }
 
     @Override
     public void flip() {
         byteBuffer.flip();
+        mark = -1;
     }
 
     @Override
     public void rewind() {
         byteBuffer.rewind();
+        mark = -1;
     }
 
     @Override
@@ -120,15 +132,41 @@ final class ByteBufferFixedBuffer implements FixedBuffer, HasByteBuffer {
         return byteBuffer.hasRemaining();
     }
 
+    @Override
+    public ByteOrder order() {
+        return byteBuffer.order();
+    }
+
+    @Override
+    public void order(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        byteBuffer.order(order);
+    }
+
+    /**
+     * Restores byte order this buffer was created with.
+     */
+    void restoreOrder() {
+        byteBuffer.order(allocatedOrder);
+    }
+
     @Override
     public void putBuffer(Buffer buffer) {
         Objects.requireNonNull(buffer);
-        if (!(buffer instanceof HasByteBuffer)) {
-            throw new IllegalArgumentException("Unsupported buffer: " + buffer);
+
+        if (buffer instanceof HasByteBuffer) {
+            HasByteBuffer hasByteBuffer = (HasByteBuffer) buffer;
+            byteBuffer.put(hasByteBuffer.getByteBuffer());
+            return;
         }
 
-        HasByteBuffer hasByteBuffer = (HasByteBuffer) buffer;
-        byteBuffer.put(hasByteBuffer.getByteBuffer());
+        if (buffer.remaining() > byteBuffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+        while (buffer.hasRemaining()) {
+            byteBuffer.put(buffer.getByte());
+        }
     }
 
     @Override
@@ -270,4 +308,152 @@ final class ByteBufferFixedBuffer implements FixedBuffer, HasByteBuffer {
     public void putDouble(int index, double value) {
         byteBuffer.putDouble(index, value);
     }
+
+    @Override
+    public void getBytes(byte[] dst, int offset, int length) {
+        byteBuffer.get(dst, offset, length);
+    }
+
+    @Override
+    public void putBytes(byte[] src, int offset, int length) {
+        byteBuffer.put(src, offset, length);
+    }
+
+    @Override
+    public void getInts(int[] dst, int offset, int length) {
+        byteBuffer.asIntBuffer().get(dst, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Integer.BYTES);
+    }
+
+    @Override
+    public void putInts(int[] src, int offset, int length) {
+        byteBuffer.asIntBuffer().put(src, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Integer.BYTES);
+    }
+
+    @Override
+    public void getLongs(long[] dst, int offset, int length) {
+        byteBuffer.asLongBuffer().get(dst, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Long.BYTES);
+    }
+
+    @Override
+    public void putLongs(long[] src, int offset, int length) {
+        byteBuffer.asLongBuffer().put(src, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Long.BYTES);
+    }
+
+    @Override
+    public void getFloats(float[] dst, int offset, int length) {
+        byteBuffer.asFloatBuffer().get(dst, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Float.BYTES);
+    }
+
+    @Override
+    public void putFloats(float[] src, int offset, int length) {
+        byteBuffer.asFloatBuffer().put(src, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Float.BYTES);
+    }
+
+    @Override
+    public void getDoubles(double[] dst, int offset, int length) {
+        byteBuffer.asDoubleBuffer().get(dst, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Double.BYTES);
+    }
+
+    @Override
+    public void putDoubles(double[] src, int offset, int length) {
+        byteBuffer.asDoubleBuffer().put(src, offset, length);
+        byteBuffer.position(byteBuffer.position() + length * Double.BYTES);
+    }
+
+    @Override
+    public int getVarInt() {
+        if (byteBuffer.remaining() < VarInts.MAX_VAR_INT_SIZE) {
+            return VarInts.getVarInt(this);
+        }
+
+        int index = byteBuffer.position();
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = byteBuffer.get(index++);
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                byteBuffer.position(index);
+                return result;
+            }
+        }
+
+        throw VarInts.malformed();
+    }
+
+    @Override
+    public void putVarInt(int value) {
+        if (byteBuffer.remaining() < VarInts.varIntSize(value)) {
+            throw new BufferOverflowException();
+        }
+
+        while ((value & ~0x7F) != 0) {
+            byteBuffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        byteBuffer.put((byte) value);
+    }
+
+    @Override
+    public long getVarLong() {
+        if (byteBuffer.remaining() < VarInts.MAX_VAR_LONG_SIZE) {
+            return VarInts.getVarLong(this);
+        }
+
+        int index = byteBuffer.position();
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = byteBuffer.get(index++);
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                byteBuffer.position(index);
+                return result;
+            }
+        }
+
+        throw VarInts.malformed();
+    }
+
+    @Override
+    public void putVarLong(long value) {
+        if (byteBuffer.remaining() < VarInts.varLongSize(value)) {
+            throw new BufferOverflowException();
+        }
+
+        while ((value & ~0x7FL) != 0) {
+            byteBuffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        byteBuffer.put((byte) value);
+    }
+
+    @Override
+    public int putUtf8(CharSequence value) {
+        return putUtf8(value, StringCodecs.utf8Length(value));
+    }
+
+    /**
+     * Same as {@link #putUtf8(CharSequence)}, with <code>utf8Length</code> computed by caller.
+     * Heap buffer is written to its array directly.
+     */
+    int putUtf8(CharSequence value, int utf8Length) {
+        int index = byteBuffer.position();
+        if (utf8Length > byteBuffer.limit() - index) {
+            throw new BufferOverflowException();
+        }
+
+        if (byteBuffer.hasArray()) {
+            StringCodecs.putUtf8(byteBuffer.array(), byteBuffer.arrayOffset() + index, value);
+        } else {
+            StringCodecs.putUtf8(this, index, value);
+        }
+        byteBuffer.position(index + utf8Length);
+        return utf8Length;
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source of large memory chunks, for allocators slicing buffers from chunks.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+interface ChunkSource {
+    /**
+     * Chunks from direct memory.
+     */
+    ChunkSource DIRECT = new ChunkSource() {
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+
+        @Override
+        public void release(ByteBuffer chunk) {
+            DirectFixedBufferAllocator.cleanDirectBuffer(chunk);
+        }
+    };
+
+    /**
+     * @param capacity
+     *            capacity of chunk.
+     * @return a new chunk, with position zero and limit <code>capacity</code>.
+     * 
+     * @throws IllegalStateException
+     *             if chunk cannot be allocated.
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * Releases <code>chunk</code> allocated by {@link #allocate(int)}.
+     * 
+     * @param chunk
+     *            chunk to release.
+     */
+    void release(ByteBuffer chunk);
+
+    /**
+     * Closes this source, after all chunks released.
+     * 
+     * @throws IOException
+     *             if failed to release underlying resources.
+     */
+    default void close() throws IOException {
+    }
+}
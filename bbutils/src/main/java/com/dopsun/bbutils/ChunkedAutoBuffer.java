@@ -0,0 +1,878 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An auto buffer made of fixed size chunks. It grows by allocating one more chunk, so existing
+ * bytes are never copied. Values straddling two chunks are read and written byte by byte, in
+ * {@link #order()} of this buffer, which is same for all chunks.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@NotThreadSafe
+final class ChunkedAutoBuffer implements PooledAutoBuffer, HasByteBuffers {
+    private final FixedBufferAllocator allocator;
+    private final int chunkCapacity;
+    private final int chunkShift;
+    private final int chunkMask;
+
+    private FixedBuffer[] chunks;
+    private int chunkCount;
+
+    private int position;
+    private int limit;
+    private int mark = -1;
+
+    /** Order of all chunks, initially from first chunk. */
+    private ByteOrder order;
+    /** Order of chunks when allocated, restored before released. */
+    private ByteOrder allocatedOrder;
+    private boolean bigEndian;
+    private boolean canGrow = true;
+    private boolean closed;
+
+    @Nullable
+    private AutoShrink autoShrink;
+
+    /** Pool which made this buffer, or <code>null</code>. */
+    @Nullable
+    private Object pool;
+    /** Order when made for {@link #pool}. */
+    @Nullable
+    private ByteOrder pooledOrder;
+
+    /**
+     * @param allocator
+     *            allocator for chunks.
+     * @param chunkCapacity
+     *            capacity of each chunk, should be power of 2.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>chunkCapacity</code> is not power of 2.
+     */
+    public ChunkedAutoBuffer(FixedBufferAllocator allocator, int chunkCapacity) {
+        Objects.requireNonNull(allocator);
+        if (chunkCapacity <= 0 || (chunkCapacity & (chunkCapacity - 1)) != 0) {
+            throw new IllegalArgumentException("chunkCapacity invalid: " + chunkCapacity);
+        }
+
+        this.allocator = allocator;
+        this.chunkCapacity = chunkCapacity;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkCapacity);
+        this.chunkMask = chunkCapacity - 1;
+
+        this.chunks = new FixedBuffer[4];
+        addChunk();
+        this.limit = capacity();
+    }
+
+    @Override
+    public boolean canGrow() {
+        return this.canGrow;
+    }
+
+    /**
+     * @return total capacity of all chunks.
+     */
+    @Override
+    public int capacity() {
+        return chunkCount << chunkShift;
+    }
+
+    /**
+     * Releases chunks beyond <code>capacity</code>, keeping at least one.
+     */
+    @Override
+    public void shrinkTo(int capacity) {
+        if (capacity < dataSize()) {
+            throw new IllegalArgumentException("capacity less than bytes written: " + capacity);
+        }
+        if (capacity >= capacity()) {
+            return;
+        }
+
+        releaseChunks(Math.max(1, (capacity + chunkMask) >>> chunkShift));
+        if (canGrow) {
+            limit = capacity();
+        }
+    }
+
+    @Override
+    public void trim() {
+        shrinkTo(dataSize());
+    }
+
+    @Override
+    public void autoShrink(int clearInterval) {
+        if (clearInterval < 0) {
+            throw new IllegalArgumentException("clearInterval invalid: " + clearInterval);
+        }
+
+        autoShrink = clearInterval == 0 ? null : new AutoShrink(clearInterval);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        releaseChunks(0);
+        position = 0;
+        limit = 0;
+        mark = -1;
+        canGrow = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void pooledBy(Object pool) {
+        Objects.requireNonNull(pool);
+
+        this.pool = pool;
+        this.pooledOrder = order();
+    }
+
+    @Override
+    public boolean isPooledBy(Object pool) {
+        return this.pool == pool;
+    }
+
+    @Override
+    public void restorePooledOrder() {
+        if (pooledOrder != null) {
+            order(pooledOrder);
+        }
+    }
+
+    @Override
+    public int position() {
+        return position;
+    }
+
+    @Override
+    public void position(int newPosition) {
+        if (newPosition > limit || newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        position = newPosition;
+        if (mark > position) {
+            mark = -1;
+        }
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void limit(int newLimit) {
+        if (newLimit > capacity() || newLimit < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        limit = newLimit;
+        if (position > limit) {
+            position = limit;
+        }
+        if (mark > limit) {
+            mark = -1;
+        }
+        canGrow = false;
+    }
+
+    @Override
+    public void mark() {
+        mark = position;
+    }
+
+    @Override
+    public int markValue() {
+        return mark;
+    }
+
+    @Override
+    public void reset() {
+        if (mark < 0) {
+            throw new InvalidMarkException();
+        }
+
+        position = mark;
+    }
+
+    @Override
+    public void clear() {
+        int used = dataSize();
+
+        position = 0;
+        limit = capacity();
+        mark = -1;
+        canGrow = true;
+
+        if (autoShrink != null) {
+            int size = autoShrink.recordClear(used, capacity());
+            if (size >= 0) {
+                shrinkTo(size);
+            }
+        }
+    }
+
+    @Override
+    public void flip() {
+        limit = position;
+        position = 0;
+        mark = -1;
+        canGrow = false;
+    }
+
+    @Override
+    public void rewind() {
+        position = 0;
+        mark = -1;
+    }
+
+    @Override
+    public int remaining() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    @Override
+    public ByteOrder order() {
+        return order;
+    }
+
+    @Override
+    public void order(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        this.order = order;
+        this.bigEndian = order == ByteOrder.BIG_ENDIAN;
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].order(order);
+        }
+    }
+
+    @Override
+    public ByteBuffer[] getByteBuffers() {
+        if (position == limit) {
+            return new ByteBuffer[0];
+        }
+
+        int first = position >>> chunkShift;
+        int last = (limit - 1) >>> chunkShift;
+
+        ByteBuffer[] byteBuffers = new ByteBuffer[last - first + 1];
+        for (int i = first; i <= last; i++) {
+            ByteBuffer byteBuffer = byteBufferOf(chunks[i]).duplicate();
+            byteBuffer.limit(i == last ? ((limit - 1) & chunkMask) + 1 : chunkCapacity);
+            byteBuffer.position(i == first ? position & chunkMask : 0);
+            byteBuffers[i - first] = byteBuffer;
+        }
+
+        return byteBuffers;
+    }
+
+    @Override
+    public void putBuffer(Buffer buffer) {
+        Objects.requireNonNull(buffer);
+        if (buffer == this) {
+            throw new IllegalArgumentException("buffer is this buffer.");
+        }
+
+        int length = buffer.remaining();
+        int index = nextPutIndex(length);
+
+        if (buffer instanceof HasByteBuffer) {
+            ByteBuffer src = ((HasByteBuffer) buffer).getByteBuffer();
+            int srcLimit = src.limit();
+
+            while (length > 0) {
+                int offset = index & chunkMask;
+                int size = Math.min(length, chunkCapacity - offset);
+
+                ByteBuffer dst = byteBufferOf(chunks[index >>> chunkShift]).duplicate();
+                dst.position(offset);
+                src.limit(src.position() + size);
+                dst.put(src);
+                src.limit(srcLimit);
+
+                index += size;
+                length -= size;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                putByteAt(index + i, buffer.getByte());
+            }
+        }
+    }
+
+    @Override
+    public byte getByte() {
+        return getByteAt(nextGetIndex(1));
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return getByteAt(checkIndex(index, 1));
+    }
+
+    @Override
+    public void putByte(byte value) {
+        putByteAt(nextPutIndex(1), value);
+    }
+
+    @Override
+    public void putByte(int index, byte value) {
+        putByteAt(checkIndex(index, 1), value);
+    }
+
+    @Override
+    public char getChar() {
+        return (char) getShortAt(nextGetIndex(2));
+    }
+
+    @Override
+    public char getChar(int index) {
+        return (char) getShortAt(checkIndex(index, 2));
+    }
+
+    @Override
+    public void putChar(char value) {
+        putShortAt(nextPutIndex(2), (short) value);
+    }
+
+    @Override
+    public void putChar(int index, char value) {
+        putShortAt(checkIndex(index, 2), (short) value);
+    }
+
+    @Override
+    public short getShort() {
+        return getShortAt(nextGetIndex(2));
+    }
+
+    @Override
+    public short getShort(int index) {
+        return getShortAt(checkIndex(index, 2));
+    }
+
+    @Override
+    public void putShort(short value) {
+        putShortAt(nextPutIndex(2), value);
+    }
+
+    @Override
+    public void putShort(int index, short value) {
+        putShortAt(checkIndex(index, 2), value);
+    }
+
+    @Override
+    public int getInt() {
+        return getIntAt(nextGetIndex(4));
+    }
+
+    @Override
+    public int getInt(int index) {
+        return getIntAt(checkIndex(index, 4));
+    }
+
+    @Override
+    public void putInt(int value) {
+        putIntAt(nextPutIndex(4), value);
+    }
+
+    @Override
+    public void putInt(int index, int value) {
+        putIntAt(checkIndex(index, 4), value);
+    }
+
+    @Override
+    public long getLong() {
+        return getLongAt(nextGetIndex(8));
+    }
+
+    @Override
+    public long getLong(int index) {
+        return getLongAt(checkIndex(index, 8));
+    }
+
+    @Override
+    public void putLong(long value) {
+        putLongAt(nextPutIndex(8), value);
+    }
+
+    @Override
+    public void putLong(int index, long value) {
+        putLongAt(checkIndex(index, 8), value);
+    }
+
+    @Override
+    public float getFloat() {
+        return Float.intBitsToFloat(getInt());
+    }
+
+    @Override
+    public float getFloat(int index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    @Override
+    public void putFloat(float value) {
+        putInt(Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void putFloat(int index, float value) {
+        putInt(index, Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putDouble(int index, double value) {
+        putLong(index, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void getBytes(byte[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        int index = nextGetIndex(length);
+        while (length > 0) {
+            int chunkOffset = index & chunkMask;
+            int size = Math.min(length, chunkCapacity - chunkOffset);
+
+            ByteBuffer src = byteBufferOf(chunks[index >>> chunkShift]).duplicate();
+            src.position(chunkOffset);
+            src.get(dst, offset, size);
+
+            index += size;
+            offset += size;
+            length -= size;
+        }
+    }
+
+    @Override
+    public void putBytes(byte[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        int index = nextPutIndex(length);
+        while (length > 0) {
+            int chunkOffset = index & chunkMask;
+            int size = Math.min(length, chunkCapacity - chunkOffset);
+
+            ByteBuffer dst = byteBufferOf(chunks[index >>> chunkShift]).duplicate();
+            dst.position(chunkOffset);
+            dst.put(src, offset, size);
+
+            index += size;
+            offset += size;
+            length -= size;
+        }
+    }
+
+    @Override
+    public void getInts(int[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        int index = nextGetIndex(length, Integer.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = getIntAt(index + i * Integer.BYTES);
+        }
+    }
+
+    @Override
+    public void putInts(int[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        int index = nextPutIndex(length, Integer.BYTES);
+        for (int i = 0; i < length; i++) {
+            putIntAt(index + i * Integer.BYTES, src[offset + i]);
+        }
+    }
+
+    @Override
+    public void getLongs(long[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        int index = nextGetIndex(length, Long.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = getLongAt(index + i * Long.BYTES);
+        }
+    }
+
+    @Override
+    public void putLongs(long[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        int index = nextPutIndex(length, Long.BYTES);
+        for (int i = 0; i < length; i++) {
+            putLongAt(index + i * Long.BYTES, src[offset + i]);
+        }
+    }
+
+    @Override
+    public void getFloats(float[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        int index = nextGetIndex(length, Float.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = Float.intBitsToFloat(getIntAt(index + i * Float.BYTES));
+        }
+    }
+
+    @Override
+    public void putFloats(float[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        int index = nextPutIndex(length, Float.BYTES);
+        for (int i = 0; i < length; i++) {
+            putIntAt(index + i * Float.BYTES, Float.floatToRawIntBits(src[offset + i]));
+        }
+    }
+
+    @Override
+    public void getDoubles(double[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        int index = nextGetIndex(length, Double.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = Double.longBitsToDouble(getLongAt(index + i * Double.BYTES));
+        }
+    }
+
+    @Override
+    public void putDoubles(double[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        int index = nextPutIndex(length, Double.BYTES);
+        for (int i = 0; i < length; i++) {
+            putLongAt(index + i * Double.BYTES, Double.doubleToRawLongBits(src[offset + i]));
+        }
+    }
+
+    @Override
+    public int getVarInt() {
+        return VarInts.getVarInt(this);
+    }
+
+    @Override
+    public void putVarInt(int value) {
+        int index = nextPutIndex(VarInts.varIntSize(value));
+        while ((value & ~0x7F) != 0) {
+            putByteAt(index++, (byte) (value | 0x80));
+            value >>>= 7;
+        }
+        putByteAt(index, (byte) value);
+    }
+
+    @Override
+    public long getVarLong() {
+        return VarInts.getVarLong(this);
+    }
+
+    @Override
+    public void putVarLong(long value) {
+        int index = nextPutIndex(VarInts.varLongSize(value));
+        while ((value & ~0x7FL) != 0) {
+            putByteAt(index++, (byte) (value | 0x80));
+            value >>>= 7;
+        }
+        putByteAt(index, (byte) value);
+    }
+
+    @Override
+    public int putUtf8(CharSequence value) {
+        int length = StringCodecs.utf8Length(value);
+        StringCodecs.putUtf8(this, nextPutIndex(length), value);
+        return length;
+    }
+
+    @Override
+    public void putUtf8WithLength(CharSequence value) {
+        int length = StringCodecs.utf8Length(value);
+        putVarInt(length);
+        StringCodecs.putUtf8(this, nextPutIndex(length), value);
+    }
+
+    @Override
+    public int putAscii(CharSequence value) {
+        int length = value.length();
+        StringCodecs.putSingleByte(this, nextPutIndex(length), value, (char) 0x7F);
+        return length;
+    }
+
+    @Override
+    public int putLatin1(CharSequence value) {
+        int length = value.length();
+        StringCodecs.putSingleByte(this, nextPutIndex(length), value, (char) 0xFF);
+        return length;
+    }
+
+    private byte getByteAt(int index) {
+        return chunks[index >>> chunkShift].getByte(index & chunkMask);
+    }
+
+    private void putByteAt(int index, byte value) {
+        chunks[index >>> chunkShift].putByte(index & chunkMask, value);
+    }
+
+    private short getShortAt(int index) {
+        int offset = index & chunkMask;
+        if (offset <= chunkCapacity - 2) {
+            return chunks[index >>> chunkShift].getShort(offset);
+        }
+        return (short) getStraddled(index, 2);
+    }
+
+    private void putShortAt(int index, short value) {
+        int offset = index & chunkMask;
+        if (offset <= chunkCapacity - 2) {
+            chunks[index >>> chunkShift].putShort(offset, value);
+        } else {
+            putStraddled(index, value, 2);
+        }
+    }
+
+    private int getIntAt(int index) {
+        int offset = index & chunkMask;
+        if (offset <= chunkCapacity - 4) {
+            return chunks[index >>> chunkShift].getInt(offset);
+        }
+        return (int) getStraddled(index, 4);
+    }
+
+    private void putIntAt(int index, int value) {
+        int offset = index & chunkMask;
+        if (offset <= chunkCapacity - 4) {
+            chunks[index >>> chunkShift].putInt(offset, value);
+        } else {
+            putStraddled(index, value, 4);
+        }
+    }
+
+    private long getLongAt(int index) {
+        int offset = index & chunkMask;
+        if (offset <= chunkCapacity - 8) {
+            return chunks[index >>> chunkShift].getLong(offset);
+        }
+        return getStraddled(index, 8);
+    }
+
+    private void putLongAt(int index, long value) {
+        int offset = index & chunkMask;
+        if (offset <= chunkCapacity - 8) {
+            chunks[index >>> chunkShift].putLong(offset, value);
+        } else {
+            putStraddled(index, value, 8);
+        }
+    }
+
+    /**
+     * Reads <code>size</code> bytes across chunks, in {@link #order}.
+     */
+    private long getStraddled(int index, int size) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            long b = getByteAt(index + i) & 0xFF;
+            value |= b << ((bigEndian ? size - 1 - i : i) << 3);
+        }
+        return value;
+    }
+
+    /**
+     * Writes lowest <code>size</code> bytes of <code>value</code> across chunks, in
+     * {@link #order}.
+     */
+    private void putStraddled(int index, long value, int size) {
+        for (int i = 0; i < size; i++) {
+            putByteAt(index + i, (byte) (value >>> ((bigEndian ? size - 1 - i : i) << 3)));
+        }
+    }
+
+    /**
+     * Advances position for reading <code>size</code> bytes.
+     * 
+     * @return position before advanced.
+     */
+    private int nextGetIndex(int size) {
+        int index = position;
+        if (limit - index < size) {
+            throw new BufferUnderflowException();
+        }
+
+        position = index + size;
+        return index;
+    }
+
+    /**
+     * Advances position for reading <code>length</code> elements of <code>width</code> bytes each.
+     * Checked before multiplying, so large <code>length</code> does not overflow.
+     * 
+     * @return position before advanced.
+     */
+    private int nextGetIndex(int length, int width) {
+        if (length > (limit - position) / width) {
+            throw new BufferUnderflowException();
+        }
+
+        return nextGetIndex(length * width);
+    }
+
+    /**
+     * Advances position for writing <code>length</code> elements of <code>width</code> bytes each,
+     * grows if needed. Checked before multiplying, so large <code>length</code> does not overflow.
+     * 
+     * @return position before advanced.
+     */
+    private int nextPutIndex(int length, int width) {
+        if (length > (Integer.MAX_VALUE - position) / width) {
+            throw new BufferOverflowException();
+        }
+
+        return nextPutIndex(length * width);
+    }
+
+    /**
+     * Advances position for writing <code>size</code> bytes, grows if needed.
+     * 
+     * @return position before advanced.
+     * 
+     * @throws BufferOverflowException
+     *             if buffer {@link #canGrow()} is <code>false</code> but not enough space for data.
+     */
+    private int nextPutIndex(int size) {
+        int index = position;
+        if (limit - index < size) {
+            if (!canGrow) {
+                throw new BufferOverflowException();
+            }
+
+            while (capacity() - index < size) {
+                addChunk();
+            }
+            limit = capacity();
+        }
+
+        position = index + size;
+        return index;
+    }
+
+    private int checkIndex(int index, int size) {
+        if (index < 0 || size > limit - index) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return index;
+    }
+
+    private static void checkArray(int arrayLength, int offset, int length) {
+        if ((offset | length | (offset + length) | (arrayLength - (offset + length))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * @return bytes written, which are before position, or before limit if cannot grow.
+     */
+    private int dataSize() {
+        return canGrow ? position : limit;
+    }
+
+    private void addChunk() {
+        if (closed) {
+            throw new IllegalStateException("AutoBuffer closed.");
+        }
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+
+        FixedBuffer chunk = allocator.alloc(chunkCapacity);
+        if (allocatedOrder == null) {
+            allocatedOrder = chunk.order();
+        }
+        if (order == null) {
+            order = chunk.order();
+            bigEndian = order == ByteOrder.BIG_ENDIAN;
+        } else {
+            chunk.order(order);
+        }
+
+        chunks[chunkCount++] = chunk;
+    }
+
+    private void releaseChunks(int count) {
+        while (chunkCount > count) {
+            // Order of this buffer not leaked to next user of the chunk.
+            FixedBuffer chunk = chunks[--chunkCount];
+            chunk.order(allocatedOrder);
+            allocator.release(chunk);
+            chunks[chunkCount] = null;
+        }
+    }
+
+    private static ByteBuffer byteBufferOf(FixedBuffer chunk) {
+        if (chunk instanceof HasByteBuffer) {
+            return ((HasByteBuffer) chunk).getByteBuffer();
+        }
+        if (chunk instanceof UnsafeFixedBuffer) {
+            return ((UnsafeFixedBuffer) chunk).byteBuffer();
+        }
+        if (chunk instanceof DelegatingFixedBuffer) {
+            return byteBufferOf(((DelegatingFixedBuffer) chunk).delegate());
+        }
+
+        throw new UnsupportedOperationException("Unsupported chunk: " + chunk);
+    }
+}
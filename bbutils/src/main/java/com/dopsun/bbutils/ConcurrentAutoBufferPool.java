@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A thread-safe pool of {@link AutoBuffer}s, backed by a lock-free bounded queue. Buffers are made
+ * by an {@link AutoBufferFactory} when no idle one, and closed when returned to a full or closed
+ * pool. Buffers returned are reset to the byte order they were made with, and auto shrink disabled.
+ * Only buffers made by this pool can be returned, which remember the pool and their byte order.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class ConcurrentAutoBufferPool implements AutoBufferPool, HasPoolStats {
+    private final AutoBufferFactory factory;
+    private final int maxCapacity;
+    private final MpmcArrayQueue<AutoBuffer> queue;
+
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    private volatile boolean closed;
+
+    /**
+     * @param factory
+     *            factory to make buffers.
+     * @param maxIdleSize
+     *            maximum number of idle buffers kept, rounded up to power of 2.
+     * @param maxCapacity
+     *            buffers returned with larger capacity are trimmed, so one huge message does not
+     *            pin its memory in pool.
+     */
+    public ConcurrentAutoBufferPool(AutoBufferFactory factory, int maxIdleSize, int maxCapacity) {
+        Objects.requireNonNull(factory);
+        if (maxIdleSize <= 0) {
+            throw new IllegalArgumentException("maxIdleSize");
+        }
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("maxCapacity");
+        }
+
+        this.factory = factory;
+        this.maxCapacity = maxCapacity;
+        this.queue = new MpmcArrayQueue<>(maxIdleSize);
+    }
+
+    /**
+     * Closes idle buffers, releasing their memory.
+     */
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        closeIdle();
+    }
+
+    private void closeIdle() {
+        AutoBuffer buffer;
+        while ((buffer = queue.poll()) != null) {
+            buffer.close();
+        }
+    }
+
+    @Override
+    public AutoBuffer borrowBuffer() {
+        if (closed) {
+            throw new IllegalStateException("Pool closed.");
+        }
+
+        AutoBuffer buffer = queue.poll();
+        if (buffer != null) {
+            metrics.recordBorrow(true);
+            return buffer;
+        }
+
+        buffer = factory.newAutoBuffer();
+        if (!(buffer instanceof PooledAutoBuffer)) {
+            buffer.close();
+            throw new IllegalStateException("AutoBuffer made by factory cannot be pooled.");
+        }
+        ((PooledAutoBuffer) buffer).pooledBy(this);
+        metrics.recordBorrow(false);
+        return buffer;
+    }
+
+    @Override
+    public void returnBuffer(AutoBuffer buffer) {
+        Objects.requireNonNull(buffer);
+        if (!(buffer instanceof PooledAutoBuffer)) {
+            throw new IllegalArgumentException("buffer is not for this pool.");
+        }
+        PooledAutoBuffer pooledBuffer = (PooledAutoBuffer) buffer;
+        if (!pooledBuffer.isPooledBy(this)) {
+            throw new IllegalArgumentException("buffer is not for this pool.");
+        }
+        if (buffer.isClosed()) {
+            throw new IllegalArgumentException("buffer closed.");
+        }
+
+        if (closed) {
+            metrics.recordReturn();
+            buffer.close();
+            return;
+        }
+
+        pooledBuffer.restorePooledOrder();
+        buffer.autoShrink(0);
+        buffer.clear();
+        if (buffer.capacity() > maxCapacity) {
+            buffer.trim();
+        }
+
+        if (queue.offer(buffer)) {
+            metrics.recordReturn(queue.size());
+            if (closed) {
+                // pool closed while offering, which may have missed this buffer.
+                closeIdle();
+            }
+        } else {
+            metrics.recordReturn(queue.capacity());
+            buffer.close();
+        }
+    }
+
+    @Override
+    public PoolStats poolStats() {
+        return metrics.snapshot(queue.size());
+    }
+}
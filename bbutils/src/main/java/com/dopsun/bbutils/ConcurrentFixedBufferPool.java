@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A thread-safe {@link FixedBufferPool} grows automatically. Idle buffers are kept in a lock-free
+ * {@link MpmcArrayQueue}, so buffers can be borrowed and returned from any thread without external
+ * locking.
+ * 
+ * <p>
+ * When the pool is empty, a new buffer is allocated from the allocator; when the pool is full
+ * (<code>maxIdleSize</code> buffers idle), returned buffer is released to the allocator. The
+ * allocator should be thread-safe.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class ConcurrentFixedBufferPool implements FixedBufferPool, HasPoolStats {
+    private final FixedBufferAllocator allocator;
+    private final int bufferCapacity;
+    private final MpmcArrayQueue<FixedBuffer> queue;
+
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    /**
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxIdleSize
+     *            maximum number of idle buffers kept, rounded up to power of 2.
+     * @param initSize
+     *            allocates this number of buffer if greater than zero.
+     */
+    public ConcurrentFixedBufferPool(FixedBufferAllocator allocator, int bufferCapacity,
+            int maxIdleSize, int initSize) {
+        Objects.requireNonNull(allocator);
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity");
+        }
+        if (maxIdleSize <= 0) {
+            throw new IllegalArgumentException("maxIdleSize");
+        }
+
+        this.allocator = allocator;
+        this.bufferCapacity = bufferCapacity;
+        this.queue = new MpmcArrayQueue<>(maxIdleSize);
+
+        int size = Math.min(initSize, queue.capacity());
+        for (int i = 0; i < size; i++) {
+            queue.offer(allocator.alloc(bufferCapacity));
+        }
+
+        metrics.recordIdleSize(queue.size());
+    }
+
+    @Override
+    public void close() throws Exception {
+        FixedBuffer buffer;
+        while ((buffer = queue.poll()) != null) {
+            allocator.release(buffer);
+        }
+    }
+
+    @Override
+    public int bufferCapacity() {
+        return bufferCapacity;
+    }
+
+    @Override
+    public FixedBuffer borrowBuffer() {
+        FixedBuffer buffer = queue.poll();
+        if (buffer != null) {
+            metrics.recordBorrow(true);
+            return buffer;
+        }
+
+        buffer = allocator.alloc(bufferCapacity);
+        metrics.recordBorrow(false);
+        return buffer;
+    }
+
+    @Override
+    public void returnBuffer(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (buffer.capacity() != bufferCapacity) {
+            throw new IllegalArgumentException("buffer is not for this pool.");
+        }
+
+        buffer.clear();
+        Buffers.restoreOrder(buffer);
+
+        if (queue.offer(buffer)) {
+            metrics.recordReturn(queue.size());
+        } else {
+            metrics.recordReturn(queue.capacity());
+            allocator.release(buffer);
+        }
+    }
+
+    @Override
+    public PoolStats poolStats() {
+        return metrics.snapshot(queue.size());
+    }
+
+    /**
+     * @return approximate number of idle buffers.
+     */
+    int idleSize() {
+        return queue.size();
+    }
+}
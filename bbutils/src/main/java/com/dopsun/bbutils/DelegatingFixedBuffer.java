@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A {@link FixedBuffer} forwards all operations to another one, as base for buffers adding
+ * behaviors like reference counting. Memory of the delegate is exposed via {@link HasByteBuffers}
+ * if available, so channel I/O is not slowed down by wrapping.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+abstract class DelegatingFixedBuffer implements FixedBuffer, HasByteBuffers {
+    /** Buffer all operations forwarded to. */
+    protected final FixedBuffer delegate;
+
+    /**
+     * @param delegate
+     *            buffer all operations forwarded to.
+     */
+    protected DelegatingFixedBuffer(FixedBuffer delegate) {
+        Objects.requireNonNull(delegate);
+
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return buffer all operations forwarded to.
+     */
+    FixedBuffer delegate() {
+        return delegate;
+    }
+
+    @Override
+    public ByteBuffer[] getByteBuffers() {
+        if (delegate instanceof HasByteBuffers) {
+            return ((HasByteBuffers) delegate).getByteBuffers();
+        }
+        if (delegate instanceof HasByteBuffer) {
+            return new ByteBuffer[] { ((HasByteBuffer) delegate).getByteBuffer().duplicate() };
+        }
+
+        throw new UnsupportedOperationException("Unsupported delegate: " + delegate);
+    }
+
+    @Override
+    public int capacity() {
+        return delegate.capacity();
+    }
+
+    @Override
+    public int position() {
+        return delegate.position();
+    }
+
+    @Override
+    public void position(int newPosition) {
+        delegate.position(newPosition);
+    }
+
+    @Override
+    public int limit() {
+        return delegate.limit();
+    }
+
+    @Override
+    public void limit(int newLimit) {
+        delegate.limit(newLimit);
+    }
+
+    @Override
+    public void mark() {
+        delegate.mark();
+    }
+
+    @Override
+    public int markValue() {
+        return delegate.markValue();
+    }
+
+    @Override
+    public void reset() {
+        delegate.reset();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void flip() {
+        delegate.flip();
+    }
+
+    @Override
+    public void rewind() {
+        delegate.rewind();
+    }
+
+    @Override
+    public int remaining() {
+        return delegate.remaining();
+    }
+
+    @Override
+    public boolean hasRemaining() {
+        return delegate.hasRemaining();
+    }
+
+    @Override
+    public ByteOrder order() {
+        return delegate.order();
+    }
+
+    @Override
+    public void order(ByteOrder order) {
+        delegate.order(order);
+    }
+
+    @Override
+    public void putBuffer(Buffer buffer) {
+        delegate.putBuffer(buffer);
+    }
+
+    @Override
+    public byte getByte() {
+        return delegate.getByte();
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return delegate.getByte(index);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        delegate.putByte(value);
+    }
+
+    @Override
+    public void putByte(int index, byte value) {
+        delegate.putByte(index, value);
+    }
+
+    @Override
+    public char getChar() {
+        return delegate.getChar();
+    }
+
+    @Override
+    public char getChar(int index) {
+        return delegate.getChar(index);
+    }
+
+    @Override
+    public void putChar(char value) {
+        delegate.putChar(value);
+    }
+
+    @Override
+    public void putChar(int index, char value) {
+        delegate.putChar(index, value);
+    }
+
+    @Override
+    public short getShort() {
+        return delegate.getShort();
+    }
+
+    @Override
+    public short getShort(int index) {
+        return delegate.getShort(index);
+    }
+
+    @Override
+    public void putShort(short value) {
+        delegate.putShort(value);
+    }
+
+    @Override
+    public void putShort(int index, short value) {
+        delegate.putShort(index, value);
+    }
+
+    @Override
+    public int getInt() {
+        return delegate.getInt();
+    }
+
+    @Override
+    public int getInt(int index) {
+        return delegate.getInt(index);
+    }
+
+    @Override
+    public void putInt(int value) {
+        delegate.putInt(value);
+    }
+
+    @Override
+    public void putInt(int index, int value) {
+        delegate.putInt(index, value);
+    }
+
+    @Override
+    public long getLong() {
+        return delegate.getLong();
+    }
+
+    @Override
+    public long getLong(int index) {
+        return delegate.getLong(index);
+    }
+
+    @Override
+    public void putLong(long value) {
+        delegate.putLong(value);
+    }
+
+    @Override
+    public void putLong(int index, long value) {
+        delegate.putLong(index, value);
+    }
+
+    @Override
+    public float getFloat() {
+        return delegate.getFloat();
+    }
+
+    @Override
+    public float getFloat(int index) {
+        return delegate.getFloat(index);
+    }
+
+    @Override
+    public void putFloat(float value) {
+        delegate.putFloat(value);
+    }
+
+    @Override
+    public void putFloat(int index, float value) {
+        delegate.putFloat(index, value);
+    }
+
+    @Override
+    public double getDouble() {
+        return delegate.getDouble();
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return delegate.getDouble(index);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        delegate.putDouble(value);
+    }
+
+    @Override
+    public void putDouble(int index, double value) {
+        delegate.putDouble(index, value);
+    }
+
+    @Override
+    public void getBytes(byte[] dst, int offset, int length) {
+        delegate.getBytes(dst, offset, length);
+    }
+
+    @Override
+    public void putBytes(byte[] src, int offset, int length) {
+        delegate.putBytes(src, offset, length);
+    }
+
+    @Override
+    public void getInts(int[] dst, int offset, int length) {
+        delegate.getInts(dst, offset, length);
+    }
+
+    @Override
+    public void putInts(int[] src, int offset, int length) {
+        delegate.putInts(src, offset, length);
+    }
+
+    @Override
+    public void getLongs(long[] dst, int offset, int length) {
+        delegate.getLongs(dst, offset, length);
+    }
+
+    @Override
+    public void putLongs(long[] src, int offset, int length) {
+        delegate.putLongs(src, offset, length);
+    }
+
+    @Override
+    public void getFloats(float[] dst, int offset, int length) {
+        delegate.getFloats(dst, offset, length);
+    }
+
+    @Override
+    public void putFloats(float[] src, int offset, int length) {
+        delegate.putFloats(src, offset, length);
+    }
+
+    @Override
+    public void getDoubles(double[] dst, int offset, int length) {
+        delegate.getDoubles(dst, offset, length);
+    }
+
+    @Override
+    public void putDoubles(double[] src, int offset, int length) {
+        delegate.putDoubles(src, offset, length);
+    }
+
+    @Override
+    public int getVarInt() {
+        return delegate.getVarInt();
+    }
+
+    @Override
+    public void putVarInt(int value) {
+        delegate.putVarInt(value);
+    }
+
+    @Override
+    public long getVarLong() {
+        return delegate.getVarLong();
+    }
+
+    @Override
+    public void putVarLong(long value) {
+        delegate.putVarLong(value);
+    }
+
+    @Override
+    public int putUtf8(CharSequence value) {
+        return delegate.putUtf8(value);
+    }
+
+    @Override
+    public int putAscii(CharSequence value) {
+        return delegate.putAscii(value);
+    }
+
+    @Override
+    public int putLatin1(CharSequence value) {
+        return delegate.putLatin1(value);
+    }
+}
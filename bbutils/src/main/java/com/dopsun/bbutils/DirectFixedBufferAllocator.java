@@ -16,58 +16,129 @@
 
 package com.dopsun.bbutils;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
 /**
  * Fixed buffer allocator from direct memory
  * 
  * @author Dop Sun
  * @since 1.0.0
  */
-final class DirectFixedBufferAllocator implements FixedBufferAllocator {
+final class DirectFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
+    /*
+     * Direct memory is freed without setAccessible on JDK internals: with
+     * sun.misc.Unsafe#invokeCleaner(ByteBuffer) since Java 9, or with public
+     * sun.nio.ch.DirectBuffer#cleaner() and sun.misc.Cleaner#clean() on Java 8. If none available,
+     * memory is freed when buffer is garbage collected.
+     */
 
-    private static final Object sync = new Object();
-    private static volatile Field cleanerField;
+    /** <code>(ByteBuffer)void</code>, since Java 9. */
+    @Nullable
+    private static final MethodHandle invokeCleaner;
 
-    private static Field getClearnerField(ByteBuffer buffer) {
-        if (cleanerField != null) {
-            return cleanerField;
-        }
+    /** <code>(ByteBuffer)Object</code>, on Java 8. */
+    @Nullable
+    private static final MethodHandle getCleaner;
+
+    /** <code>(Object)void</code>, on Java 8. */
+    @Nullable
+    private static final MethodHandle clean;
 
-        synchronized (sync) {
-            if (cleanerField != null) {
-                return cleanerField;
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+        MethodHandle invokeCleanerHandle = null;
+        if (UnsafeAccess.isAvailable()) {
+            try {
+                invokeCleanerHandle = lookup
+                        .findVirtual(UnsafeAccess.UNSAFE.getClass(), "invokeCleaner",
+                                MethodType.methodType(void.class, ByteBuffer.class))
+                        .bindTo(UnsafeAccess.UNSAFE);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Not Java 9+.
             }
+        }
 
+        MethodHandle getCleanerHandle = null;
+        MethodHandle cleanHandle = null;
+        if (invokeCleanerHandle == null) {
             try {
-                Field field = buffer.getClass().getDeclaredField("cleaner");
-                field.setAccessible(true);
+                Class<?> directBufferClass = Class.forName("sun.nio.ch.DirectBuffer");
+                Class<?> cleanerClass = Class.forName("sun.misc.Cleaner");
 
-                cleanerField = field;
-                return field;
-            } catch (NoSuchFieldException | SecurityException e) {
-                throw new RuntimeException(e);
+                getCleanerHandle = lookup
+                        .findVirtual(directBufferClass, "cleaner",
+                                MethodType.methodType(cleanerClass))
+                        .asType(MethodType.methodType(Object.class, ByteBuffer.class));
+                cleanHandle = lookup
+                        .findVirtual(cleanerClass, "clean", MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(void.class, Object.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                getCleanerHandle = null;
+                cleanHandle = null;
             }
         }
+
+        invokeCleaner = invokeCleanerHandle;
+        getCleaner = getCleanerHandle;
+        clean = cleanHandle;
     }
 
-    @SuppressWarnings("restriction")
-    private static void cleanDirectBuffer(ByteBuffer buffer) {
-        Field field = getClearnerField(buffer);
+    private final ByteOrder order;
 
+    private final AllocatorMetrics metrics = new AllocatorMetrics(true);
+
+    DirectFixedBufferAllocator() {
+        this(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @param order
+     *            byte order of allocated buffers.
+     */
+    DirectFixedBufferAllocator(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        this.order = order;
+    }
+
+    /**
+     * Frees memory of <code>buffer</code> immediately if supported. <code>buffer</code> should not
+     * be used anymore.
+     * 
+     * @param buffer
+     *            a direct buffer allocated by {@link ByteBuffer#allocateDirect(int)}, or mapped by
+     *            {@link java.nio.channels.FileChannel#map}, not a slice or duplicate.
+     */
+    static void cleanDirectBuffer(ByteBuffer buffer) {
         try {
-            sun.misc.Cleaner cleaner = (sun.misc.Cleaner) field.get(buffer);
-            cleaner.clean();
-        } catch (IllegalArgumentException | IllegalAccessException e) {
+            if (invokeCleaner != null) {
+                invokeCleaner.invokeExact(buffer);
+            } else if (getCleaner != null) {
+                Object cleaner = (Object) getCleaner.invokeExact(buffer);
+                if (cleaner != null) {
+                    clean.invokeExact(cleaner);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
     public FixedBuffer alloc(int capacity) {
-        return Buffers.wrap(ByteBuffer.allocateDirect(capacity));
+        FixedBuffer buffer = Buffers.wrap(ByteBuffer.allocateDirect(capacity).order(order));
+        metrics.recordAlloc(capacity);
+        return buffer;
     }
 
     @Override
@@ -81,5 +152,11 @@ final class DirectFixedBufferAllocator implements FixedBufferAllocator {
         ByteBuffer srcBuffer = ((HasByteBuffer) buffer).getByteBuffer();
 
         cleanDirectBuffer(srcBuffer);
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implement this interface if content is in a number of {@link ByteBuffer}s, e.g. for gathering
+ * writes.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface HasByteBuffers {
+    /**
+     * Gets {@link ByteBuffer}s of remaining bytes of this buffer, in order. Returned byte buffers
+     * share content with this buffer, but have their own position and limit: reading or writing
+     * them does not change position of this buffer.
+     * 
+     * @return {@link ByteBuffer}s of remaining bytes.
+     */
+    ByteBuffer[] getByteBuffers();
+}
@@ -17,17 +17,37 @@
 package com.dopsun.bbutils;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
 
 /**
  * @author Dop Sun
  * @since 1.0.0
  */
-final class HeapFixedBufferAllocator implements FixedBufferAllocator {
+final class HeapFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
+    private final ByteOrder order;
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(true);
+
+    HeapFixedBufferAllocator() {
+        this(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @param order
+     *            byte order of allocated buffers.
+     */
+    HeapFixedBufferAllocator(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        this.order = order;
+    }
 
     @Override
     public FixedBuffer alloc(int capacity) {
-        return Buffers.wrap(ByteBuffer.allocate(capacity));
+        FixedBuffer buffer = Buffers.wrap(ByteBuffer.allocate(capacity).order(order));
+        metrics.recordAlloc(capacity);
+        return buffer;
     }
 
     @Override
@@ -35,6 +55,12 @@ final class HeapFixedBufferAllocator implements FixedBufferAllocator {
         Objects.requireNonNull(buffer);
 
         // Nothing to be done for heap buffer.
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
     }
 
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Tracks how many buffers of a pool were borrowed at most recently, to decide how many idle
+ * buffers to keep.
+ * 
+ * <p>
+ * Time is split into windows. Peak number of borrowed buffers is tracked for current window and
+ * the previous one, and a pool keeps enough idle buffers to serve the higher peak again. So a
+ * spike is forgotten after two windows, and buffers kept for it are released.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@NotThreadSafe
+final class IdleEviction {
+    private final long windowNanos;
+
+    private long windowStart;
+    private int borrowed;
+    private int windowPeak;
+    private int previousPeak;
+
+    /**
+     * @param window
+     *            length of window, should be greater than zero.
+     * @param unit
+     *            unit of <code>window</code>.
+     */
+    IdleEviction(long window, TimeUnit unit) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window invalid: " + window);
+        }
+
+        this.windowNanos = unit.toNanos(window);
+        this.windowStart = System.nanoTime();
+    }
+
+    void recordBorrow() {
+        borrowed++;
+        if (borrowed > windowPeak) {
+            windowPeak = borrowed;
+        }
+    }
+
+    void recordReturn() {
+        borrowed--;
+    }
+
+    /**
+     * Starts a new window if current one elapsed.
+     * 
+     * @param idleSize
+     *            number of idle buffers now.
+     * @return number of idle buffers to evict, or zero if window not elapsed.
+     */
+    int evictCount(int idleSize) {
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos) {
+            return 0;
+        }
+
+        int keep = Math.max(windowPeak, previousPeak) - borrowed;
+
+        windowStart = now;
+        previousPeak = windowPeak;
+        windowPeak = borrowed;
+
+        return Math.max(0, idleSize - Math.max(0, keep));
+    }
+}
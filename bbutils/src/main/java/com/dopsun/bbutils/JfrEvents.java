@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic JDK Flight Recorder events of pools and allocators registered. This class is loaded
+ * only when first used, so JVMs without <code>jdk.jfr</code> fail with {@link LinkageError} on
+ * first use only.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class JfrEvents {
+    private static final ConcurrentMap<String, HasPoolStats> pools;
+    private static final ConcurrentMap<String, HasAllocatorStats> allocators;
+
+    static {
+        pools = new ConcurrentHashMap<>();
+        allocators = new ConcurrentHashMap<>();
+
+        FlightRecorder.addPeriodicEvent(PoolStatsEvent.class, JfrEvents::emitPoolStats);
+        FlightRecorder.addPeriodicEvent(AllocatorStatsEvent.class, JfrEvents::emitAllocatorStats);
+        FlightRecorder.addPeriodicEvent(AllocatorSizeClassEvent.class,
+                JfrEvents::emitAllocatorSizeClasses);
+    }
+
+    static void register(String name, HasPoolStats pool) {
+        allocators.remove(name);
+        pools.put(name, pool);
+    }
+
+    static void register(String name, HasAllocatorStats allocator) {
+        pools.remove(name);
+        allocators.put(name, allocator);
+    }
+
+    static void unregister(String name) {
+        pools.remove(name);
+        allocators.remove(name);
+    }
+
+    private static void emitPoolStats() {
+        for (Map.Entry<String, HasPoolStats> entry : pools.entrySet()) {
+            PoolStats stats = entry.getValue().poolStats();
+
+            PoolStatsEvent event = new PoolStatsEvent();
+            event.name = entry.getKey();
+            event.borrowCount = stats.borrowCount();
+            event.returnCount = stats.returnCount();
+            event.hitCount = stats.hitCount();
+            event.missCount = stats.missCount();
+            event.idleSize = stats.idleSize();
+            event.peakIdleSize = stats.peakIdleSize();
+            event.commit();
+        }
+    }
+
+    private static void emitAllocatorStats() {
+        for (Map.Entry<String, HasAllocatorStats> entry : allocators.entrySet()) {
+            AllocatorStats stats = entry.getValue().allocatorStats();
+
+            AllocatorStatsEvent event = new AllocatorStatsEvent();
+            event.name = entry.getKey();
+            event.allocCount = stats.allocCount();
+            event.releaseCount = stats.releaseCount();
+            event.allocatedBytes = stats.allocatedBytes();
+            event.releasedBytes = stats.releasedBytes();
+            event.outstandingBytes = stats.outstandingBytes();
+            event.commit();
+        }
+    }
+
+    private static void emitAllocatorSizeClasses() {
+        for (Map.Entry<String, HasAllocatorStats> entry : allocators.entrySet()) {
+            AllocatorStats stats = entry.getValue().allocatorStats();
+
+            for (Map.Entry<Integer, Long> sizeClass : stats.outstandingBytesBySizeClass()
+                    .entrySet()) {
+                AllocatorSizeClassEvent event = new AllocatorSizeClassEvent();
+                event.name = entry.getKey();
+                event.sizeClass = sizeClass.getKey();
+                event.outstandingBytes = sizeClass.getValue();
+                event.commit();
+            }
+        }
+    }
+
+    @Name("com.dopsun.bbutils.PoolStats")
+    @Label("Buffer Pool Statistics")
+    @Category("bbutils")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class PoolStatsEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Borrow Count")
+        long borrowCount;
+
+        @Label("Return Count")
+        long returnCount;
+
+        @Label("Hit Count")
+        long hitCount;
+
+        @Label("Miss Count")
+        long missCount;
+
+        @Label("Idle Size")
+        int idleSize;
+
+        @Label("Peak Idle Size")
+        int peakIdleSize;
+    }
+
+    @Name("com.dopsun.bbutils.AllocatorStats")
+    @Label("Buffer Allocator Statistics")
+    @Category("bbutils")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class AllocatorStatsEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Alloc Count")
+        long allocCount;
+
+        @Label("Release Count")
+        long releaseCount;
+
+        @Label("Allocated Bytes")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Released Bytes")
+        @DataAmount
+        long releasedBytes;
+
+        @Label("Outstanding Bytes")
+        @DataAmount
+        long outstandingBytes;
+    }
+
+    @Name("com.dopsun.bbutils.AllocatorSizeClass")
+    @Label("Buffer Allocator Size Class")
+    @Category("bbutils")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class AllocatorSizeClassEvent extends Event {
+        @Label("Name")
+        String name;
+
+        @Label("Size Class")
+        @DataAmount
+        int sizeClass;
+
+        @Label("Outstanding Bytes")
+        @DataAmount
+        long outstandingBytes;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Tracks a sample of buffers with {@link PhantomReference}, and reports those garbage collected
+ * before untracked.
+ * 
+ * <p>
+ * A tracked buffer is wrapped, and the stack trace of tracking is recorded. Only wrappers are
+ * referenced phantomly, so memory of a leaked buffer is reclaimed same as before. Leaks are
+ * reported when buffers are tracked or untracked, without a background thread.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class LeakDetector {
+    private final int samplingInterval;
+    private final Consumer<? super BufferLeakException> listener;
+
+    private final ReferenceQueue<TrackedFixedBuffer> queue = new ReferenceQueue<>();
+    private final Set<LeakReference> references = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param samplingInterval
+     *            tracks one of every <code>samplingInterval</code> buffers on average, should be
+     *            greater than zero.
+     * @param listener
+     *            listener of leaks.
+     */
+    LeakDetector(int samplingInterval, Consumer<? super BufferLeakException> listener) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("samplingInterval invalid: " + samplingInterval);
+        }
+        Objects.requireNonNull(listener);
+
+        this.samplingInterval = samplingInterval;
+        this.listener = listener;
+    }
+
+    /**
+     * @param buffer
+     *            buffer just borrowed or allocated.
+     * @return <code>buffer</code> itself if not sampled, or a wrapper of it which is tracked.
+     */
+    FixedBuffer track(FixedBuffer buffer) {
+        reportLeaks();
+
+        if (samplingInterval > 1
+                && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+            return buffer;
+        }
+
+        TrackedFixedBuffer tracked = new TrackedFixedBuffer(buffer, this);
+        tracked.reference = new LeakReference(tracked, queue,
+                new BufferLeakException(buffer.capacity()));
+        references.add(tracked.reference);
+        return tracked;
+    }
+
+    /**
+     * @param buffer
+     *            buffer being returned or released.
+     * @return buffer to return or release, unwrapped if tracked.
+     */
+    FixedBuffer untrack(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        reportLeaks();
+
+        if (!(buffer instanceof TrackedFixedBuffer)) {
+            return buffer;
+        }
+
+        TrackedFixedBuffer tracked = (TrackedFixedBuffer) buffer;
+        if (tracked.detector != this) {
+            throw new IllegalArgumentException("buffer is not for this pool or allocator.");
+        }
+
+        LeakReference reference = tracked.reference;
+        reference.clear();
+        references.remove(reference);
+        return tracked.delegate();
+    }
+
+    /**
+     * Reports buffers garbage collected but not untracked.
+     */
+    void reportLeaks() {
+        LeakReference reference;
+        while ((reference = (LeakReference) queue.poll()) != null) {
+            if (references.remove(reference)) {
+                listener.accept(reference.leak);
+            }
+        }
+    }
+
+    /**
+     * @return number of buffers tracked and not untracked yet.
+     */
+    int trackedCount() {
+        return references.size();
+    }
+
+    private static final class TrackedFixedBuffer extends DelegatingFixedBuffer {
+        private final LeakDetector detector;
+        private LeakReference reference;
+
+        TrackedFixedBuffer(FixedBuffer delegate, LeakDetector detector) {
+            super(delegate);
+
+            this.detector = detector;
+        }
+    }
+
+    private static final class LeakReference extends PhantomReference<TrackedFixedBuffer> {
+        private final BufferLeakException leak;
+
+        LeakReference(TrackedFixedBuffer referent, ReferenceQueue<TrackedFixedBuffer> queue,
+                BufferLeakException leak) {
+            super(referent, queue);
+
+            this.leak = leak;
+        }
+    }
+}
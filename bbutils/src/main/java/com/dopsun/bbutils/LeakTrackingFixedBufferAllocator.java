@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link FixedBufferAllocator} reports buffers allocated but never released, with
+ * {@link LeakDetector}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class LeakTrackingFixedBufferAllocator implements FixedBufferAllocator {
+    private final FixedBufferAllocator allocator;
+    private final LeakDetector leakDetector;
+
+    /**
+     * @param allocator
+     *            allocator to track, should be thread-safe if this allocator used by multiple
+     *            threads.
+     * @param leakDetector
+     *            detector of leaks.
+     */
+    public LeakTrackingFixedBufferAllocator(FixedBufferAllocator allocator,
+            LeakDetector leakDetector) {
+        Objects.requireNonNull(allocator);
+        Objects.requireNonNull(leakDetector);
+
+        this.allocator = allocator;
+        this.leakDetector = leakDetector;
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        return leakDetector.track(allocator.alloc(capacity));
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        allocator.release(leakDetector.untrack(buffer));
+    }
+}
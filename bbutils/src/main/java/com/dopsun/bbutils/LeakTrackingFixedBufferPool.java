@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link FixedBufferPool} reports buffers borrowed but never returned, with
+ * {@link LeakDetector}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class LeakTrackingFixedBufferPool implements FixedBufferPool {
+    private final FixedBufferPool pool;
+    private final LeakDetector leakDetector;
+
+    /**
+     * @param pool
+     *            pool to track, should be thread-safe if this pool used by multiple threads.
+     * @param leakDetector
+     *            detector of leaks.
+     */
+    public LeakTrackingFixedBufferPool(FixedBufferPool pool, LeakDetector leakDetector) {
+        Objects.requireNonNull(pool);
+        Objects.requireNonNull(leakDetector);
+
+        this.pool = pool;
+        this.leakDetector = leakDetector;
+    }
+
+    @Override
+    public void close() throws Exception {
+        pool.close();
+    }
+
+    @Override
+    public int bufferCapacity() {
+        return pool.bufferCapacity();
+    }
+
+    @Override
+    public FixedBuffer borrowBuffer() {
+        return leakDetector.track(pool.borrowBuffer());
+    }
+
+    @Override
+    public void returnBuffer(FixedBuffer buffer) {
+        pool.returnBuffer(leakDetector.untrack(buffer));
+    }
+}
@@ -25,16 +25,19 @@ import java.util.Objects;
  * @author Dop Sun
  * @since 1.0.0
  */
-final class ListFixedBufferPool implements FixedBufferPool {
+final class ListFixedBufferPool implements FixedBufferPool, HasPoolStats {
     private final int bufferCapacity;
+    private final int maxSize;
     private final List<FixedBuffer> list;
 
+    private final PoolMetrics metrics = new PoolMetrics();
+
     ListFixedBufferPool(List<FixedBuffer> list) {
         this(list, true);
     }
 
     ListFixedBufferPool(FixedBuffer[] array) {
-        this(Arrays.asList(array), false);
+        this(Arrays.asList(array), true);
     }
 
     ListFixedBufferPool(List<FixedBuffer> list, boolean needCopy) {
@@ -57,7 +60,10 @@ final class ListFixedBufferPool implements FixedBufferPool {
         }
 
         this.bufferCapacity = capacity;
+        this.maxSize = list.size();
         this.list = needCopy ? new ArrayList<>(list) : list;
+
+        metrics.recordIdleSize(this.list.size());
     }
 
     @Override
@@ -73,9 +79,11 @@ final class ListFixedBufferPool implements FixedBufferPool {
     @Override
     public FixedBuffer borrowBuffer() {
         if (list.isEmpty()) {
+            metrics.recordMiss();
             throw new IllegalStateException("Pool is empty.");
         }
 
+        metrics.recordBorrow(true);
         return list.remove(list.size() - 1);
     }
 
@@ -87,9 +95,19 @@ final class ListFixedBufferPool implements FixedBufferPool {
             throw new IllegalArgumentException("buffer is not for this pool.");
         }
 
+        if (list.size() == maxSize) {
+            throw new IllegalArgumentException("Pool is full.");
+        }
+
         buffer.clear();
+        Buffers.restoreOrder(buffer);
 
-        // TODO: to check whether list has been full, instead of auto-grow if over return.
         this.list.add(buffer);
+        metrics.recordReturn(list.size());
+    }
+
+    @Override
+    public PoolStats poolStats() {
+        return metrics.snapshot(list.size());
     }
 }
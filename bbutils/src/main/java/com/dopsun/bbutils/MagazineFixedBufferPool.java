@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link FixedBufferPool} keeps a small per-thread stack ("magazine") of buffers in front of a
+ * shared pool. Borrow and return normally touch thread local state only; buffers move between
+ * magazine and the shared pool in batches of half magazine size, with the shared pool locked once
+ * per batch.
+ * 
+ * <p>
+ * The shared pool does not need to be thread-safe, as all access to it is synchronized on itself.
+ * Buffers cached by a thread stay in its magazine until the thread borrows them again, the thread
+ * terminates and another thread misses its magazine, or {@link #close()} is called. So buffers
+ * cached by idle threads are not available to other threads.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class MagazineFixedBufferPool implements FixedBufferPool, HasPoolStats {
+    private final FixedBufferPool sharedPool;
+    private final int magazineSize;
+    private final int batchSize;
+
+    /** All magazines created, to return cached buffers when close. */
+    private final Queue<Magazine> magazines = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Magazine> localMagazine;
+
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    /**
+     * @param sharedPool
+     *            pool shared by all threads.
+     * @param magazineSize
+     *            maximum number of buffers cached per thread, should be greater than one.
+     */
+    public MagazineFixedBufferPool(FixedBufferPool sharedPool, int magazineSize) {
+        Objects.requireNonNull(sharedPool);
+        if (magazineSize <= 1) {
+            throw new IllegalArgumentException("magazineSize");
+        }
+
+        this.sharedPool = sharedPool;
+        this.magazineSize = magazineSize;
+        this.batchSize = magazineSize / 2;
+
+        this.localMagazine = ThreadLocal.withInitial(() -> {
+            Magazine magazine = new Magazine(this.magazineSize, Thread.currentThread());
+            magazines.add(magazine);
+            return magazine;
+        });
+    }
+
+    /**
+     * Returns buffers cached by all threads to the shared pool, then closes the shared pool. This
+     * pool should not be used by other threads when closing.
+     */
+    @Override
+    public void close() throws Exception {
+        synchronized (sharedPool) {
+            Magazine magazine;
+            while ((magazine = magazines.poll()) != null) {
+                while (magazine.size > 0) {
+                    sharedPool.returnBuffer(magazine.pop());
+                }
+            }
+
+            sharedPool.close();
+        }
+    }
+
+    @Override
+    public int bufferCapacity() {
+        return sharedPool.bufferCapacity();
+    }
+
+    @Override
+    public FixedBuffer borrowBuffer() {
+        Magazine magazine = localMagazine.get();
+        if (magazine.size == 0) {
+            try {
+                refill(magazine);
+            } catch (RuntimeException e) {
+                metrics.recordMiss();
+                throw e;
+            }
+
+            metrics.recordBorrow(false);
+        } else {
+            metrics.recordBorrow(true);
+        }
+
+        return magazine.pop();
+    }
+
+    @Override
+    public void returnBuffer(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (buffer.capacity() != sharedPool.bufferCapacity()) {
+            throw new IllegalArgumentException("buffer is not for this pool.");
+        }
+
+        buffer.clear();
+        Buffers.restoreOrder(buffer);
+
+        Magazine magazine = localMagazine.get();
+        if (magazine.size == magazineSize) {
+            flush(magazine);
+        }
+
+        magazine.push(buffer);
+        metrics.recordReturn();
+    }
+
+    /**
+     * Hit is a borrow served by the calling thread's magazine, and miss is a borrow refilling the
+     * magazine from shared pool. Idle size is the approximate number of buffers cached by all
+     * magazines, and peak idle size is the highest idle size seen by snapshots.
+     */
+    @Override
+    public PoolStats poolStats() {
+        int idleSize = 0;
+        for (Magazine magazine : magazines) {
+            idleSize += magazine.size;
+        }
+
+        return metrics.snapshot(idleSize);
+    }
+
+    /**
+     * Moves up to {@link #batchSize} buffers from shared pool to <code>magazine</code>. At least
+     * one buffer is moved, or exception from shared pool thrown.
+     */
+    private void refill(Magazine magazine) {
+        synchronized (sharedPool) {
+            flushTerminated();
+            magazine.push(sharedPool.borrowBuffer());
+
+            for (int i = 1; i < batchSize; i++) {
+                FixedBuffer buffer;
+                try {
+                    buffer = sharedPool.borrowBuffer();
+                } catch (RuntimeException e) {
+                    // Shared pool is empty or failed, takes what have been borrowed only.
+                    break;
+                }
+
+                magazine.push(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns buffers cached by magazines of terminated threads to shared pool, so a bounded shared
+     * pool is not exhausted by buffers nobody can borrow. Called on miss, with shared pool locked.
+     */
+    private void flushTerminated() {
+        Iterator<Magazine> it = magazines.iterator();
+        while (it.hasNext()) {
+            Magazine magazine = it.next();
+            if (magazine.isOwnerTerminated()) {
+                it.remove();
+                while (magazine.size > 0) {
+                    sharedPool.returnBuffer(magazine.pop());
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves {@link #batchSize} buffers from <code>magazine</code> to shared pool.
+     */
+    private void flush(Magazine magazine) {
+        synchronized (sharedPool) {
+            for (int i = 0; i < batchSize; i++) {
+                sharedPool.returnBuffer(magazine.pop());
+            }
+        }
+    }
+
+    /**
+     * Per-thread stack of buffers.
+     */
+    private static final class Magazine {
+        private final FixedBuffer[] buffers;
+        private int size;
+
+        /** Weak, so the thread object is not kept by this pool after terminated. */
+        private final WeakReference<Thread> owner;
+
+        Magazine(int capacity, Thread owner) {
+            this.buffers = new FixedBuffer[capacity];
+            this.owner = new WeakReference<>(owner);
+        }
+
+        boolean isOwnerTerminated() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        void push(FixedBuffer buffer) {
+            buffers[size++] = buffer;
+        }
+
+        FixedBuffer pop() {
+            FixedBuffer buffer = buffers[--size];
+            buffers[size] = null;
+            return buffer;
+        }
+    }
+}
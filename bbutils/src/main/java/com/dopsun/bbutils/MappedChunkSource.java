@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Chunks mapped from a file with {@link FileChannel#map(FileChannel.MapMode, long, long)}.
+ * 
+ * <p>
+ * Chunks are mapped from start of the file, in order of allocation. Released chunks are unmapped
+ * immediately, and their file regions are reused by later chunks of same capacity. So allocating
+ * same capacities in same order after reopening a named file maps the bytes persisted before.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class MappedChunkSource implements ChunkSource {
+    private final Path path;
+    private final boolean deleteOnClose;
+    private final FileChannel channel;
+
+    private long fileLength;
+    private final Map<ByteBuffer, Long> offsetByChunk = new IdentityHashMap<>();
+    private final Map<Integer, ArrayDeque<Long>> freeOffsetsByCapacity = new HashMap<>();
+
+    /**
+     * @param path
+     *            file to map, created if not exists.
+     * @param deleteOnClose
+     *            <code>true</code> to delete the file when closed.
+     * @throws IOException
+     *             if failed to open the file.
+     */
+    MappedChunkSource(Path path, boolean deleteOnClose) throws IOException {
+        Objects.requireNonNull(path);
+
+        this.path = path;
+        this.deleteOnClose = deleteOnClose;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return a source on a new temporary file, which is deleted when closed.
+     * @throws IOException
+     *             if failed to create the file.
+     */
+    static MappedChunkSource tempFile() throws IOException {
+        return new MappedChunkSource(Files.createTempFile("bbutils", ".mapped"), true);
+    }
+
+    @Override
+    public synchronized ByteBuffer allocate(int capacity) {
+        ArrayDeque<Long> freeOffsets = freeOffsetsByCapacity.get(capacity);
+        Long freeOffset = freeOffsets == null ? null : freeOffsets.poll();
+
+        long offset;
+        if (freeOffset != null) {
+            offset = freeOffset;
+        } else {
+            offset = fileLength;
+            fileLength += capacity;
+        }
+
+        MappedByteBuffer chunk;
+        try {
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, offset, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map file: " + path, e);
+        }
+
+        offsetByChunk.put(chunk, offset);
+        return chunk;
+    }
+
+    @Override
+    public synchronized void release(ByteBuffer chunk) {
+        Objects.requireNonNull(chunk);
+
+        Long offset = offsetByChunk.remove(chunk);
+        if (offset == null) {
+            throw new IllegalArgumentException("chunk is not from this source.");
+        }
+
+        if (!deleteOnClose) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        DirectFixedBufferAllocator.cleanDirectBuffer(chunk);
+
+        freeOffsetsByCapacity.computeIfAbsent(chunk.capacity(), c -> new ArrayDeque<>())
+                .add(offset);
+    }
+
+    /**
+     * Unmaps all chunks not released yet, and closes the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (ByteBuffer chunk : offsetByChunk.keySet().toArray(new ByteBuffer[0])) {
+            release(chunk);
+        }
+
+        channel.close();
+        if (deleteOnClose) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Allocates each buffer as its own mapping of a file region, and unmaps it when released.
+ * 
+ * <p>
+ * Buffers wrap {@link java.nio.MappedByteBuffer}, and can be forced to storage with
+ * {@link java.nio.MappedByteBuffer#force()} via {@link HasByteBuffer}. Each allocation maps a
+ * region, so this allocator suits few large buffers; see {@link BuddyFixedBufferAllocator} with a
+ * {@link MappedChunkSource} for many small ones.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class MappedFixedBufferAllocator implements CloseableFixedBufferAllocator, HasAllocatorStats {
+    private final MappedChunkSource chunkSource;
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(true);
+
+    /**
+     * @param chunkSource
+     *            source of mapped regions.
+     */
+    public MappedFixedBufferAllocator(MappedChunkSource chunkSource) {
+        Objects.requireNonNull(chunkSource);
+
+        this.chunkSource = chunkSource;
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        FixedBuffer buffer = Buffers.wrap(chunkSource.allocate(capacity));
+        metrics.recordAlloc(capacity);
+        return buffer;
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (!(buffer instanceof HasByteBuffer)) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+
+        chunkSource.release(((HasByteBuffer) buffer).getByteBuffer());
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Unmaps all buffers not released yet, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        chunkSource.close();
+    }
+}
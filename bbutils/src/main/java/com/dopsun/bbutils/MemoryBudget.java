@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A budget of memory shared by allocators, with bytes reserved accounted by tag. Allocators
+ * created by {@link Allocators#budgeted(FixedBufferAllocator, MemoryBudget, String)} reserve
+ * capacity of each buffer before allocating it, so memory is limited before reaching JVM-wide
+ * limits such as <code>-XX:MaxDirectMemorySize</code>, where allocating direct memory calls
+ * {@link System#gc()} and stalls before failing.
+ * 
+ * <p>
+ * Reserving without waiting costs a compare-and-set on total and an add on counter of the tag.
+ * Reservations waiting for budget are woken up by releases.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+public final class MemoryBudget {
+    private final long maxBytes;
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> reservedBytesByTag = new ConcurrentHashMap<>();
+
+    /** Sync for reservations waiting for budget. */
+    private final Object waitSync = new Object();
+    /** Number of reservations waiting, guarded by {@link #waitSync} when updating. */
+    private volatile int waiterCount;
+
+    /**
+     * @param maxBytes
+     *            maximum bytes can be reserved, should be greater than zero.
+     */
+    public MemoryBudget(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes invalid: " + maxBytes);
+        }
+
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return maximum bytes can be reserved.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return bytes reserved and not released.
+     */
+    public long reservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * @return bytes not reserved.
+     */
+    public long availableBytes() {
+        return maxBytes - reservedBytes.get();
+    }
+
+    /**
+     * @param tag
+     *            tag of reservations.
+     * @return bytes reserved with <code>tag</code> and not released.
+     */
+    public long reservedBytes(String tag) {
+        Objects.requireNonNull(tag);
+
+        AtomicLong counter = reservedBytesByTag.get(tag);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * @return snapshot of bytes reserved and not released, by tag.
+     */
+    public SortedMap<String, Long> reservedBytesByTag() {
+        SortedMap<String, Long> result = new TreeMap<>();
+        reservedBytesByTag.forEach((tag, counter) -> result.put(tag, counter.get()));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * Reserves <code>bytes</code> if available, without waiting.
+     * 
+     * @param tag
+     *            tag of reservation.
+     * @param bytes
+     *            bytes to reserve, should not be negative.
+     * @return <code>true</code> if reserved, or <code>false</code> if not enough bytes available.
+     */
+    public boolean tryReserve(String tag, long bytes) {
+        Objects.requireNonNull(tag);
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes invalid: " + bytes);
+        }
+
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (bytes > maxBytes - reserved) {
+                return false;
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+
+        tagCounter(tag).addAndGet(bytes);
+        return true;
+    }
+
+    /**
+     * Reserves <code>bytes</code>, waiting for releases up to <code>timeout</code> if not enough
+     * bytes available.
+     * 
+     * @param tag
+     *            tag of reservation.
+     * @param bytes
+     *            bytes to reserve, should not be negative.
+     * @param timeout
+     *            maximum time to wait.
+     * @param unit
+     *            unit of <code>timeout</code>.
+     * @return <code>true</code> if reserved, or <code>false</code> if timed out.
+     * @throws InterruptedException
+     *             if interrupted while waiting.
+     */
+    public boolean reserve(String tag, long bytes, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Objects.requireNonNull(unit);
+
+        if (tryReserve(tag, bytes)) {
+            return true;
+        }
+        if (bytes > maxBytes) {
+            return false;
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (waitSync) {
+            waiterCount++;
+            try {
+                // Counted as waiter before retrying, so releases after this notify.
+                while (!tryReserve(tag, bytes)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(waitSync, remaining);
+                }
+                return true;
+            } finally {
+                waiterCount--;
+            }
+        }
+    }
+
+    /**
+     * Releases <code>bytes</code> reserved with <code>tag</code>, and wakes up waiters.
+     * 
+     * @param tag
+     *            tag of reservation.
+     * @param bytes
+     *            bytes to release, should not be negative.
+     */
+    public void release(String tag, long bytes) {
+        Objects.requireNonNull(tag);
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes invalid: " + bytes);
+        }
+
+        tagCounter(tag).addAndGet(-bytes);
+        reservedBytes.addAndGet(-bytes);
+
+        if (waiterCount > 0) {
+            synchronized (waitSync) {
+                waitSync.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reserves <code>bytes</code> regardless of budget. Used when allocated capacity is greater
+     * than requested, because the memory is already allocated.
+     */
+    void forceReserve(String tag, long bytes) {
+        tagCounter(tag).addAndGet(bytes);
+        reservedBytes.addAndGet(bytes);
+    }
+
+    private AtomicLong tagCounter(String tag) {
+        AtomicLong counter = reservedBytesByTag.get(tag);
+        if (counter == null) {
+            counter = reservedBytesByTag.computeIfAbsent(tag, t -> new AtomicLong());
+        }
+        return counter;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryBudget [maxBytes=" + maxBytes + ", reservedBytes=" + reservedBytes() + "]";
+    }
+}
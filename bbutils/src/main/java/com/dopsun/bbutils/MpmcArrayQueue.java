@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue on a ring buffer. Each slot carries a
+ * sequence number, telling producers and consumers whether the slot is ready for them, so
+ * {@link #offer(Object)} and {@link #poll()} cost one CAS when not contended. This is the
+ * well-known algorithm by Dmitry Vyukov.
+ * 
+ * @param <E>
+ *            type of elements.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class MpmcArrayQueue<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new PaddedAtomicLong();
+    private final AtomicLong consumerIndex = new PaddedAtomicLong();
+
+    /**
+     * @param capacity
+     *            maximum number of elements, rounded up to power of 2 and at least 2, as a slot
+     *            sequence cannot tell full from empty with one slot.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>capacity</code> is less than or equal to zero, or greater than 2^30.
+     */
+    MpmcArrayQueue(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity invalid: " + capacity);
+        }
+
+        int actualCapacity = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+
+        this.mask = actualCapacity - 1;
+        this.elements = new AtomicReferenceArray<>(actualCapacity);
+        this.sequences = new AtomicLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++) {
+            sequences.lazySet(i, i);
+        }
+    }
+
+    /**
+     * @return maximum number of elements in this queue.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return approximate number of elements in this queue.
+     */
+    int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity());
+    }
+
+    /**
+     * @param element
+     *            element to add.
+     * @return <code>false</code> if this queue is full.
+     */
+    boolean offer(E element) {
+        Objects.requireNonNull(element);
+
+        long index = producerIndex.get();
+        for (;;) {
+            int offset = (int) index & mask;
+            long diff = sequences.get(offset) - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(offset, element);
+                    sequences.lazySet(offset, index + 1);
+                    return true;
+                }
+                index = producerIndex.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                index = producerIndex.get();
+            }
+        }
+    }
+
+    /**
+     * @return the head of this queue, or <code>null</code> if this queue is empty.
+     */
+    @Nullable
+    E poll() {
+        long index = consumerIndex.get();
+        for (;;) {
+            int offset = (int) index & mask;
+            long diff = sequences.get(offset) - (index + 1);
+            if (diff == 0) {
+                if (consumerIndex.compareAndSet(index, index + 1)) {
+                    E element = elements.get(offset);
+                    elements.lazySet(offset, null);
+                    sequences.lazySet(offset, index + mask + 1);
+                    return element;
+                }
+                index = consumerIndex.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                index = consumerIndex.get();
+            }
+        }
+    }
+
+    /**
+     * Pads producer and consumer indexes to separate cache lines, so they are not invalidating
+     * each other.
+     */
+    @SuppressWarnings({ "serial", "unused" })
+    private static final class PaddedAtomicLong extends AtomicLong {
+        private long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -25,9 +25,11 @@ import java.util.function.IntFunction;
  * @author Dop Sun
  * @since 1.0.0
  */
-final class PoolFixedBufferAllocator implements FixedBufferAllocator {
+final class PoolFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
     private final IntFunction<FixedBufferPool> poolFactory;
 
+    private final AllocatorMetrics metrics = new AllocatorMetrics(false);
+
     private final Map<Integer, FixedBufferPool> poolByCapacity = new HashMap<>();
 
     /**
@@ -51,7 +53,9 @@ final class PoolFixedBufferAllocator implements FixedBufferAllocator {
             poolByCapacity.put(capacity, pool);
         }
 
-        return pool.borrowBuffer();
+        FixedBuffer buffer = pool.borrowBuffer();
+        metrics.recordAlloc(capacity);
+        return buffer;
     }
 
     @Override
@@ -64,6 +68,12 @@ final class PoolFixedBufferAllocator implements FixedBufferAllocator {
         }
 
         pool.returnBuffer(buffer);
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
     }
 
 }
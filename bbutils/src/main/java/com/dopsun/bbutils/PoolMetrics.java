@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counters of a pool. Counters are striped with {@link LongAdder}, so recording from many threads
+ * does not contend on one cache line.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class PoolMetrics {
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder returnCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAccumulator peakIdleSize = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param hit
+     *            <code>true</code> if served by an idle buffer.
+     */
+    void recordBorrow(boolean hit) {
+        borrowCount.increment();
+        if (hit) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+    }
+
+    /**
+     * Records a miss which failed, so nothing borrowed.
+     */
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    /**
+     * @param idleSize
+     *            number of idle buffers after returned.
+     */
+    void recordReturn(int idleSize) {
+        returnCount.increment();
+        recordIdleSize(idleSize);
+    }
+
+    /**
+     * Records a return, without tracking idle size.
+     */
+    void recordReturn() {
+        returnCount.increment();
+    }
+
+    /**
+     * @param idleSize
+     *            number of idle buffers now.
+     */
+    void recordIdleSize(int idleSize) {
+        peakIdleSize.accumulate(idleSize);
+    }
+
+    /**
+     * @param idleSize
+     *            number of idle buffers now.
+     * @return snapshot of counters.
+     */
+    PoolStats snapshot(int idleSize) {
+        recordIdleSize(idleSize);
+
+        return new PoolStats(borrowCount.sum(), returnCount.sum(), hitCount.sum(),
+                missCount.sum(), idleSize, (int) peakIdleSize.get());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * Snapshot of counters of a {@link FixedBufferPool}. Counters are read one by one without locking,
+ * so they may not be consistent with each other when the pool is in use.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class PoolStats {
+    private final long borrowCount;
+    private final long returnCount;
+    private final long hitCount;
+    private final long missCount;
+    private final int idleSize;
+    private final int peakIdleSize;
+
+    /**
+     * @param borrowCount
+     *            number of buffers borrowed.
+     * @param returnCount
+     *            number of buffers returned.
+     * @param hitCount
+     *            number of borrows served by idle buffers.
+     * @param missCount
+     *            number of borrows not served by idle buffers.
+     * @param idleSize
+     *            number of idle buffers now.
+     * @param peakIdleSize
+     *            highest number of idle buffers seen.
+     */
+    public PoolStats(long borrowCount, long returnCount, long hitCount, long missCount,
+            int idleSize, int peakIdleSize) {
+        this.borrowCount = borrowCount;
+        this.returnCount = returnCount;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.idleSize = idleSize;
+        this.peakIdleSize = peakIdleSize;
+    }
+
+    /**
+     * @return number of buffers borrowed.
+     */
+    public long borrowCount() {
+        return borrowCount;
+    }
+
+    /**
+     * @return number of buffers returned.
+     */
+    public long returnCount() {
+        return returnCount;
+    }
+
+    /**
+     * @return number of borrows served by idle buffers.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of borrows not served by idle buffers, which allocated a new buffer or failed.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return ratio of borrows served by idle buffers, or <code>NaN</code> if nothing borrowed.
+     */
+    public double hitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? Double.NaN : (double) hitCount / total;
+    }
+
+    /**
+     * @return number of idle buffers now.
+     */
+    public int idleSize() {
+        return idleSize;
+    }
+
+    /**
+     * @return highest number of idle buffers seen.
+     */
+    public int peakIdleSize() {
+        return peakIdleSize;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats [borrowCount=" + borrowCount + ", returnCount=" + returnCount
+                + ", hitCount=" + hitCount + ", missCount=" + missCount + ", idleSize=" + idleSize
+                + ", peakIdleSize=" + peakIdleSize + "]";
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * JMX view of {@link PoolStats}, registered by
+ * {@link BufferMetrics#registerMBean(String, HasPoolStats)}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface PoolStatsMXBean {
+    /**
+     * @return number of buffers borrowed.
+     */
+    long getBorrowCount();
+
+    /**
+     * @return number of buffers returned.
+     */
+    long getReturnCount();
+
+    /**
+     * @return number of borrows served by idle buffers.
+     */
+    long getHitCount();
+
+    /**
+     * @return number of borrows not served by idle buffers.
+     */
+    long getMissCount();
+
+    /**
+     * @return ratio of borrows served by idle buffers, or <code>NaN</code> if nothing borrowed.
+     */
+    double getHitRate();
+
+    /**
+     * @return number of idle buffers now.
+     */
+    int getIdleSize();
+
+    /**
+     * @return highest number of idle buffers seen.
+     */
+    int getPeakIdleSize();
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * An {@link AutoBuffer} recyclable by {@link ConcurrentAutoBufferPool}. It remembers the pool which
+ * made it and its byte order then, so the pool takes back only its own buffers, and resets each to
+ * its own order.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+interface PooledAutoBuffer extends AutoBuffer {
+    /**
+     * Marks this buffer as made for <code>pool</code>, remembering current byte order.
+     * 
+     * @param pool
+     *            pool which made this buffer.
+     */
+    void pooledBy(Object pool);
+
+    /**
+     * @param pool
+     *            pool to check.
+     * @return <code>true</code> if this buffer is made for <code>pool</code>.
+     */
+    boolean isPooledBy(Object pool);
+
+    /**
+     * Restores byte order remembered by {@link #pooledBy(Object)}.
+     */
+    void restorePooledOrder();
+}
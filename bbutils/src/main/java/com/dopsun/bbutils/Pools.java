@@ -17,6 +17,10 @@
 package com.dopsun.bbutils;
 
 import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Factory methods for {@link Pool}.
@@ -27,7 +31,9 @@ import java.util.Objects;
 public final class Pools {
     /**
      * Wraps an array of {@link FixedBuffer} as a pool. The maximum available items for the returned
-     * pool is the number of buffers input.
+     * pool is the number of buffers input. Borrowing from an empty pool throws
+     * {@link IllegalStateException}, and returning to a full pool throws
+     * {@link IllegalArgumentException}.
      * <p>
      * All input buffers should be in same size, and not <code>null</code>.
      * </p>
@@ -86,4 +92,379 @@ public final class Pools {
 
         return new AllocatorFixedBufferPool(allocator, bufferCapacity, initSize);
     }
+
+    /**
+     * Makes a pool from <code>allocator</code> with <code>bufferCapacity</code>, releasing idle
+     * buffers beyond recent usage to <code>allocator</code>. Peak number of borrowed buffers is
+     * tracked per <code>idleWindow</code>, and idle buffers are trimmed to serve the peak of last
+     * two windows, when returning buffers. Returned pool can be trimmed to release memory when not
+     * used.
+     * 
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param initSize
+     *            should be greater than or equal to zero.
+     * @param idleWindow
+     *            length of window tracking peak usage, should be greater than zero.
+     * @param unit
+     *            unit of <code>idleWindow</code>.
+     * 
+     * @return a trimmable {@link FixedBuffer} pool.
+     */
+    public static TrimmableFixedBufferPool fromAllocator(FixedBufferAllocator allocator,
+            int bufferCapacity, int initSize, long idleWindow, TimeUnit unit) {
+        Objects.requireNonNull(allocator);
+        Objects.requireNonNull(unit);
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity should be greater than zero.");
+        }
+        if (initSize < 0) {
+            throw new IllegalArgumentException("initSize invalid: " + initSize);
+        }
+
+        return new AllocatorFixedBufferPool(allocator, bufferCapacity, initSize,
+                new IdleEviction(idleWindow, unit));
+    }
+
+    /**
+     * Makes a thread-safe pool from <code>allocator</code> with <code>bufferCapacity</code>. Buffers
+     * can be borrowed and returned from any thread, without external locking. The
+     * <code>allocator</code> should be thread-safe too.
+     * 
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxIdleSize
+     *            maximum number of idle buffers kept in pool, rounded up to power of 2. Buffers
+     *            returned when pool is full are released to <code>allocator</code>.
+     * 
+     * @return a thread-safe {@link FixedBuffer} pool.
+     */
+    public static FixedBufferPool concurrent(FixedBufferAllocator allocator, int bufferCapacity,
+            int maxIdleSize) {
+        return concurrent(allocator, bufferCapacity, maxIdleSize, 0);
+    }
+
+    /**
+     * Makes a thread-safe pool from <code>allocator</code> with <code>bufferCapacity</code>. A
+     * number of buffer is created initially.
+     * 
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxIdleSize
+     *            maximum number of idle buffers kept in pool, rounded up to power of 2. Buffers
+     *            returned when pool is full are released to <code>allocator</code>.
+     * @param initSize
+     *            should be greater than or equal to zero, and not greater than
+     *            <code>maxIdleSize</code>.
+     * 
+     * @return a thread-safe {@link FixedBuffer} pool.
+     * 
+     * @see #concurrent(FixedBufferAllocator, int, int)
+     */
+    public static FixedBufferPool concurrent(FixedBufferAllocator allocator, int bufferCapacity,
+            int maxIdleSize, int initSize) {
+        Objects.requireNonNull(allocator);
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity should be greater than zero.");
+        }
+        if (maxIdleSize <= 0) {
+            throw new IllegalArgumentException("maxIdleSize should be greater than zero.");
+        }
+        if (initSize < 0 || initSize > maxIdleSize) {
+            throw new IllegalArgumentException("initSize invalid: " + initSize);
+        }
+
+        return new ConcurrentFixedBufferPool(allocator, bufferCapacity, maxIdleSize, initSize);
+    }
+
+    /**
+     * Makes a thread-safe pool holding at most <code>maxSize</code> buffers from
+     * <code>allocator</code>, borrowed or idle. Buffers are allocated when borrowed and no idle
+     * one, until <code>maxSize</code> reached; then borrowers wait for buffers returned, so
+     * producers slow down instead of allocating more memory. The <code>allocator</code> should be
+     * thread-safe too.
+     * 
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxSize
+     *            maximum number of buffers, should be greater than zero.
+     * 
+     * @return a thread-safe bounded {@link FixedBuffer} pool.
+     */
+    public static BoundedFixedBufferPool bounded(FixedBufferAllocator allocator,
+            int bufferCapacity, int maxSize) {
+        return bounded(allocator, bufferCapacity, maxSize, 0);
+    }
+
+    /**
+     * Makes a thread-safe pool holding at most <code>maxSize</code> buffers from
+     * <code>allocator</code>. A number of buffer is created initially.
+     * 
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxSize
+     *            maximum number of buffers, should be greater than zero.
+     * @param initSize
+     *            should be greater than or equal to zero, and not greater than
+     *            <code>maxSize</code>.
+     * 
+     * @return a thread-safe bounded {@link FixedBuffer} pool.
+     * 
+     * @see #bounded(FixedBufferAllocator, int, int)
+     */
+    public static BoundedFixedBufferPool bounded(FixedBufferAllocator allocator,
+            int bufferCapacity, int maxSize, int initSize) {
+        Objects.requireNonNull(allocator);
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity should be greater than zero.");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize should be greater than zero.");
+        }
+        if (initSize < 0 || initSize > maxSize) {
+            throw new IllegalArgumentException("initSize invalid: " + initSize);
+        }
+
+        return new BlockingFixedBufferPool(allocator, bufferCapacity, maxSize, initSize);
+    }
+
+    /**
+     * Makes a thread-safe pool holding at most <code>maxSize</code> buffers from
+     * <code>allocator</code>, releasing idle buffers beyond recent usage to <code>allocator</code>.
+     * 
+     * @param allocator
+     *            allocator to allocate the buffer.
+     * @param bufferCapacity
+     *            capacity of buffer for this pool.
+     * @param maxSize
+     *            maximum number of buffers, should be greater than zero.
+     * @param initSize
+     *            should be greater than or equal to zero, and not greater than
+     *            <code>maxSize</code>.
+     * @param idleWindow
+     *            length of window tracking peak usage, should be greater than zero.
+     * @param unit
+     *            unit of <code>idleWindow</code>.
+     * 
+     * @return a thread-safe bounded {@link FixedBuffer} pool.
+     * 
+     * @see #bounded(FixedBufferAllocator, int, int, int)
+     * @see #fromAllocator(FixedBufferAllocator, int, int, long, TimeUnit)
+     */
+    public static BoundedFixedBufferPool bounded(FixedBufferAllocator allocator,
+            int bufferCapacity, int maxSize, int initSize, long idleWindow, TimeUnit unit) {
+        Objects.requireNonNull(allocator);
+        Objects.requireNonNull(unit);
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity should be greater than zero.");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize should be greater than zero.");
+        }
+        if (initSize < 0 || initSize > maxSize) {
+            throw new IllegalArgumentException("initSize invalid: " + initSize);
+        }
+
+        return new BlockingFixedBufferPool(allocator, bufferCapacity, maxSize, initSize,
+                new IdleEviction(idleWindow, unit));
+    }
+
+    /**
+     * Trims <code>pool</code> periodically on <code>scheduler</code>, so idle buffers are released
+     * even when <code>pool</code> is not used. <code>pool</code> should be thread-safe. A failed
+     * trimming is passed to {@link Thread.UncaughtExceptionHandler} of the scheduler thread, and
+     * does not stop next ones.
+     * 
+     * @param pool
+     *            pool to trim.
+     * @param scheduler
+     *            scheduler to run trimming.
+     * @param period
+     *            delay between trimming, normally same as idle window of <code>pool</code>.
+     * @param unit
+     *            unit of <code>period</code>.
+     * 
+     * @return future to cancel trimming.
+     */
+    public static ScheduledFuture<?> scheduleTrim(Trimmable pool,
+            ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        return scheduleTrim(pool, scheduler, period, unit, e -> {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        });
+    }
+
+    /**
+     * Trims <code>pool</code> periodically on <code>scheduler</code>, so idle buffers are released
+     * even when <code>pool</code> is not used. <code>pool</code> should be thread-safe. A failed
+     * trimming is passed to <code>errorHandler</code>, and does not stop next ones.
+     * 
+     * @param pool
+     *            pool to trim.
+     * @param scheduler
+     *            scheduler to run trimming.
+     * @param period
+     *            delay between trimming, normally same as idle window of <code>pool</code>.
+     * @param unit
+     *            unit of <code>period</code>.
+     * @param errorHandler
+     *            handler of failed trimming, called on scheduler thread.
+     * 
+     * @return future to cancel trimming.
+     */
+    public static ScheduledFuture<?> scheduleTrim(Trimmable pool,
+            ScheduledExecutorService scheduler, long period, TimeUnit unit,
+            Consumer<? super RuntimeException> errorHandler) {
+        Objects.requireNonNull(pool);
+        Objects.requireNonNull(scheduler);
+        Objects.requireNonNull(unit);
+        Objects.requireNonNull(errorHandler);
+        if (period <= 0) {
+            throw new IllegalArgumentException("period should be greater than zero.");
+        }
+
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                pool.trim();
+            } catch (RuntimeException e) {
+                // An exception thrown cancels all subsequent runs.
+                errorHandler.accept(e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Makes a thread-safe pool of {@link AutoBuffer}s. Buffers returned are cleared and keep memory
+     * they have grown to, so borrowers writing similar messages do not allocate or grow again.
+     * Buffers are made by <code>factory</code>, e.g.
+     * <code>() -&gt; Buffers.pow2AutoBuffer(allocator, 256)</code>, when no idle one.
+     * 
+     * @param factory
+     *            factory to make buffers.
+     * @param maxIdleSize
+     *            maximum number of idle buffers kept in pool, rounded up to power of 2. Buffers
+     *            returned when pool is full are closed.
+     * 
+     * @return a thread-safe {@link AutoBuffer} pool.
+     */
+    public static AutoBufferPool autoBuffers(AutoBufferFactory factory, int maxIdleSize) {
+        return autoBuffers(factory, maxIdleSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #autoBuffers(AutoBufferFactory, int)}, trimming buffers returned with capacity
+     * larger than <code>maxCapacity</code>, so one huge message does not pin its memory in pool.
+     * 
+     * @param factory
+     *            factory to make buffers.
+     * @param maxIdleSize
+     *            maximum number of idle buffers kept in pool, rounded up to power of 2.
+     * @param maxCapacity
+     *            maximum capacity kept by idle buffers, should be greater than zero.
+     * 
+     * @return a thread-safe {@link AutoBuffer} pool.
+     */
+    public static AutoBufferPool autoBuffers(AutoBufferFactory factory, int maxIdleSize,
+            int maxCapacity) {
+        Objects.requireNonNull(factory);
+        if (maxIdleSize <= 0) {
+            throw new IllegalArgumentException("maxIdleSize should be greater than zero.");
+        }
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("maxCapacity should be greater than zero.");
+        }
+
+        return new ConcurrentAutoBufferPool(factory, maxIdleSize, maxCapacity);
+    }
+
+    /**
+     * Makes a pool which caches up to <code>magazineSize</code> buffers per thread, in front of
+     * <code>sharedPool</code>. Borrow and return normally hit thread local cache only, and buffers
+     * move to and from <code>sharedPool</code> in batches.
+     * 
+     * <p>
+     * <code>sharedPool</code> does not need to be thread-safe, as returned pool synchronizes on it
+     * when moving buffers. Closing returned pool returns all cached buffers to
+     * <code>sharedPool</code>, and closes it.
+     * </p>
+     * 
+     * <p>
+     * Buffers cached by idle threads are not available to other threads, and those of terminated
+     * threads are returned to <code>sharedPool</code> only when a thread misses its cache. If
+     * <code>sharedPool</code> is bounded, e.g. {@link #bounded(FixedBufferAllocator, int, int)},
+     * its maximum size should allow <code>magazineSize</code> idle buffers per thread, or borrowers
+     * may see it exhausted.
+     * </p>
+     * 
+     * @param sharedPool
+     *            pool shared by all threads.
+     * @param magazineSize
+     *            maximum number of buffers cached per thread, should be greater than one.
+     * 
+     * @return a thread-safe {@link FixedBuffer} pool.
+     */
+    public static FixedBufferPool threadLocal(FixedBufferPool sharedPool, int magazineSize) {
+        Objects.requireNonNull(sharedPool);
+        if (magazineSize <= 1) {
+            throw new IllegalArgumentException("magazineSize should be greater than one.");
+        }
+
+        return new MagazineFixedBufferPool(sharedPool, magazineSize);
+    }
+
+    /**
+     * Makes a pool reporting buffers borrowed from <code>pool</code> but never returned. One of
+     * every <code>samplingInterval</code> borrowed buffers is tracked on average: its borrow stack
+     * trace is recorded, and it is reported to <code>listener</code> if garbage collected before
+     * returned. Leaks are checked when buffers are borrowed or returned.
+     * 
+     * @param pool
+     *            pool to track.
+     * @param samplingInterval
+     *            <code>1</code> to track all buffers, or <code>0</code> to disable tracking and
+     *            return <code>pool</code> itself.
+     * @param listener
+     *            receives leaks, with stack trace of where leaked buffers were borrowed.
+     * 
+     * @return a pool tracking leaks.
+     */
+    public static FixedBufferPool leakTracking(FixedBufferPool pool, int samplingInterval,
+            Consumer<? super BufferLeakException> listener) {
+        Objects.requireNonNull(pool);
+        Objects.requireNonNull(listener);
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException("samplingInterval invalid: " + samplingInterval);
+        }
+
+        if (samplingInterval == 0) {
+            return pool;
+        }
+        return new LeakTrackingFixedBufferPool(pool,
+                new LeakDetector(samplingInterval, listener));
+    }
+
+    /**
+     * Same as {@link #leakTracking(FixedBufferPool, int, Consumer)}, printing leaks to standard
+     * error.
+     * 
+     * @param pool
+     *            pool to track.
+     * @param samplingInterval
+     *            <code>1</code> to track all buffers, or <code>0</code> to disable tracking.
+     * 
+     * @return a pool tracking leaks.
+     */
+    public static FixedBufferPool leakTracking(FixedBufferPool pool, int samplingInterval) {
+        return leakTracking(pool, samplingInterval, Throwable::printStackTrace);
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * A {@link FixedBuffer} with reference counting, so it can be shared without copying. The buffer
+ * starts with one reference, and goes back to its pool or allocator when the last reference is
+ * released. It should not be used after that.
+ * 
+ * <p>
+ * {@link #slice(int, int)} and {@link #duplicate()} make views sharing memory and reference count
+ * with this buffer. Each view holds one more reference, so memory is kept alive until all views
+ * are released too. Position, limit and mark of views are independent.
+ * </p>
+ * 
+ * <p>
+ * Reference counting is thread-safe, so views can be handed to other threads. Reading and
+ * writing a view is not.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface RefCountedFixedBuffer extends FixedBuffer {
+    /**
+     * @return current reference count, shared by this buffer and all its views.
+     */
+    int refCount();
+
+    /**
+     * Adds one reference.
+     * 
+     * @return this buffer.
+     * 
+     * @throws IllegalStateException
+     *             if the buffer is already released.
+     */
+    RefCountedFixedBuffer retain();
+
+    /**
+     * Releases one reference. Memory is returned to its pool or allocator if this is the last one.
+     * 
+     * @return <code>true</code> if this was the last reference.
+     * 
+     * @throws IllegalStateException
+     *             if the buffer is already released.
+     */
+    boolean release();
+
+    /**
+     * Makes a view of <code>length</code> bytes from <code>index</code>, holding one more
+     * reference. Position of the view is zero, and its limit and capacity are
+     * <code>length</code>.
+     * 
+     * @param index
+     *            start of the view in this buffer.
+     * @param length
+     *            number of bytes of the view.
+     * @return a view sharing memory with this buffer, in same byte order.
+     * 
+     * @see java.nio.ByteBuffer#slice()
+     */
+    RefCountedFixedBuffer slice(int index, int length);
+
+    /**
+     * Makes a view of whole memory of this buffer, holding one more reference. Position and limit
+     * of the view start from this buffer.
+     * 
+     * @return a view sharing memory with this buffer, in same byte order.
+     * 
+     * @see java.nio.ByteBuffer#duplicate()
+     */
+    RefCountedFixedBuffer duplicate();
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A {@link RefCountedFixedBuffer} on a buffer from pool or allocator. Views are made on the
+ * {@link ByteBuffer} of the buffer, so the buffer should be a {@link HasByteBuffer} or an
+ * {@link UnsafeFixedBuffer}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@NotThreadSafe
+final class RefCountedFixedBufferImpl extends DelegatingFixedBuffer
+        implements RefCountedFixedBuffer {
+    private final Memory memory;
+
+    /**
+     * @param buffer
+     *            buffer owned by the returned buffer.
+     * @param recycler
+     *            returns <code>buffer</code> to its pool or allocator, when last reference
+     *            released.
+     */
+    RefCountedFixedBufferImpl(FixedBuffer buffer, Consumer<FixedBuffer> recycler) {
+        this(buffer, new Memory(buffer, recycler));
+    }
+
+    private RefCountedFixedBufferImpl(FixedBuffer view, Memory memory) {
+        super(view);
+
+        this.memory = memory;
+    }
+
+    @Override
+    public int refCount() {
+        return memory.refCount.get();
+    }
+
+    @Override
+    public RefCountedFixedBuffer retain() {
+        memory.retain();
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return memory.release();
+    }
+
+    @Override
+    public RefCountedFixedBuffer slice(int index, int length) {
+        if (index < 0 || length < 0 || index > capacity() - length) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        ByteBuffer byteBuffer = byteBufferOf(delegate).duplicate();
+        byteBuffer.limit(index + length);
+        byteBuffer.position(index);
+
+        FixedBuffer view = wrapLike(delegate, byteBuffer.slice());
+        memory.retain();
+        return new RefCountedFixedBufferImpl(view, memory);
+    }
+
+    @Override
+    public RefCountedFixedBuffer duplicate() {
+        ByteBuffer byteBuffer = byteBufferOf(delegate).duplicate();
+        byteBuffer.limit(delegate.limit());
+        byteBuffer.position(delegate.position());
+
+        FixedBuffer view = wrapLike(delegate, byteBuffer);
+        memory.retain();
+        return new RefCountedFixedBufferImpl(view, memory);
+    }
+
+    /**
+     * @return byte buffer of whole memory of <code>buffer</code>, whose position and limit may not
+     *         be maintained.
+     */
+    private static ByteBuffer byteBufferOf(FixedBuffer buffer) {
+        if (buffer instanceof DelegatingFixedBuffer) {
+            return byteBufferOf(((DelegatingFixedBuffer) buffer).delegate());
+        }
+        if (buffer instanceof HasByteBuffer) {
+            return ((HasByteBuffer) buffer).getByteBuffer();
+        }
+        if (buffer instanceof UnsafeFixedBuffer) {
+            return ((UnsafeFixedBuffer) buffer).byteBuffer();
+        }
+
+        throw new UnsupportedOperationException("Unsupported buffer: " + buffer);
+    }
+
+    /**
+     * Wraps <code>byteBuffer</code> as same kind of buffer as <code>buffer</code>, in same byte
+     * order.
+     */
+    private static FixedBuffer wrapLike(FixedBuffer buffer, ByteBuffer byteBuffer) {
+        byteBuffer.order(buffer.order());
+
+        FixedBuffer root = buffer;
+        while (root instanceof DelegatingFixedBuffer) {
+            root = ((DelegatingFixedBuffer) root).delegate();
+        }
+
+        if (root instanceof UnsafeFixedBuffer) {
+            return new UnsafeFixedBuffer(byteBuffer);
+        }
+        return new ByteBufferFixedBuffer(byteBuffer);
+    }
+
+    /**
+     * Memory and reference count shared by a buffer and all its views.
+     */
+    private static final class Memory {
+        private final FixedBuffer buffer;
+        private final Consumer<FixedBuffer> recycler;
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        Memory(FixedBuffer buffer, Consumer<FixedBuffer> recycler) {
+            Objects.requireNonNull(buffer);
+            Objects.requireNonNull(recycler);
+
+            this.buffer = buffer;
+            this.recycler = recycler;
+        }
+
+        void retain() {
+            for (;;) {
+                int count = refCount.get();
+                if (count <= 0) {
+                    throw new IllegalStateException("Buffer already released.");
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return;
+                }
+            }
+        }
+
+        boolean release() {
+            for (;;) {
+                int count = refCount.get();
+                if (count <= 0) {
+                    throw new IllegalStateException("Buffer already released.");
+                }
+                if (refCount.compareAndSet(count, count - 1)) {
+                    if (count > 1) {
+                        return false;
+                    }
+
+                    recycler.accept(buffer);
+                    return true;
+                }
+            }
+        }
+    }
+}
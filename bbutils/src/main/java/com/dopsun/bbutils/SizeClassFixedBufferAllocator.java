@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * An allocator rounds requested capacity up to {@link SizeClasses}, and allocates from one pool per
+ * class. Pool of a class is found by array index, so no boxing or hashing on
+ * {@link #alloc(int)} and {@link #release(FixedBuffer)}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class SizeClassFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
+    private final IntFunction<FixedBufferPool> poolFactory;
+    private final SizeClasses sizeClasses;
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(false);
+
+    /** Pools by index of class, created when first used. */
+    private final AtomicReferenceArray<FixedBufferPool> pools;
+
+    /**
+     * @param poolFactory
+     *            factory to create pool for capacity of a class.
+     * @param sizeClasses
+     *            size classes.
+     */
+    public SizeClassFixedBufferAllocator(IntFunction<FixedBufferPool> poolFactory,
+            SizeClasses sizeClasses) {
+        Objects.requireNonNull(poolFactory);
+        Objects.requireNonNull(sizeClasses);
+
+        this.poolFactory = poolFactory;
+        this.sizeClasses = sizeClasses;
+        this.pools = new AtomicReferenceArray<>(sizeClasses.size());
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int index = sizeClasses.indexOf(capacity);
+        if (index < 0) {
+            throw new IllegalStateException("capacity not supported: " + capacity);
+        }
+
+        FixedBufferPool pool = pools.get(index);
+        if (pool == null) {
+            pool = createPool(index);
+        }
+
+        FixedBuffer buffer = pool.borrowBuffer();
+        metrics.recordAlloc(buffer.capacity());
+        return buffer;
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        int capacity = buffer.capacity();
+        int index = sizeClasses.indexOf(capacity);
+        FixedBufferPool pool = index < 0 ? null : pools.get(index);
+        if (pool == null || sizeClasses.capacityAt(index) != capacity) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+
+        pool.returnBuffer(buffer);
+        metrics.recordRelease(capacity);
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
+    }
+
+    private synchronized FixedBufferPool createPool(int index) {
+        FixedBufferPool pool = pools.get(index);
+        if (pool == null) {
+            pool = poolFactory.apply(sizeClasses.capacityAt(index));
+            pools.set(index, pool);
+        }
+
+        return pool;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * Rounds capacities up to a bounded set of size classes, and maps a capacity to its class index
+ * with a few bit operations.
+ * 
+ * <p>
+ * Classes start from <code>minCapacity</code>. Every doubling range <code>(2^k, 2^(k+1)]</code>
+ * above it is split into <code>classesPerDoubling</code> equally spaced classes. With one class
+ * per doubling, classes are powers of 2; with four, the spacing is same as jemalloc, e.g.
+ * <code>..., 64, 80, 96, 112, 128, 160, ...</code>, which wastes at most 20% per allocation.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class SizeClasses {
+    private final int minShift;
+    private final int log2ClassesPerDoubling;
+    private final int maxCapacity;
+    private final int[] capacities;
+
+    /**
+     * @param minCapacity
+     *            capacity of smallest class, should be power of 2 and not less than
+     *            <code>classesPerDoubling</code>.
+     * @param maxCapacity
+     *            capacity of largest class, should be power of 2 and not less than
+     *            <code>minCapacity</code>.
+     * @param classesPerDoubling
+     *            number of classes per doubling, should be power of 2.
+     * 
+     * @throws IllegalArgumentException
+     *             if any argument is invalid.
+     */
+    SizeClasses(int minCapacity, int maxCapacity, int classesPerDoubling) {
+        if (!isPow2(classesPerDoubling)) {
+            throw new IllegalArgumentException(
+                    "classesPerDoubling is not power of 2: " + classesPerDoubling);
+        }
+        if (!isPow2(minCapacity) || minCapacity < classesPerDoubling) {
+            throw new IllegalArgumentException("minCapacity invalid: " + minCapacity);
+        }
+        if (!isPow2(maxCapacity) || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException("maxCapacity invalid: " + maxCapacity);
+        }
+
+        this.minShift = Integer.numberOfTrailingZeros(minCapacity);
+        this.log2ClassesPerDoubling = Integer.numberOfTrailingZeros(classesPerDoubling);
+        this.maxCapacity = maxCapacity;
+
+        int doublings = Integer.numberOfTrailingZeros(maxCapacity) - minShift;
+        this.capacities = new int[1 + doublings * classesPerDoubling];
+
+        capacities[0] = minCapacity;
+        int index = 1;
+        for (int base = minCapacity; base < maxCapacity; base <<= 1) {
+            int step = base >> log2ClassesPerDoubling;
+            for (int i = 1; i <= classesPerDoubling; i++) {
+                capacities[index++] = base + step * i;
+            }
+        }
+    }
+
+    /**
+     * @return number of classes.
+     */
+    int size() {
+        return capacities.length;
+    }
+
+    /**
+     * @return capacity of largest class.
+     */
+    int maxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * @param index
+     *            index of class.
+     * @return capacity of class at <code>index</code>.
+     */
+    int capacityAt(int index) {
+        return capacities[index];
+    }
+
+    /**
+     * @param capacity
+     *            capacity requested, should be greater than zero.
+     * @return index of smallest class can hold <code>capacity</code>, or -1 if
+     *         <code>capacity</code> is greater than {@link #maxCapacity()}.
+     */
+    int indexOf(int capacity) {
+        if (capacity > maxCapacity) {
+            return -1;
+        }
+
+        // log2 of the power of 2 below capacity, as capacity in (2^shift, 2^(shift+1)].
+        int shift = 31 - Integer.numberOfLeadingZeros(capacity - 1);
+        if (shift < minShift) {
+            return 0;
+        }
+
+        int stepShift = shift - log2ClassesPerDoubling;
+        int offset = (capacity - (1 << shift) - 1) >> stepShift;
+        return 1 + ((shift - minShift) << log2ClassesPerDoubling) + offset;
+    }
+
+    /**
+     * From Guava IntMath.
+     */
+    private static boolean isPow2(int x) {
+        return x > 0 & (x & (x - 1)) == 0;
+    }
+}
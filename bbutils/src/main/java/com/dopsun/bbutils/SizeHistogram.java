@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A decaying histogram of sizes, in power of 2 buckets, predicting capacities for new buffers.
+ * 
+ * <p>
+ * Every size recorded adds a fixed weight to its bucket, and all buckets are halved every
+ * {@link #DECAY_INTERVAL} records, so recent sizes weigh more and old ones fade out. Predictions
+ * are read without locking.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class SizeHistogram {
+    /** Number of records between halving all buckets. */
+    static final int DECAY_INTERVAL = 64;
+
+    /** Percentile of sizes fitting in initial capacity. */
+    private static final double INIT_PERCENTILE = 0.5;
+
+    /** Percentile of sizes fitting in capacity grown to on first overflow. */
+    private static final double GROW_PERCENTILE = 0.9;
+
+    private static final long WEIGHT = 1 << 10;
+
+    /** Largest power of 2 capacity, so doubling does not overflow. */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int minShift;
+    private final int maxShift;
+
+    /* Following fields are guarded by this. */
+    private final long[] buckets;
+    private int records;
+
+    private volatile int initCapacity;
+    private volatile int growCapacity;
+
+    /**
+     * @param minCapacity
+     *            smallest capacity predicted, power of 2.
+     * @param maxCapacity
+     *            largest capacity predicted, power of 2 and not less than <code>minCapacity</code>.
+     */
+    SizeHistogram(int minCapacity, int maxCapacity) {
+        this.minShift = Integer.numberOfTrailingZeros(minCapacity);
+        this.maxShift = Integer.numberOfTrailingZeros(maxCapacity);
+        this.buckets = new long[maxShift - minShift + 1];
+
+        this.initCapacity = minCapacity;
+        this.growCapacity = doubled(minCapacity);
+    }
+
+    /**
+     * @return predicted initial capacity.
+     */
+    int initCapacity() {
+        return initCapacity;
+    }
+
+    /**
+     * @return predicted capacity to grow to on first overflow.
+     */
+    int growCapacity() {
+        return growCapacity;
+    }
+
+    /**
+     * @param size
+     *            bytes written to a buffer before cleared or closed.
+     */
+    synchronized void record(int size) {
+        buckets[bucketOf(size)] += WEIGHT;
+
+        if (++records == DECAY_INTERVAL) {
+            records = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] >>>= 1;
+            }
+        }
+
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+
+        int init = percentile(total, INIT_PERCENTILE);
+        int grow = percentile(total, GROW_PERCENTILE);
+        initCapacity = init;
+        growCapacity = Math.max(grow, doubled(init));
+    }
+
+    /**
+     * @return <code>capacity</code> doubled, but not greater than {@link #MAX_CAPACITY}.
+     */
+    static int doubled(int capacity) {
+        return (int) Math.min(capacity * 2L, MAX_CAPACITY);
+    }
+
+    private int bucketOf(int size) {
+        int shift = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.min(Math.max(shift, minShift), maxShift) - minShift;
+    }
+
+    private int percentile(long total, double percentile) {
+        long threshold = (long) Math.ceil(total * percentile);
+        long sum = 0;
+        for (int i = 0; i < buckets.length - 1; i++) {
+            sum += buckets[i];
+            if (sum >= threshold) {
+                return 1 << (minShift + i);
+            }
+        }
+        return 1 << maxShift;
+    }
+}
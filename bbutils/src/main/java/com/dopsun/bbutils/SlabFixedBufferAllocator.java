@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Allocates small heap buffers by slicing slabs owned by the allocating thread.
+ * 
+ * <p>
+ * Requested capacity is rounded up to power of 2, not less than <code>minCapacity</code>. Each
+ * thread keeps its own slabs and a free list per size class, so allocating and releasing on same
+ * thread needs no synchronization, and released buffers are reused as is. Buffers released by other
+ * threads are queued to their owner thread, and reused when it allocates next time.
+ * </p>
+ * 
+ * <p>
+ * Each thread creates at most <code>maxSlabs</code> slabs. When they are used up and no free buffer
+ * of the class, {@link #alloc(int)} throws {@link IllegalStateException}, so this allocator is
+ * usually the first tier of a {@link TieredFixedBufferAllocator}. Slabs are garbage collected with
+ * their thread.
+ * </p>
+ * 
+ * <p>
+ * Releasing a buffer twice throws {@link IllegalStateException}, so it is not allocated to two
+ * callers.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class SlabFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
+    private final int slabCapacity;
+    private final int minShift;
+    private final int maxCapacity;
+    private final int maxSlabs;
+
+    private final ThreadLocal<Slabs> slabs = ThreadLocal.withInitial(Slabs::new);
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(false);
+
+    /**
+     * @param slabCapacity
+     *            capacity of each slab, should be power of 2.
+     * @param minCapacity
+     *            capacity of smallest buffer, should be power of 2.
+     * @param maxCapacity
+     *            capacity of largest buffer, should be power of 2, not less than
+     *            <code>minCapacity</code> and not greater than <code>slabCapacity</code>.
+     * @param maxSlabs
+     *            maximum number of slabs per thread.
+     */
+    public SlabFixedBufferAllocator(int slabCapacity, int minCapacity, int maxCapacity,
+            int maxSlabs) {
+        if (!isPow2(slabCapacity)) {
+            throw new IllegalArgumentException("slabCapacity invalid: " + slabCapacity);
+        }
+        if (!isPow2(minCapacity) || minCapacity > slabCapacity) {
+            throw new IllegalArgumentException("minCapacity invalid: " + minCapacity);
+        }
+        if (!isPow2(maxCapacity) || maxCapacity < minCapacity || maxCapacity > slabCapacity) {
+            throw new IllegalArgumentException("maxCapacity invalid: " + maxCapacity);
+        }
+        if (maxSlabs <= 0) {
+            throw new IllegalArgumentException("maxSlabs invalid: " + maxSlabs);
+        }
+
+        this.slabCapacity = slabCapacity;
+        this.minShift = log2(minCapacity);
+        this.maxCapacity = maxCapacity;
+        this.maxSlabs = maxSlabs;
+    }
+
+    /**
+     * @return capacity of largest buffer.
+     */
+    int maxCapacity() {
+        return maxCapacity;
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (capacity > maxCapacity) {
+            throw new IllegalStateException("capacity not supported: " + capacity);
+        }
+
+        int shift = Math.max(minShift, log2(roundUpPow2(capacity)));
+        FixedBuffer buffer = slabs.get().alloc(shift - minShift, 1 << shift);
+        metrics.recordAlloc(buffer.capacity());
+        return buffer;
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (!(buffer instanceof SlicedFixedBuffer)) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+
+        SlicedFixedBuffer slicedBuffer = (SlicedFixedBuffer) buffer;
+        Object owner = slicedBuffer.owner();
+        if (!(owner instanceof Slabs) || ((Slabs) owner).allocator() != this) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+        if (!slicedBuffer.markReleased()) {
+            throw new IllegalStateException("buffer released already.");
+        }
+
+        buffer.clear();
+        Buffers.restoreOrder(buffer);
+        metrics.recordRelease(buffer.capacity());
+        ((Slabs) owner).free(slicedBuffer);
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
+    }
+
+    private static int log2(int pow2) {
+        return Integer.numberOfTrailingZeros(pow2);
+    }
+
+    private static int roundUpPow2(int value) {
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * From Guava IntMath.
+     */
+    private static boolean isPow2(int x) {
+        return x > 0 & (x & (x - 1)) == 0;
+    }
+
+    /**
+     * Slabs and free lists of one thread. Only {@link #remoteFrees} is accessed by other threads.
+     */
+    private final class Slabs {
+        private final Thread thread = Thread.currentThread();
+        private final ArrayDeque<SlicedFixedBuffer>[] frees;
+        private final Queue<SlicedFixedBuffer> remoteFrees = new ConcurrentLinkedQueue<>();
+
+        private ByteBuffer slab;
+        private int slabCount;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Slabs() {
+            frees = new ArrayDeque[log2(maxCapacity) - minShift + 1];
+            for (int i = 0; i < frees.length; i++) {
+                frees[i] = new ArrayDeque<>();
+            }
+        }
+
+        SlabFixedBufferAllocator allocator() {
+            return SlabFixedBufferAllocator.this;
+        }
+
+        FixedBuffer alloc(int index, int capacity) {
+            if (!remoteFrees.isEmpty()) {
+                SlicedFixedBuffer buffer;
+                while ((buffer = remoteFrees.poll()) != null) {
+                    frees[buffer.handle()].addLast(buffer);
+                }
+            }
+
+            SlicedFixedBuffer buffer = frees[index].pollLast();
+            if (buffer != null) {
+                buffer.markAllocated();
+                return buffer;
+            }
+
+            if (slab == null || slab.remaining() < capacity) {
+                if (slabCount == maxSlabs) {
+                    throw new IllegalStateException("Slabs exhausted.");
+                }
+
+                // Tail of previous slab is abandoned.
+                slab = ByteBuffer.allocate(slabCapacity);
+                slabCount++;
+            }
+
+            int offset = slab.position();
+            ByteBuffer byteBuffer = slab.duplicate();
+            byteBuffer.limit(offset + capacity);
+            slab.position(offset + capacity);
+
+            return new SlicedFixedBuffer(byteBuffer.slice(), this, index);
+        }
+
+        void free(SlicedFixedBuffer buffer) {
+            if (Thread.currentThread() == thread) {
+                frees[buffer.handle()].addLast(buffer);
+            } else {
+                remoteFrees.offer(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link ByteBufferFixedBuffer} sliced from a larger memory region. It remembers its owner and a
+ * handle given by owner, so the region can be given back when released. It also tracks whether it
+ * is released, so owner can reject releasing it twice.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class SlicedFixedBuffer extends ByteBufferFixedBuffer {
+    private final Object owner;
+    private final int handle;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * @param byteBuffer
+     *            slice of the memory region.
+     * @param owner
+     *            owner of the memory region.
+     * @param handle
+     *            handle given by <code>owner</code> for this slice.
+     */
+    SlicedFixedBuffer(ByteBuffer byteBuffer, Object owner, int handle) {
+        super(byteBuffer);
+        Objects.requireNonNull(owner);
+
+        this.owner = owner;
+        this.handle = handle;
+    }
+
+    /**
+     * @return owner of the memory region.
+     */
+    Object owner() {
+        return owner;
+    }
+
+    /**
+     * @return handle given by owner.
+     */
+    int handle() {
+        return handle;
+    }
+
+    /**
+     * @return <code>true</code> if marked as released, or <code>false</code> if released already.
+     */
+    boolean markReleased() {
+        return released.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks as allocated again, when owner reuses this buffer.
+     */
+    void markAllocated() {
+        released.set(false);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Helpers for encoding and decoding strings as UTF-8, ASCII and Latin-1, without intermediate
+ * arrays or {@link java.nio.charset.CharsetEncoder}. Characters cannot be encoded are written as
+ * <code>'?'</code>, same as {@link String#getBytes(java.nio.charset.Charset)}; bytes cannot be
+ * decoded are read as <code>U+FFFD</code>.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class StringCodecs {
+    static final byte UNMAPPABLE = '?';
+    static final char REPLACEMENT = '\uFFFD';
+
+    /**
+     * @return number of bytes to encode <code>value</code> as UTF-8.
+     */
+    static int utf8Length(CharSequence value) {
+        int length = value.length();
+        int utf8Length = length;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                utf8Length += 1;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // Two chars, four bytes.
+                utf8Length += 2;
+                i++;
+            }
+        }
+
+        return utf8Length;
+    }
+
+    /**
+     * Writes <code>value</code> as UTF-8 from <code>index</code>, which should have
+     * {@link #utf8Length(CharSequence)} bytes available.
+     */
+    static void putUtf8(Buffer buffer, int index, CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.putByte(index++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.putByte(index++, (byte) (0xC0 | (c >> 6)));
+                buffer.putByte(index++, (byte) (0x80 | (c & 0x3F)));
+            } else if (!Character.isSurrogate(c)) {
+                buffer.putByte(index++, (byte) (0xE0 | (c >> 12)));
+                buffer.putByte(index++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.putByte(index++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.putByte(index++, (byte) (0xF0 | (codePoint >> 18)));
+                buffer.putByte(index++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.putByte(index++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.putByte(index++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.putByte(index++, UNMAPPABLE);
+            }
+        }
+    }
+
+    /**
+     * Relative put of <code>value</code> as UTF-8, whose length <code>utf8Length</code> computed by
+     * caller, so <code>value</code> is not scanned again. Buffers backed by array or accessed with
+     * <code>sun.misc.Unsafe</code> are written directly, others one byte a time.
+     * 
+     * @return <code>utf8Length</code>.
+     * 
+     * @throws BufferOverflowException
+     *             if not enough remaining, and nothing written.
+     */
+    static int putUtf8(Buffer buffer, CharSequence value, int utf8Length) {
+        if (buffer instanceof ByteBufferFixedBuffer) {
+            return ((ByteBufferFixedBuffer) buffer).putUtf8(value, utf8Length);
+        }
+        if (buffer instanceof UnsafeFixedBuffer) {
+            return ((UnsafeFixedBuffer) buffer).putUtf8(value, utf8Length);
+        }
+
+        if (utf8Length > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+
+        int index = buffer.position();
+        putUtf8(buffer, index, value);
+        buffer.position(index + utf8Length);
+        return utf8Length;
+    }
+
+    /**
+     * Same as {@link #putUtf8(Buffer, int, CharSequence)}, writing to <code>dst</code> from
+     * <code>offset</code>.
+     */
+    static void putUtf8(byte[] dst, int offset, CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                dst[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[offset++] = (byte) (0xC0 | (c >> 6));
+                dst[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                dst[offset++] = (byte) (0xE0 | (c >> 12));
+                dst[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                dst[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                dst[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                dst[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                dst[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                dst[offset++] = UNMAPPABLE;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #putUtf8(Buffer, int, CharSequence)}, writing with
+     * <code>sun.misc.Unsafe</code> to <code>base</code> from <code>address</code>.
+     */
+    @SuppressWarnings("restriction")
+    static void putUtf8(@Nullable Object base, long address, CharSequence value) {
+        sun.misc.Unsafe unsafe = UnsafeAccess.UNSAFE;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                unsafe.putByte(base, address++, (byte) c);
+            } else if (c < 0x800) {
+                unsafe.putByte(base, address++, (byte) (0xC0 | (c >> 6)));
+                unsafe.putByte(base, address++, (byte) (0x80 | (c & 0x3F)));
+            } else if (!Character.isSurrogate(c)) {
+                unsafe.putByte(base, address++, (byte) (0xE0 | (c >> 12)));
+                unsafe.putByte(base, address++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                unsafe.putByte(base, address++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                unsafe.putByte(base, address++, (byte) (0xF0 | (codePoint >> 18)));
+                unsafe.putByte(base, address++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                unsafe.putByte(base, address++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                unsafe.putByte(base, address++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                unsafe.putByte(base, address++, UNMAPPABLE);
+            }
+        }
+    }
+
+    /**
+     * Writes <code>value</code> as one byte per char from <code>index</code>, which should have
+     * <code>value.length()</code> bytes available. Chars greater than <code>maxChar</code> are
+     * written as <code>'?'</code>.
+     */
+    static void putSingleByte(Buffer buffer, int index, CharSequence value, char maxChar) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            buffer.putByte(index + i, c <= maxChar ? (byte) c : UNMAPPABLE);
+        }
+    }
+
+    /**
+     * Reads a code point encoded as UTF-8, not reading beyond <code>end</code>. A malformed
+     * sequence is read as {@link #REPLACEMENT}, and the first byte not part of it is not consumed.
+     */
+    static int getUtf8CodePoint(Buffer buffer, int end) {
+        int b = buffer.getByte();
+        if (b >= 0) {
+            return b;
+        }
+
+        int count;
+        int codePoint;
+        int minCodePoint;
+        if ((b & 0xE0) == 0xC0) {
+            count = 1;
+            codePoint = b & 0x1F;
+            minCodePoint = 0x80;
+        } else if ((b & 0xF0) == 0xE0) {
+            count = 2;
+            codePoint = b & 0x0F;
+            minCodePoint = 0x800;
+        } else if ((b & 0xF8) == 0xF0) {
+            count = 3;
+            codePoint = b & 0x07;
+            minCodePoint = 0x10000;
+        } else {
+            return REPLACEMENT;
+        }
+
+        int position = buffer.position();
+        for (int i = 0; i < count; i++) {
+            if (position + i >= end) {
+                buffer.position(position + i);
+                return REPLACEMENT;
+            }
+
+            int next = buffer.getByte(position + i);
+            if ((next & 0xC0) != 0x80) {
+                buffer.position(position + i);
+                return REPLACEMENT;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        buffer.position(position + count);
+
+        if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE
+                        && codePoint <= Character.MAX_SURROGATE)) {
+            return REPLACEMENT;
+        }
+        return codePoint;
+    }
+
+    /**
+     * Reads a char encoded as ASCII, or {@link #REPLACEMENT} if not ASCII.
+     */
+    static char getAsciiChar(Buffer buffer) {
+        byte b = buffer.getByte();
+        return b >= 0 ? (char) b : REPLACEMENT;
+    }
+
+    /**
+     * Reads a char encoded as Latin-1.
+     */
+    static char getLatin1Char(Buffer buffer) {
+        return (char) (buffer.getByte() & 0xFF);
+    }
+
+    /**
+     * @throws BufferUnderflowException
+     *             if <code>length</code> is greater than remaining of <code>buffer</code>.
+     */
+    static void checkRemaining(Buffer buffer, int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length should not be negative: " + length);
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    /**
+     * Checks <code>dst</code> has <code>length</code> chars from <code>offset</code>, which is
+     * enough for decoding <code>length</code> bytes.
+     */
+    static void checkArray(char[] dst, int offset, int length) {
+        if (offset < 0 || offset > dst.length || dst.length - offset < length) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
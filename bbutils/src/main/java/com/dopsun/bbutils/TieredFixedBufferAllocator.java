@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An allocator routes each request to the first tier whose maximum capacity is not less than
+ * requested. When a tier throws {@link IllegalStateException}, for example a bounded pool or slab
+ * is exhausted, request falls through to next tiers, and the last failure is thrown if all failed.
+ * 
+ * <p>
+ * A buffer is released to the first tier fitting its capacity, which is the tier allocated it in
+ * most cases. Buffers allocated by other tiers, after falling through or rounding up beyond maximum
+ * capacity of their tier, are remembered by identity until released, so they are routed back to
+ * owner tier too.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class TieredFixedBufferAllocator implements CloseableFixedBufferAllocator {
+    private final int[] maxCapacities;
+    private final FixedBufferAllocator[] allocators;
+
+    /** Tiers of buffers not allocated by the tier fitting their capacity. Guarded by itself. */
+    private final Map<FixedBuffer, FixedBufferAllocator> misrouted = new IdentityHashMap<>();
+    /** Size of {@link #misrouted}, so releasing skips locking when empty. */
+    private final AtomicInteger misroutedCount = new AtomicInteger();
+
+    /**
+     * @param tiers
+     *            tiers in ascending order of maximum capacity.
+     */
+    public TieredFixedBufferAllocator(AllocatorTier[] tiers) {
+        Objects.requireNonNull(tiers);
+        if (tiers.length == 0) {
+            throw new IllegalArgumentException("tiers is empty.");
+        }
+
+        maxCapacities = new int[tiers.length];
+        allocators = new FixedBufferAllocator[tiers.length];
+        for (int i = 0; i < tiers.length; i++) {
+            Objects.requireNonNull(tiers[i]);
+            if (i > 0 && tiers[i].maxCapacity() <= maxCapacities[i - 1]) {
+                throw new IllegalArgumentException("tiers not in ascending order: " + tiers[i]);
+            }
+
+            maxCapacities[i] = tiers[i].maxCapacity();
+            allocators[i] = tiers[i].allocator();
+        }
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int first = tierOf(capacity);
+        if (first < 0) {
+            throw new IllegalStateException("capacity not supported: " + capacity);
+        }
+
+        IllegalStateException failure = null;
+        for (int i = first; i < allocators.length; i++) {
+            FixedBuffer buffer;
+            try {
+                buffer = allocators[i].alloc(capacity);
+            } catch (IllegalStateException e) {
+                failure = e;
+                continue;
+            }
+
+            if (tierOf(buffer.capacity()) != i) {
+                synchronized (misrouted) {
+                    misrouted.put(buffer, allocators[i]);
+                    misroutedCount.incrementAndGet();
+                }
+            }
+            return buffer;
+        }
+
+        throw failure;
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (misroutedCount.get() > 0) {
+            FixedBufferAllocator allocator;
+            synchronized (misrouted) {
+                allocator = misrouted.remove(buffer);
+                if (allocator != null) {
+                    misroutedCount.decrementAndGet();
+                }
+            }
+
+            if (allocator != null) {
+                allocator.release(buffer);
+                return;
+            }
+        }
+
+        int tier = tierOf(buffer.capacity());
+        if (tier < 0) {
+            throw new IllegalArgumentException("buffer is not for this allocator.");
+        }
+        allocators[tier].release(buffer);
+    }
+
+    /**
+     * Closes tiers which are {@link AutoCloseable}, in reverse order.
+     */
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (int i = allocators.length - 1; i >= 0; i--) {
+            if (!(allocators[i] instanceof AutoCloseable)) {
+                continue;
+            }
+
+            try {
+                ((AutoCloseable) allocators[i]).close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return number of buffers not allocated by the tier fitting their capacity.
+     */
+    int misroutedCount() {
+        return misroutedCount.get();
+    }
+
+    /**
+     * @return index of first tier fitting <code>capacity</code>, or -1 if none.
+     */
+    private int tierOf(int capacity) {
+        for (int i = 0; i < maxCapacities.length; i++) {
+            if (capacity <= maxCapacities[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
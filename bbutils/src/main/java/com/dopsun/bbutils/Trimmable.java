@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * A pool releasing idle buffers beyond recent usage to its allocator.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface Trimmable {
+    /**
+     * Releases idle buffers beyond recent usage, if an eviction window elapsed since last trimmed.
+     * Pools trim lazily when borrowing and returning too, so this is needed only to release memory
+     * when a pool is not used, e.g. from {@link Pools#scheduleTrim}.
+     * 
+     * @return number of buffers released.
+     */
+    int trim();
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+/**
+ * A {@link FixedBufferPool} releasing idle buffers beyond recent usage, so it can be trimmed with
+ * {@link Pools#scheduleTrim} without casting.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface TrimmableFixedBufferPool extends FixedBufferPool, Trimmable {
+}
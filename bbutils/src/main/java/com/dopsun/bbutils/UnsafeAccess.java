@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Access to <code>sun.misc.Unsafe</code>, if available on this platform.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("restriction")
+final class UnsafeAccess {
+    /** Architectures known to support unaligned memory access. */
+    private static final List<String> UNALIGNED_ARCHS = Arrays.asList("x86_64", "amd64", "i386",
+            "x86", "aarch64", "ppc64le");
+
+    /** <code>null</code> if not available. */
+    @Nullable
+    static final sun.misc.Unsafe UNSAFE;
+
+    static final long BYTE_ARRAY_BASE_OFFSET;
+
+    /** Offset of <code>java.nio.Buffer#address</code>. */
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        sun.misc.Unsafe unsafe = null;
+        long byteArrayBaseOffset = -1;
+        long addressOffset = -1;
+
+        if (UNALIGNED_ARCHS.contains(System.getProperty("os.arch"))) {
+            try {
+                Field field = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+
+                unsafe = (sun.misc.Unsafe) field.get(null);
+                byteArrayBaseOffset = unsafe.arrayBaseOffset(byte[].class);
+                addressOffset = unsafe
+                        .objectFieldOffset(java.nio.Buffer.class.getDeclaredField("address"));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                unsafe = null;
+            }
+        }
+
+        UNSAFE = unsafe;
+        BYTE_ARRAY_BASE_OFFSET = byteArrayBaseOffset;
+        ADDRESS_OFFSET = addressOffset;
+    }
+
+    /**
+     * @return <code>true</code> if <code>sun.misc.Unsafe</code> is available.
+     */
+    static boolean isAvailable() {
+        return UNSAFE != null;
+    }
+
+    /**
+     * @param byteBuffer
+     *            a direct byte buffer.
+     * @return memory address of <code>byteBuffer</code>.
+     */
+    static long address(ByteBuffer byteBuffer) {
+        return UNSAFE.getLong(byteBuffer, ADDRESS_OFFSET);
+    }
+}
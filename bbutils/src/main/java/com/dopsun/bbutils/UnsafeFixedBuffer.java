@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import static com.dopsun.bbutils.UnsafeAccess.UNSAFE;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+import java.util.Objects;
+
+/**
+ * A {@link FixedBuffer} reads and writes memory with <code>sun.misc.Unsafe</code>, on either heap
+ * or direct memory of a {@link ByteBuffer}. Position, limit and mark are tracked by this buffer
+ * itself, so primitive get/put compiles to a bounds check and a single load or store.
+ * 
+ * <p>
+ * Initial byte order is from the {@link ByteBuffer}; with {@link ByteOrder#nativeOrder()}, values
+ * are not swapped on access. Bounds checking can be turned off with
+ * system property <code>-Dcom.dopsun.bbutils.checkBounds=false</code>; accessing out of bounds
+ * then corrupts memory or crashes JVM, so only do this for well tested code.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("restriction")
+final class UnsafeFixedBuffer implements FixedBuffer, HasByteBuffers {
+    static final boolean CHECK_BOUNDS = Boolean
+            .parseBoolean(System.getProperty("com.dopsun.bbutils.checkBounds", "true"));
+
+    /** Keeps memory reachable, and for releasing direct memory. */
+    private final ByteBuffer byteBuffer;
+
+    /** <code>byte[]</code> for heap memory, <code>null</code> for direct memory. */
+    private final Object base;
+    private final long baseOffset;
+    private final int capacity;
+
+    private int position;
+    private int limit;
+    private int mark = -1;
+
+    private ByteOrder order;
+    /** <code>true</code> if {@link #order} is not native order. */
+    private boolean swap;
+    /** Order when created, restored by {@link #restoreOrder()}. */
+    private final ByteOrder allocatedOrder;
+
+    /**
+     * @param byteBuffer
+     *            byte buffer to read and write, should not be read only.
+     */
+    UnsafeFixedBuffer(ByteBuffer byteBuffer) {
+        this(byteBuffer, byteBuffer.order());
+    }
+
+    /**
+     * @param byteBuffer
+     *            byte buffer to read and write, should not be read only.
+     * @param order
+     *            byte order of this buffer, order of <code>byteBuffer</code> is not changed.
+     */
+    UnsafeFixedBuffer(ByteBuffer byteBuffer, ByteOrder order) {
+        Objects.requireNonNull(byteBuffer);
+        Objects.requireNonNull(order);
+        if (byteBuffer.isReadOnly()) {
+            throw new IllegalArgumentException("byteBuffer is read only.");
+        }
+
+        this.byteBuffer = byteBuffer;
+        if (byteBuffer.hasArray()) {
+            this.base = byteBuffer.array();
+            this.baseOffset = UnsafeAccess.BYTE_ARRAY_BASE_OFFSET + byteBuffer.arrayOffset();
+        } else {
+            this.base = null;
+            this.baseOffset = UnsafeAccess.address(byteBuffer);
+        }
+
+        this.capacity = byteBuffer.capacity();
+        this.position = byteBuffer.position();
+        this.limit = byteBuffer.limit();
+        this.allocatedOrder = order;
+        order(order);
+    }
+
+    /**
+     * @return byte buffer of the memory. Its position and limit are not maintained.
+     */
+    ByteBuffer byteBuffer() {
+        return byteBuffer;
+    }
+
+    @Override
+    public ByteBuffer[] getByteBuffers() {
+        ByteBuffer view = byteBuffer.duplicate();
+        view.limit(limit);
+        view.position(position);
+        return new ByteBuffer[] { view };
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int position() {
+        return position;
+    }
+
+    @Override
+    public void position(int newPosition) {
+        if (newPosition > limit || newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        position = newPosition;
+        if (mark > position) {
+            mark = -1;
+        }
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void limit(int newLimit) {
+        if (newLimit > capacity || newLimit < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        limit = newLimit;
+        if (position > limit) {
+            position = limit;
+        }
+        if (mark > limit) {
+            mark = -1;
+        }
+    }
+
+    @Override
+    public void mark() {
+        mark = position;
+    }
+
+    @Override
+    public int markValue() {
+        return mark;
+    }
+
+    @Override
+    public void reset() {
+        if (mark < 0) {
+            throw new InvalidMarkException();
+        }
+
+        position = mark;
+    }
+
+    @Override
+    public void clear() {
+        position = 0;
+        limit = capacity;
+        mark = -1;
+    }
+
+    @Override
+    public void flip() {
+        limit = position;
+        position = 0;
+        mark = -1;
+    }
+
+    @Override
+    public void rewind() {
+        position = 0;
+        mark = -1;
+    }
+
+    @Override
+    public int remaining() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    @Override
+    public ByteOrder order() {
+        return order;
+    }
+
+    @Override
+    public void order(ByteOrder order) {
+        Objects.requireNonNull(order);
+
+        this.order = order;
+        this.swap = order != ByteOrder.nativeOrder();
+    }
+
+    /**
+     * Restores byte order this buffer was created with.
+     */
+    void restoreOrder() {
+        order(allocatedOrder);
+    }
+
+    @Override
+    public void putBuffer(Buffer buffer) {
+        Objects.requireNonNull(buffer);
+        if (buffer == this) {
+            throw new IllegalArgumentException("buffer is this buffer.");
+        }
+
+        int length = buffer.remaining();
+        if (length > remaining()) {
+            throw new BufferOverflowException();
+        }
+
+        if (buffer instanceof UnsafeFixedBuffer) {
+            UnsafeFixedBuffer src = (UnsafeFixedBuffer) buffer;
+            UNSAFE.copyMemory(src.base, src.baseOffset + src.position, base,
+                    baseOffset + position, length);
+            src.position += length;
+        } else if (buffer instanceof HasByteBuffer) {
+            ByteBuffer src = ((HasByteBuffer) buffer).getByteBuffer();
+            if (src.hasArray()) {
+                UNSAFE.copyMemory(src.array(), UnsafeAccess.BYTE_ARRAY_BASE_OFFSET
+                        + src.arrayOffset() + src.position(), base, baseOffset + position, length);
+            } else if (src.isDirect()) {
+                UNSAFE.copyMemory(null, UnsafeAccess.address(src) + src.position(), base,
+                        baseOffset + position, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    UNSAFE.putByte(base, baseOffset + position + i, src.get(src.position() + i));
+                }
+            }
+            src.position(src.position() + length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                UNSAFE.putByte(base, baseOffset + position + i, buffer.getByte());
+            }
+        }
+
+        position += length;
+    }
+
+    @Override
+    public byte getByte() {
+        return UNSAFE.getByte(base, baseOffset + nextGetIndex(1));
+    }
+
+    @Override
+    public byte getByte(int index) {
+        return UNSAFE.getByte(base, baseOffset + checkIndex(index, 1));
+    }
+
+    @Override
+    public void putByte(byte value) {
+        UNSAFE.putByte(base, baseOffset + nextPutIndex(1), value);
+    }
+
+    @Override
+    public void putByte(int index, byte value) {
+        UNSAFE.putByte(base, baseOffset + checkIndex(index, 1), value);
+    }
+
+    @Override
+    public char getChar() {
+        return toChar(UNSAFE.getChar(base, baseOffset + nextGetIndex(2)));
+    }
+
+    @Override
+    public char getChar(int index) {
+        return toChar(UNSAFE.getChar(base, baseOffset + checkIndex(index, 2)));
+    }
+
+    @Override
+    public void putChar(char value) {
+        UNSAFE.putChar(base, baseOffset + nextPutIndex(2), toChar(value));
+    }
+
+    @Override
+    public void putChar(int index, char value) {
+        UNSAFE.putChar(base, baseOffset + checkIndex(index, 2), toChar(value));
+    }
+
+    @Override
+    public short getShort() {
+        return toShort(UNSAFE.getShort(base, baseOffset + nextGetIndex(2)));
+    }
+
+    @Override
+    public short getShort(int index) {
+        return toShort(UNSAFE.getShort(base, baseOffset + checkIndex(index, 2)));
+    }
+
+    @Override
+    public void putShort(short value) {
+        UNSAFE.putShort(base, baseOffset + nextPutIndex(2), toShort(value));
+    }
+
+    @Override
+    public void putShort(int index, short value) {
+        UNSAFE.putShort(base, baseOffset + checkIndex(index, 2), toShort(value));
+    }
+
+    @Override
+    public int getInt() {
+        return toInt(UNSAFE.getInt(base, baseOffset + nextGetIndex(4)));
+    }
+
+    @Override
+    public int getInt(int index) {
+        return toInt(UNSAFE.getInt(base, baseOffset + checkIndex(index, 4)));
+    }
+
+    @Override
+    public void putInt(int value) {
+        UNSAFE.putInt(base, baseOffset + nextPutIndex(4), toInt(value));
+    }
+
+    @Override
+    public void putInt(int index, int value) {
+        UNSAFE.putInt(base, baseOffset + checkIndex(index, 4), toInt(value));
+    }
+
+    @Override
+    public long getLong() {
+        return toLong(UNSAFE.getLong(base, baseOffset + nextGetIndex(8)));
+    }
+
+    @Override
+    public long getLong(int index) {
+        return toLong(UNSAFE.getLong(base, baseOffset + checkIndex(index, 8)));
+    }
+
+    @Override
+    public void putLong(long value) {
+        UNSAFE.putLong(base, baseOffset + nextPutIndex(8), toLong(value));
+    }
+
+    @Override
+    public void putLong(int index, long value) {
+        UNSAFE.putLong(base, baseOffset + checkIndex(index, 8), toLong(value));
+    }
+
+    @Override
+    public float getFloat() {
+        return Float.intBitsToFloat(getInt());
+    }
+
+    @Override
+    public float getFloat(int index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    @Override
+    public void putFloat(float value) {
+        putInt(Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void putFloat(int index, float value) {
+        putInt(index, Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putDouble(int index, double value) {
+        putLong(index, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void getBytes(byte[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        UNSAFE.copyMemory(base, baseOffset + nextGetIndex(length), dst,
+                UnsafeAccess.BYTE_ARRAY_BASE_OFFSET + offset, length);
+    }
+
+    @Override
+    public void putBytes(byte[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        UNSAFE.copyMemory(src, UnsafeAccess.BYTE_ARRAY_BASE_OFFSET + offset, base,
+                baseOffset + nextPutIndex(length), length);
+    }
+
+    @Override
+    public void getInts(int[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        long address = baseOffset + nextGetIndex(length, Integer.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = toInt(UNSAFE.getInt(base, address + (long) i * Integer.BYTES));
+        }
+    }
+
+    @Override
+    public void putInts(int[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        long address = baseOffset + nextPutIndex(length, Integer.BYTES);
+        for (int i = 0; i < length; i++) {
+            UNSAFE.putInt(base, address + (long) i * Integer.BYTES, toInt(src[offset + i]));
+        }
+    }
+
+    @Override
+    public void getLongs(long[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        long address = baseOffset + nextGetIndex(length, Long.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = toLong(UNSAFE.getLong(base, address + (long) i * Long.BYTES));
+        }
+    }
+
+    @Override
+    public void putLongs(long[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        long address = baseOffset + nextPutIndex(length, Long.BYTES);
+        for (int i = 0; i < length; i++) {
+            UNSAFE.putLong(base, address + (long) i * Long.BYTES, toLong(src[offset + i]));
+        }
+    }
+
+    @Override
+    public void getFloats(float[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        long address = baseOffset + nextGetIndex(length, Float.BYTES);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = Float
+                    .intBitsToFloat(toInt(UNSAFE.getInt(base, address + (long) i * Float.BYTES)));
+        }
+    }
+
+    @Override
+    public void putFloats(float[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        long address = baseOffset + nextPutIndex(length, Float.BYTES);
+        for (int i = 0; i < length; i++) {
+            UNSAFE.putInt(base, address + (long) i * Float.BYTES,
+                    toInt(Float.floatToRawIntBits(src[offset + i])));
+        }
+    }
+
+    @Override
+    public void getDoubles(double[] dst, int offset, int length) {
+        checkArray(dst.length, offset, length);
+
+        long address = baseOffset + nextGetIndex(length, Double.BYTES);
+        for (int i = 0; i < length; i++) {
+            long value = UNSAFE.getLong(base, address + (long) i * Double.BYTES);
+            dst[offset + i] = Double.longBitsToDouble(toLong(value));
+        }
+    }
+
+    @Override
+    public void putDoubles(double[] src, int offset, int length) {
+        checkArray(src.length, offset, length);
+
+        long address = baseOffset + nextPutIndex(length, Double.BYTES);
+        for (int i = 0; i < length; i++) {
+            UNSAFE.putLong(base, address + (long) i * Double.BYTES,
+                    toLong(Double.doubleToRawLongBits(src[offset + i])));
+        }
+    }
+
+    @Override
+    public int getVarInt() {
+        if (limit - position < VarInts.MAX_VAR_INT_SIZE) {
+            return VarInts.getVarInt(this);
+        }
+
+        long address = baseOffset + position;
+        int result = 0;
+        for (int i = 0; i < VarInts.MAX_VAR_INT_SIZE; i++) {
+            byte b = UNSAFE.getByte(base, address + i);
+            result |= (b & 0x7F) << (i * 7);
+            if (b >= 0) {
+                position += i + 1;
+                return result;
+            }
+        }
+
+        throw VarInts.malformed();
+    }
+
+    @Override
+    public void putVarInt(int value) {
+        long address = baseOffset + nextPutIndex(VarInts.varIntSize(value));
+        while ((value & ~0x7F) != 0) {
+            UNSAFE.putByte(base, address++, (byte) (value | 0x80));
+            value >>>= 7;
+        }
+        UNSAFE.putByte(base, address, (byte) value);
+    }
+
+    @Override
+    public long getVarLong() {
+        if (limit - position < VarInts.MAX_VAR_LONG_SIZE) {
+            return VarInts.getVarLong(this);
+        }
+
+        long address = baseOffset + position;
+        long result = 0;
+        for (int i = 0; i < VarInts.MAX_VAR_LONG_SIZE; i++) {
+            byte b = UNSAFE.getByte(base, address + i);
+            result |= (long) (b & 0x7F) << (i * 7);
+            if (b >= 0) {
+                position += i + 1;
+                return result;
+            }
+        }
+
+        throw VarInts.malformed();
+    }
+
+    @Override
+    public void putVarLong(long value) {
+        long address = baseOffset + nextPutIndex(VarInts.varLongSize(value));
+        while ((value & ~0x7FL) != 0) {
+            UNSAFE.putByte(base, address++, (byte) (value | 0x80));
+            value >>>= 7;
+        }
+        UNSAFE.putByte(base, address, (byte) value);
+    }
+
+    @Override
+    public int putUtf8(CharSequence value) {
+        return putUtf8(value, StringCodecs.utf8Length(value));
+    }
+
+    /**
+     * Same as {@link #putUtf8(CharSequence)}, with <code>utf8Length</code> computed by caller.
+     */
+    int putUtf8(CharSequence value, int utf8Length) {
+        StringCodecs.putUtf8(base, baseOffset + nextPutIndex(utf8Length), value);
+        return utf8Length;
+    }
+
+    /**
+     * Advances position for reading <code>size</code> bytes.
+     * 
+     * @return position before advanced.
+     */
+    private int nextGetIndex(int size) {
+        int index = position;
+        if (CHECK_BOUNDS && limit - index < size) {
+            throw new BufferUnderflowException();
+        }
+
+        position = index + size;
+        return index;
+    }
+
+    /**
+     * Advances position for reading <code>length</code> elements of <code>width</code> bytes each.
+     * Checked before multiplying, so large <code>length</code> does not overflow.
+     * 
+     * @return position before advanced.
+     */
+    private int nextGetIndex(int length, int width) {
+        if (CHECK_BOUNDS && length > (limit - position) / width) {
+            throw new BufferUnderflowException();
+        }
+
+        return nextGetIndex(length * width);
+    }
+
+    /**
+     * Advances position for writing <code>size</code> bytes.
+     * 
+     * @return position before advanced.
+     */
+    private int nextPutIndex(int size) {
+        int index = position;
+        if (CHECK_BOUNDS && limit - index < size) {
+            throw new BufferOverflowException();
+        }
+
+        position = index + size;
+        return index;
+    }
+
+    /**
+     * Advances position for writing <code>length</code> elements of <code>width</code> bytes each.
+     * Checked before multiplying, so large <code>length</code> does not overflow.
+     * 
+     * @return position before advanced.
+     */
+    private int nextPutIndex(int length, int width) {
+        if (CHECK_BOUNDS && length > (limit - position) / width) {
+            throw new BufferOverflowException();
+        }
+
+        return nextPutIndex(length * width);
+    }
+
+    private int checkIndex(int index, int size) {
+        if (CHECK_BOUNDS && (index < 0 || size > limit - index)) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return index;
+    }
+
+    /**
+     * Checks array range always, as it is not memory of this buffer.
+     */
+    private static void checkArray(int arrayLength, int offset, int length) {
+        if ((offset | length | (offset + length) | (arrayLength - (offset + length))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private char toChar(char value) {
+        return swap ? Character.reverseBytes(value) : value;
+    }
+
+    private short toShort(short value) {
+        return swap ? Short.reverseBytes(value) : value;
+    }
+
+    private int toInt(int value) {
+        return swap ? Integer.reverseBytes(value) : value;
+    }
+
+    private long toLong(long value) {
+        return swap ? Long.reverseBytes(value) : value;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Allocates {@link UnsafeFixedBuffer}, from heap or direct memory.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class UnsafeFixedBufferAllocator implements FixedBufferAllocator, HasAllocatorStats {
+    private final boolean direct;
+    private final ByteOrder order;
+
+    private final AllocatorMetrics metrics = new AllocatorMetrics(true);
+
+    /**
+     * @param direct
+     *            <code>true</code> to allocate direct memory, otherwise heap memory.
+     */
+    UnsafeFixedBufferAllocator(boolean direct) {
+        this(direct, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @param direct
+     *            <code>true</code> to allocate direct memory, otherwise heap memory.
+     * @param order
+     *            byte order of allocated buffers.
+     */
+    UnsafeFixedBufferAllocator(boolean direct, ByteOrder order) {
+        Objects.requireNonNull(order);
+        if (!UnsafeAccess.isAvailable()) {
+            throw new UnsupportedOperationException("sun.misc.Unsafe is not available.");
+        }
+
+        this.direct = direct;
+        this.order = order;
+    }
+
+    @Override
+    public FixedBuffer alloc(int capacity) {
+        ByteBuffer byteBuffer = direct ? ByteBuffer.allocateDirect(capacity)
+                : ByteBuffer.allocate(capacity);
+        FixedBuffer buffer = new UnsafeFixedBuffer(byteBuffer.order(order));
+        metrics.recordAlloc(capacity);
+        return buffer;
+    }
+
+    @Override
+    public void release(FixedBuffer buffer) {
+        Objects.requireNonNull(buffer);
+
+        if (!(buffer instanceof UnsafeFixedBuffer)) {
+            throw new IllegalArgumentException("Not supported.");
+        }
+
+        if (direct) {
+            DirectFixedBufferAllocator.cleanDirectBuffer(((UnsafeFixedBuffer) buffer).byteBuffer());
+        }
+        metrics.recordRelease(buffer.capacity());
+    }
+
+    @Override
+    public AllocatorStats allocatorStats() {
+        return metrics.snapshot();
+    }
+}
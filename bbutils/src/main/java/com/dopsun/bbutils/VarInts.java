@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.BufferUnderflowException;
+
+/**
+ * Helpers for LEB128 varint and ZigZag encoding. Each byte holds 7 bits of value from lowest,
+ * with highest bit set if more bytes follow.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class VarInts {
+    /** Maximum bytes of an encoded <code>int</code>. */
+    static final int MAX_VAR_INT_SIZE = 5;
+
+    /** Maximum bytes of an encoded <code>long</code>. */
+    static final int MAX_VAR_LONG_SIZE = 10;
+
+    /**
+     * @return number of bytes to encode <code>value</code>, as unsigned.
+     */
+    static int varIntSize(int value) {
+        int bits = 32 - Integer.numberOfLeadingZeros(value | 1);
+        // Same as (bits + 6) / 7, for bits in [1, 64].
+        return (bits * 9 + 64) >>> 6;
+    }
+
+    /**
+     * @return number of bytes to encode <code>value</code>, as unsigned.
+     */
+    static int varLongSize(long value) {
+        int bits = 64 - Long.numberOfLeadingZeros(value | 1);
+        return (bits * 9 + 64) >>> 6;
+    }
+
+    static int encodeZigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static int decodeZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a varint with absolute {@link Buffer#getByte(int)}, for buffers without a faster way.
+     * Position is moved only when succeeded, so a caller can retry after more bytes arrived.
+     * 
+     * @throws BufferUnderflowException
+     *             if the varint is not complete before limit.
+     */
+    static int getVarInt(Buffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        int result = 0;
+        for (int shift = 0, index = position; shift < 32; shift += 7, index++) {
+            if (index >= limit) {
+                throw new BufferUnderflowException();
+            }
+
+            byte b = buffer.getByte(index);
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                buffer.position(index + 1);
+                return result;
+            }
+        }
+
+        throw malformed();
+    }
+
+    /**
+     * Reads a varint with absolute {@link Buffer#getByte(int)}, for buffers without a faster way.
+     * Position is moved only when succeeded, so a caller can retry after more bytes arrived.
+     * 
+     * @throws BufferUnderflowException
+     *             if the varint is not complete before limit.
+     */
+    static long getVarLong(Buffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        long result = 0;
+        for (int shift = 0, index = position; shift < 64; shift += 7, index++) {
+            if (index >= limit) {
+                throw new BufferUnderflowException();
+            }
+
+            byte b = buffer.getByte(index);
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                buffer.position(index + 1);
+                return result;
+            }
+        }
+
+        throw malformed();
+    }
+
+    static IllegalStateException malformed() {
+        return new IllegalStateException("Malformed varint.");
+    }
+}
@@ -16,6 +16,10 @@
 
 package com.dopsun.bbutils;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -108,4 +112,389 @@ public abstract class AbstractBufferTest {
         }
     }
 
+    @Test
+    public void bufferGivenMarkNotSetWhenMarkValueThenNegative() {
+        Buffer buffer = allocBuffer(4);
+        try {
+            Assert.assertEquals(-1, buffer.markValue());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenMarkedWhenResetThenPositionBackToMark() {
+        Buffer buffer = allocBuffer(8);
+        try {
+            buffer.putByte((byte) 1);
+            buffer.mark();
+            buffer.putShort((short) 2);
+
+            Assert.assertEquals(1, buffer.markValue());
+
+            buffer.reset();
+
+            Assert.assertEquals(1, buffer.position());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenMarkedWhenPositionBeforeMarkThenMarkDiscarded() {
+        Buffer buffer = allocBuffer(8);
+        try {
+            buffer.position(4);
+            buffer.mark();
+            buffer.position(2);
+
+            Assert.assertEquals(-1, buffer.markValue());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenMarkedWhenClearThenMarkDiscarded() {
+        Buffer buffer = allocBuffer(8);
+        try {
+            buffer.position(4);
+            buffer.mark();
+            buffer.clear();
+
+            Assert.assertEquals(-1, buffer.markValue());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutBytesThenGetBytesReturnSameValues() {
+        Buffer buffer = allocBuffer(64);
+        try {
+            byte[] src = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+
+            buffer.putByte((byte) 0);
+            buffer.putBytes(src, 1, 10);
+            buffer.flip();
+
+            byte[] dst = new byte[12];
+            Assert.assertEquals(0, buffer.getByte());
+            buffer.getBytes(dst, 2, 10);
+
+            Assert.assertEquals(11, buffer.position());
+            Assert.assertArrayEquals(new byte[] { 0, 0, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 }, dst);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutIntsAndLongsThenSameAsPutOneByOne() {
+        Buffer buffer = allocBuffer(64);
+        try {
+            buffer.putByte((byte) 0);
+            buffer.putInts(new int[] { 1, -2, Integer.MAX_VALUE }, 0, 3);
+            buffer.putLongs(new long[] { 0, Long.MIN_VALUE, 3 }, 1, 2);
+            buffer.flip();
+
+            buffer.getByte();
+            Assert.assertEquals(1, buffer.getInt());
+            Assert.assertEquals(-2, buffer.getInt());
+            Assert.assertEquals(Integer.MAX_VALUE, buffer.getInt());
+            Assert.assertEquals(Long.MIN_VALUE, buffer.getLong());
+            Assert.assertEquals(3, buffer.getLong());
+
+            buffer.position(1);
+            int[] ints = new int[3];
+            long[] longs = new long[2];
+            buffer.getInts(ints, 0, 3);
+            buffer.getLongs(longs, 0, 2);
+
+            Assert.assertArrayEquals(new int[] { 1, -2, Integer.MAX_VALUE }, ints);
+            Assert.assertArrayEquals(new long[] { Long.MIN_VALUE, 3 }, longs);
+            Assert.assertFalse(buffer.hasRemaining());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenLengthBeyondRemainingWhenGetLongsThenThrowsAndPositionNotChange() {
+        Buffer buffer = allocBuffer(64);
+        try {
+            buffer.putLong(1L);
+            buffer.flip();
+
+            try {
+                buffer.getLongs(new long[4], 0, 4);
+                Assert.fail();
+            } catch (BufferUnderflowException e) {
+                // expected
+            }
+
+            Assert.assertEquals(0, buffer.position());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutFloatsAndDoublesThenGetSameValues() {
+        Buffer buffer = allocBuffer(64);
+        try {
+            buffer.putByte((byte) 0);
+            buffer.putFloats(new float[] { 1.5f, Float.NaN }, 0, 2);
+            buffer.putDoubles(new double[] { -0.25, Double.MAX_VALUE }, 0, 2);
+            buffer.flip();
+
+            buffer.getByte();
+            Assert.assertEquals(1.5f, buffer.getFloat(), 0);
+            buffer.position(1);
+
+            float[] floats = new float[2];
+            double[] doubles = new double[2];
+            buffer.getFloats(floats, 0, 2);
+            buffer.getDoubles(doubles, 0, 2);
+
+            Assert.assertArrayEquals(new float[] { 1.5f, Float.NaN }, floats, 0);
+            Assert.assertArrayEquals(new double[] { -0.25, Double.MAX_VALUE }, doubles, 0);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutVarIntThenEncodedInLeb128() {
+        Buffer buffer = allocBuffer(64);
+        try {
+            buffer.putVarInt(0);
+            buffer.putVarInt(127);
+            buffer.putVarInt(300);
+            buffer.putVarInt(-1);
+
+            Assert.assertEquals(1 + 1 + 2 + 5, buffer.position());
+            Assert.assertEquals((byte) 0xAC, buffer.getByte(2));
+            Assert.assertEquals((byte) 0x02, buffer.getByte(3));
+            Assert.assertEquals((byte) 0x0F, buffer.getByte(8));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutVarsThenGetSameValues() {
+        int[] ints = new int[] { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1,
+                Integer.MIN_VALUE };
+        long[] longs = new long[] { 0, 1, 127, 128, Integer.MAX_VALUE, 1L << 35, Long.MAX_VALUE,
+                -1, Long.MIN_VALUE };
+
+        Buffer buffer = allocBuffer(256);
+        try {
+            for (int value : ints) {
+                buffer.putVarInt(value);
+                buffer.putZigZagVarInt(value);
+            }
+            for (long value : longs) {
+                buffer.putVarLong(value);
+                buffer.putZigZagVarLong(value);
+            }
+            buffer.flip();
+
+            for (int value : ints) {
+                Assert.assertEquals(value, buffer.getVarInt());
+                Assert.assertEquals(value, buffer.getZigZagVarInt());
+            }
+            for (long value : longs) {
+                Assert.assertEquals(value, buffer.getVarLong());
+                Assert.assertEquals(value, buffer.getZigZagVarLong());
+            }
+            Assert.assertFalse(buffer.hasRemaining());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenPartialVarIntWhenGetThenThrowsAndPositionNotChange() {
+        Buffer buffer = allocBuffer(16);
+        try {
+            buffer.putByte((byte) 0x80);
+            buffer.putByte((byte) 0xAC);
+            buffer.flip();
+            buffer.getByte();
+
+            try {
+                buffer.getVarInt();
+                Assert.fail();
+            } catch (BufferUnderflowException e) {
+                Assert.assertEquals(1, buffer.position());
+            }
+            try {
+                buffer.getVarLong();
+                Assert.fail();
+            } catch (BufferUnderflowException e) {
+                Assert.assertEquals(1, buffer.position());
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenMalformedVarIntWhenGetThenThrowsAndPositionNotChange() {
+        Buffer buffer = allocBuffer(16);
+        try {
+            for (int i = 0; i < 5; i++) {
+                buffer.putByte((byte) 0xFF);
+            }
+            buffer.flip();
+
+            try {
+                buffer.getVarInt();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals(0, buffer.position());
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutZigZagVarIntSmallNegativeThenOneByte() {
+        Buffer buffer = allocBuffer(4);
+        try {
+            buffer.putZigZagVarInt(-64);
+
+            Assert.assertEquals(1, buffer.position());
+            Assert.assertEquals(127, buffer.getByte(0));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bufferGivenVarIntLongerThanFiveBytesWhenGetVarIntThenThrows() {
+        Buffer buffer = allocBuffer(16);
+        try {
+            for (int i = 0; i < 6; i++) {
+                buffer.putByte((byte) 0x80);
+            }
+            buffer.putByte((byte) 0);
+            buffer.flip();
+
+            buffer.getVarInt();
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutUtf8ThenSameBytesAsStringGetBytes() {
+        String value = "a\u00e9\u4e2d\ud83d\ude00";
+        Buffer buffer = allocBuffer(64);
+        try {
+            int length = buffer.putUtf8(value);
+
+            byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(expected.length, length);
+            Assert.assertEquals(expected.length, buffer.position());
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(expected[i], buffer.getByte(i));
+            }
+
+            buffer.flip();
+            StringBuilder builder = new StringBuilder("x");
+            buffer.getUtf8(length, builder);
+            Assert.assertEquals("x" + value, builder.toString());
+
+            buffer.rewind();
+            char[] chars = new char[length];
+            int charCount = buffer.getUtf8(length, chars, 0);
+            Assert.assertEquals(value, new String(chars, 0, charCount));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenPositionWhenPutUtf8ThenWrittenFromPosition() {
+        String value = "\u00e9\ud800x";
+        Buffer buffer = allocBuffer(64);
+        try {
+            buffer.putByte((byte) 1);
+            int length = buffer.putUtf8(value);
+
+            byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(expected.length, length);
+            Assert.assertEquals(1 + expected.length, buffer.position());
+            Assert.assertEquals(1, buffer.getByte(0));
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(expected[i], buffer.getByte(1 + i));
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenMalformedUtf8WhenGetUtf8ThenReplaced() {
+        Buffer buffer = allocBuffer(16);
+        try {
+            buffer.putByte((byte) 0xE4);
+            buffer.putByte((byte) 'a');
+            buffer.putByte((byte) 0xC0);
+            buffer.putByte((byte) 0x80);
+            buffer.flip();
+
+            StringBuilder builder = new StringBuilder();
+            buffer.getUtf8(4, builder);
+
+            Assert.assertEquals("\ufffda\ufffd", builder.toString());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutAsciiAndLatin1ThenUnmappableWrittenAsQuestionMark() {
+        Buffer buffer = allocBuffer(16);
+        try {
+            Assert.assertEquals(3, buffer.putAscii("a\u00e9b"));
+            Assert.assertEquals(3, buffer.putLatin1("a\u00e9\u4e2d"));
+            buffer.flip();
+
+            StringBuilder builder = new StringBuilder();
+            buffer.getAscii(3, builder);
+            char[] chars = new char[3];
+            buffer.getLatin1(3, chars, 0);
+
+            Assert.assertEquals("a?b", builder.toString());
+            Assert.assertEquals("a\u00e9?", new String(chars));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenLittleEndianWhenPutIntThenLowestByteFirst() {
+        Buffer buffer = allocBuffer(16);
+        try {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0x01020304);
+            buffer.putInts(new int[] { 0x05060708 }, 0, 1);
+
+            Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+            Assert.assertEquals(0x04, buffer.getByte(0));
+            Assert.assertEquals(0x08, buffer.getByte(4));
+            Assert.assertEquals(0x01020304, buffer.getInt(0));
+
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            Assert.assertEquals(0x04030201, buffer.getInt(0));
+            Assert.assertEquals(0x08070605, buffer.getInt(4));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class AdaptiveAutoBufferFactoryTest {
+    @Test
+    public void factoryGivenSameSizesWhenNewAutoBufferThenNoGrowth() {
+        HeapFixedBufferAllocator heap = new HeapFixedBufferAllocator();
+        AutoBufferFactory factory = Buffers.adaptiveAutoBufferFactory(heap, 64, 1 << 20);
+
+        for (int i = 0; i < 10; i++) {
+            write(factory, 300);
+        }
+        long allocCount = heap.allocatorStats().allocCount();
+
+        try (AutoBuffer buffer = factory.newAutoBuffer()) {
+            Assert.assertEquals(512, buffer.capacity());
+
+            buffer.putBytes(new byte[300], 0, 300);
+            Assert.assertEquals(allocCount + 1, heap.allocatorStats().allocCount());
+        }
+    }
+
+    @Test
+    public void factoryGivenMixedSizesWhenOverflowThenGrowOnceToPredicted() {
+        HeapFixedBufferAllocator heap = new HeapFixedBufferAllocator();
+        AutoBufferFactory factory = Buffers.adaptiveAutoBufferFactory(heap, 64, 1 << 20);
+
+        for (int i = 0; i < 6; i++) {
+            write(factory, 100);
+        }
+        for (int i = 0; i < 4; i++) {
+            write(factory, 3000);
+        }
+        long allocCount = heap.allocatorStats().allocCount();
+
+        try (AutoBuffer buffer = factory.newAutoBuffer()) {
+            Assert.assertEquals(128, buffer.capacity());
+
+            buffer.putBytes(new byte[3000], 0, 3000);
+            Assert.assertEquals(4096, buffer.capacity());
+            Assert.assertEquals(allocCount + 2, heap.allocatorStats().allocCount());
+        }
+    }
+
+    @Test
+    public void histogramGivenOldLargeSizesWhenManySmallRecordedThenLargeForgotten() {
+        SizeHistogram histogram = new SizeHistogram(64, 1 << 20);
+
+        for (int i = 0; i < SizeHistogram.DECAY_INTERVAL; i++) {
+            histogram.record(100_000);
+        }
+        Assert.assertEquals(1 << 17, histogram.initCapacity());
+
+        for (int i = 0; i < SizeHistogram.DECAY_INTERVAL * 5; i++) {
+            histogram.record(10);
+        }
+        Assert.assertEquals(64, histogram.initCapacity());
+        Assert.assertEquals(128, histogram.growCapacity());
+    }
+
+    @Test
+    public void factoryGivenBuffersRecycledByPoolWhenNewAutoBufferThenSizesLearned()
+            throws Exception {
+        AutoBufferFactory factory = Buffers.adaptiveAutoBufferFactory(Allocators.heap(), 64,
+                1 << 20);
+
+        try (AutoBufferPool pool = Pools.autoBuffers(factory, 2)) {
+            for (int i = 0; i < 10; i++) {
+                AutoBuffer buffer = pool.borrowBuffer();
+                buffer.putBytes(new byte[3000], 0, 3000);
+                pool.returnBuffer(buffer);
+            }
+        }
+
+        try (AutoBuffer buffer = factory.newAutoBuffer()) {
+            Assert.assertEquals(4096, buffer.capacity());
+        }
+    }
+
+    @Test
+    public void histogramGivenMaxCapacityTwoToThirtyWhenPredictThenNotOverflow() {
+        SizeHistogram histogram = new SizeHistogram(1 << 30, 1 << 30);
+        Assert.assertEquals(1 << 30, histogram.growCapacity());
+
+        histogram.record(Integer.MAX_VALUE);
+        Assert.assertEquals(1 << 30, histogram.initCapacity());
+        Assert.assertEquals(1 << 30, histogram.growCapacity());
+    }
+
+    private static void write(AutoBufferFactory factory, int size) {
+        try (AutoBuffer buffer = factory.newAutoBuffer()) {
+            buffer.putBytes(new byte[size], 0, size);
+        }
+    }
+}
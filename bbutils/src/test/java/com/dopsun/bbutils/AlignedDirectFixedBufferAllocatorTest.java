@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class AlignedDirectFixedBufferAllocatorTest {
+    @Test
+    public void allocatorWhenAllocThenAddressAligned() {
+        for (int alignment : new int[] { Allocators.CACHE_LINE_ALIGNMENT,
+                Allocators.PAGE_ALIGNMENT }) {
+            FixedBufferAllocator allocator = Allocators.alignedDirect(alignment);
+
+            for (int capacity = 1; capacity < 10000; capacity += 999) {
+                FixedBuffer buffer = allocator.alloc(capacity);
+
+                Assert.assertEquals(capacity, buffer.capacity());
+                Assert.assertEquals(0, misalignment(buffer, alignment));
+
+                allocator.release(buffer);
+            }
+        }
+    }
+
+    @Test
+    public void allocatorWhenAllocThenInGivenOrder() {
+        FixedBufferAllocator allocator = Allocators.alignedDirect(64, ByteOrder.LITTLE_ENDIAN);
+
+        FixedBuffer buffer = allocator.alloc(8);
+        buffer.putInt(0, 1);
+
+        Assert.assertEquals(1, byteBuffer(buffer).get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allocatorWhenReleaseOtherBufferThenThrows() {
+        Allocators.alignedDirect(64).release(Allocators.direct().alloc(64));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allocatorWhenAlignmentNotPow2ThenThrows() {
+        Allocators.alignedDirect(48);
+    }
+
+    @Test
+    public void arenaGivenAlignedChunksWhenAllocThenAddressAligned() throws Exception {
+        try (CloseableFixedBufferAllocator allocator = Allocators.directArena(64 * 1024, 64,
+                Allocators.PAGE_ALIGNMENT)) {
+            for (int i = 0; i < 16; i++) {
+                Assert.assertEquals(0, misalignment(allocator.alloc(4096), 4096));
+                Assert.assertEquals(0, misalignment(allocator.alloc(64), 64));
+            }
+        }
+    }
+
+    private static ByteBuffer byteBuffer(FixedBuffer buffer) {
+        return ((HasByteBuffer) buffer).getByteBuffer();
+    }
+
+    private static int misalignment(FixedBuffer buffer, int alignment) {
+        return AlignedDirectFixedBufferAllocator.misalignment(byteBuffer(buffer), alignment);
+    }
+}
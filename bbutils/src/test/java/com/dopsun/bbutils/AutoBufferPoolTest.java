@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class AutoBufferPoolTest {
+    @Test
+    public void poolGivenGrownBufferReturnedWhenBorrowThenSameBufferClearedAndCanGrow()
+            throws Exception {
+        try (AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4)) {
+            AutoBuffer buffer = pool.borrowBuffer();
+            buffer.putBytes(new byte[100], 0, 100);
+            buffer.flip();
+            pool.returnBuffer(buffer);
+
+            AutoBuffer borrowed = pool.borrowBuffer();
+
+            Assert.assertSame(buffer, borrowed);
+            Assert.assertEquals(0, borrowed.position());
+            Assert.assertTrue(borrowed.canGrow());
+            Assert.assertEquals(128, borrowed.capacity());
+        }
+    }
+
+    @Test
+    public void poolGivenMaxCapacityWhenReturnLargerBufferThenTrimmed() throws Exception {
+        try (AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4, 64)) {
+            AutoBuffer buffer = pool.borrowBuffer();
+            buffer.putBytes(new byte[1000], 0, 1000);
+            pool.returnBuffer(buffer);
+
+            Assert.assertEquals(16, pool.borrowBuffer().capacity());
+        }
+    }
+
+    @Test
+    public void poolGivenFullWhenReturnThenBufferClosed() throws Exception {
+        HeapFixedBufferAllocator heap = new HeapFixedBufferAllocator();
+        try (AutoBufferPool pool = Pools.autoBuffers(() -> Buffers.pow2AutoBuffer(heap, 16), 2)) {
+            AutoBuffer buffer1 = pool.borrowBuffer();
+            AutoBuffer buffer2 = pool.borrowBuffer();
+            AutoBuffer buffer3 = pool.borrowBuffer();
+            pool.returnBuffer(buffer1);
+            pool.returnBuffer(buffer2);
+            pool.returnBuffer(buffer3);
+
+            Assert.assertEquals(32, heap.allocatorStats().outstandingBytes());
+        }
+        Assert.assertEquals(0, heap.allocatorStats().outstandingBytes());
+    }
+
+    @Test
+    public void poolGivenOrderChangedWhenReturnThenOrderReset() throws Exception {
+        try (AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4)) {
+            AutoBuffer buffer = pool.borrowBuffer();
+            ByteOrder order = buffer.order();
+            buffer.order(order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN
+                    : ByteOrder.BIG_ENDIAN);
+            pool.returnBuffer(buffer);
+
+            AutoBuffer borrowed = pool.borrowBuffer();
+
+            Assert.assertSame(buffer, borrowed);
+            Assert.assertEquals(order, borrowed.order());
+        }
+    }
+
+    @Test
+    public void poolGivenAutoShrinkEnabledWhenReturnThenAutoShrinkDisabled() throws Exception {
+        try (AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4)) {
+            AutoBuffer buffer = pool.borrowBuffer();
+            buffer.autoShrink(1);
+            pool.returnBuffer(buffer);
+
+            AutoBuffer borrowed = pool.borrowBuffer();
+            borrowed.putBytes(new byte[1000], 0, 1000);
+            borrowed.clear();
+            borrowed.clear();
+
+            Assert.assertEquals(1024, borrowed.capacity());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolGivenClosedBufferWhenReturnThenThrows() throws Exception {
+        try (AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4)) {
+            AutoBuffer buffer = pool.borrowBuffer();
+            buffer.close();
+
+            pool.returnBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void poolGivenClosedWhenReturnThenBufferClosed() throws Exception {
+        HeapFixedBufferAllocator heap = new HeapFixedBufferAllocator();
+        AutoBufferPool pool = Pools.autoBuffers(() -> Buffers.pow2AutoBuffer(heap, 16), 4);
+        AutoBuffer buffer = pool.borrowBuffer();
+        pool.close();
+
+        pool.returnBuffer(buffer);
+
+        Assert.assertTrue(buffer.isClosed());
+        Assert.assertEquals(0, heap.allocatorStats().outstandingBytes());
+    }
+
+    @Test
+    public void poolGivenBuffersOfDifferentOrdersWhenReturnThenEachResetToOwnOrder()
+            throws Exception {
+        ByteOrder[] orders = { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN };
+        int[] made = new int[1];
+        try (AutoBufferPool pool = Pools.autoBuffers(() -> Buffers
+                .pow2AutoBuffer(Allocators.heap(), 16, orders[made[0]++ % 2]), 4)) {
+            AutoBuffer little = pool.borrowBuffer();
+            AutoBuffer big = pool.borrowBuffer();
+            little.order(ByteOrder.BIG_ENDIAN);
+            big.order(ByteOrder.LITTLE_ENDIAN);
+
+            pool.returnBuffer(little);
+            pool.returnBuffer(big);
+
+            Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, little.order());
+            Assert.assertEquals(ByteOrder.BIG_ENDIAN, big.order());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolGivenBufferNotFromPoolWhenReturnThenThrows() throws Exception {
+        try (AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4)) {
+            pool.returnBuffer(Buffers.pow2AutoBuffer(Allocators.heap(), 16));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void poolGivenClosedWhenBorrowThenThrows() throws Exception {
+        AutoBufferPool pool = Pools.autoBuffers(
+                () -> Buffers.pow2AutoBuffer(Allocators.heap(), 16), 4);
+        pool.close();
+
+        pool.borrowBuffer();
+    }
+}
@@ -16,8 +16,12 @@
 
 package com.dopsun.bbutils;
 
+import java.nio.ByteOrder;
+
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 /**
  * @author Dop Sun
@@ -47,4 +51,153 @@ public class AutoBufferTest extends AbstractBufferTest {
 
     }
 
+    @Test
+    public void bufferGivenNotEnoughCapacityWhenPutThenGrowKeepsContentAndMark() {
+        AutoBuffer buffer = allocBuffer(4);
+        try {
+            buffer.putInt(1);
+            buffer.mark();
+            buffer.putLong(2L);
+
+            Assert.assertEquals(12, buffer.position());
+            Assert.assertEquals(4, buffer.markValue());
+            Assert.assertEquals(1, buffer.getInt(0));
+            Assert.assertEquals(2L, buffer.getLong(4));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferWhenPutWithLengthThenGetWithLengthReturnsSameStrings() {
+        AutoBuffer buffer = allocBuffer(4);
+        try {
+            buffer.putUtf8WithLength("\u4e2d\u6587 text");
+            buffer.putAsciiWithLength("ascii");
+            buffer.putLatin1WithLength("");
+            buffer.flip();
+
+            StringBuilder builder = new StringBuilder();
+            buffer.getUtf8WithLength(builder);
+            buffer.getAsciiWithLength(builder.append('|'));
+            buffer.getLatin1WithLength(builder.append('|'));
+
+            Assert.assertEquals("\u4e2d\u6587 text|ascii|", builder.toString());
+            Assert.assertFalse(buffer.hasRemaining());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenLittleEndianWhenGrowThenOrderKept() {
+        AutoBuffer buffer = Buffers.pow2AutoBuffer(allocator, 4, ByteOrder.LITTLE_ENDIAN);
+        try {
+            buffer.putInt(1);
+            buffer.putLong(0x0102030405060708L);
+
+            Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+            Assert.assertEquals(0x08, buffer.getByte(4));
+            Assert.assertEquals(0x0102030405060708L, buffer.getLong(4));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test
+    public void bufferGivenGrownWhenCloseThenAllMemoryReleased() {
+        HeapFixedBufferAllocator heap = new HeapFixedBufferAllocator();
+        AutoBuffer buffer = Buffers.pow2AutoBuffer(heap, 8);
+        buffer.putLongs(new long[4], 0, 4);
+
+        buffer.close();
+
+        Assert.assertEquals(0, heap.allocatorStats().outstandingBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bufferGivenClosedWhenPutThenThrows() {
+        AutoBuffer buffer = allocBuffer(8);
+        buffer.close();
+
+        buffer.putInt(1);
+    }
+
+    @Test
+    public void bufferGivenGrownWhenTrimThenShrinksKeepingContent() {
+        try (AutoBuffer buffer = Buffers.pow2AutoBuffer(allocator, 8)) {
+            buffer.putLongs(new long[8], 0, 8);
+            Assert.assertEquals(64, buffer.capacity());
+
+            buffer.clear();
+            buffer.putLong(1L);
+            buffer.putInt(2);
+            buffer.trim();
+
+            Assert.assertEquals(16, buffer.capacity());
+            Assert.assertEquals(12, buffer.position());
+            Assert.assertEquals(1L, buffer.getLong(0));
+            Assert.assertEquals(2, buffer.getInt(8));
+        }
+    }
+
+    @Test
+    public void bufferGivenFlippedWhenShrinkToThenLimitKept() {
+        try (AutoBuffer buffer = Buffers.pow2AutoBuffer(allocator, 4)) {
+            buffer.putLongs(new long[] { 1L, 2L, 3L }, 0, 3);
+            buffer.flip();
+            buffer.getLong();
+
+            buffer.shrinkTo(24);
+
+            Assert.assertEquals(24, buffer.capacity());
+            Assert.assertEquals(24, buffer.limit());
+            Assert.assertEquals(2L, buffer.getLong());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferWhenShrinkToLessThanWrittenThenThrows() {
+        try (AutoBuffer buffer = allocBuffer(8)) {
+            buffer.putLong(1L);
+
+            buffer.shrinkTo(4);
+        }
+    }
+
+    @Test
+    public void bufferGivenAutoShrinkWhenClearsAfterSpikeThenShrinks() {
+        try (AutoBuffer buffer = Buffers.pow2AutoBuffer(allocator, 8)) {
+            buffer.autoShrink(2);
+
+            buffer.putLongs(new long[16], 0, 16);
+            buffer.clear();
+            buffer.putLong(1L);
+            buffer.clear();
+            Assert.assertEquals(128, buffer.capacity());
+
+            buffer.putLong(1L);
+            buffer.clear();
+            buffer.putLong(1L);
+            buffer.clear();
+            Assert.assertEquals(8, buffer.capacity());
+        }
+    }
+
+    @Test
+    public void bufferGivenPooledAllocatorWhenGrownAndClosedThenOrderNotLeakedToNextBuffer() {
+        FixedBufferAllocator pooled = Allocators
+                .fromPool(capacity -> Pools.fromAllocator(Allocators.heap(), capacity));
+
+        AutoBuffer buffer = Buffers.pow2AutoBuffer(pooled, 16, ByteOrder.LITTLE_ENDIAN);
+        buffer.putLongs(new long[4], 0, 4);
+        buffer.close();
+
+        Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+        try (AutoBuffer next = Buffers.pow2AutoBuffer(pooled, 16)) {
+            Assert.assertEquals(ByteOrder.BIG_ENDIAN, next.order());
+            next.putLongs(new long[4], 0, 4);
+            Assert.assertEquals(ByteOrder.BIG_ENDIAN, next.order());
+        }
+    }
 }
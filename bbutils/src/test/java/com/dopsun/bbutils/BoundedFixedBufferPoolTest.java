@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class BoundedFixedBufferPoolTest {
+    @Test
+    public void poolGivenAllBorrowedWhenTryBorrowThenNull() throws Exception {
+        try (BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 16, 2)) {
+            Assert.assertNotNull(pool.tryBorrowBuffer());
+            Assert.assertNotNull(pool.tryBorrowBuffer());
+
+            Assert.assertNull(pool.tryBorrowBuffer());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void poolGivenAllBorrowedWhenBorrowThenThrows() throws Exception {
+        try (BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 16, 1)) {
+            pool.borrowBuffer();
+            pool.borrowBuffer();
+        }
+    }
+
+    @Test
+    public void poolGivenAllBorrowedWhenBorrowWithTimeoutThenNull() throws Exception {
+        BlockingFixedBufferPool pool = new BlockingFixedBufferPool(Allocators.heap(), 16, 1, 1);
+        try {
+            FixedBuffer buffer = pool.borrowBuffer();
+
+            Assert.assertNull(pool.borrowBuffer(10, TimeUnit.MILLISECONDS));
+
+            pool.returnBuffer(buffer);
+            Assert.assertSame(buffer, pool.borrowBuffer(10, TimeUnit.MILLISECONDS));
+            Assert.assertEquals(1, pool.size());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void poolGivenWaiterWhenReturnThenHandedToWaiter() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 16, 1)) {
+            FixedBuffer buffer = pool.borrowBuffer();
+            buffer.putInt(1);
+
+            Future<FixedBuffer> waiter = executor
+                    .submit(() -> pool.borrowBuffer(10, TimeUnit.SECONDS));
+            Thread.sleep(10);
+            pool.returnBuffer(buffer);
+
+            FixedBuffer borrowed = waiter.get(10, TimeUnit.SECONDS);
+            Assert.assertSame(buffer, borrowed);
+            Assert.assertEquals(0, borrowed.position());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void poolGivenAsyncWaitersWhenReturnThenCompletedInOrder() throws Exception {
+        try (BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 16, 1)) {
+            FixedBuffer buffer = pool.borrowBuffer();
+
+            CompletableFuture<FixedBuffer> waiter1 = pool.borrowBufferAsync();
+            CompletableFuture<FixedBuffer> waiter2 = pool.borrowBufferAsync();
+            waiter1.cancel(false);
+            Assert.assertFalse(waiter2.isDone());
+
+            pool.returnBuffer(buffer);
+            Assert.assertSame(buffer, waiter2.getNow(null));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void poolGivenWaiterWhenAllocFailedThenSlotHandedToWaiter() throws Exception {
+        CountDownLatch allocating = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        FixedBufferAllocator allocator = new FixedBufferAllocator() {
+            private int count;
+
+            @Override
+            public synchronized FixedBuffer alloc(int capacity) {
+                if (count++ > 0) {
+                    return Allocators.heap().alloc(capacity);
+                }
+
+                allocating.countDown();
+                try {
+                    fail.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("alloc failed.");
+            }
+
+            @Override
+            public void release(FixedBuffer buffer) {
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (BoundedFixedBufferPool pool = Pools.bounded(allocator, 16, 1)) {
+            Future<FixedBuffer> failed = executor.submit(() -> pool.borrowBuffer());
+            allocating.await();
+            CompletableFuture<FixedBuffer> waiter = pool.borrowBufferAsync();
+            Assert.assertFalse(waiter.isDone());
+
+            fail.countDown();
+
+            try {
+                failed.get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            Assert.assertNotNull(waiter.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void poolGivenAsyncWaiterWhenCloseThenCompletedExceptionally() throws Exception {
+        BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 16, 1);
+        pool.borrowBuffer();
+        CompletableFuture<FixedBuffer> waiter = pool.borrowBufferAsync();
+
+        pool.close();
+
+        Assert.assertTrue(waiter.isCompletedExceptionally());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolGivenAllIdleWhenReturnThenThrows() throws Exception {
+        try (BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 16, 2, 2)) {
+            pool.returnBuffer(Allocators.heap().alloc(16));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void listPoolGivenFullWhenReturnThenThrows() throws Exception {
+        try (FixedBufferPool pool = Pools.wrap(new FixedBuffer[] { Allocators.heap().alloc(16) })) {
+            pool.returnBuffer(Allocators.heap().alloc(16));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class BuddyFixedBufferAllocatorTest {
+    @Test
+    public void allocatorWhenAllocThenCapacityRoundedUpToPow2() {
+        BuddyFixedBufferAllocator allocator = new BuddyFixedBufferAllocator(4096, 64);
+
+        Assert.assertEquals(64, allocator.alloc(1).capacity());
+        Assert.assertEquals(1024, allocator.alloc(1000).capacity());
+    }
+
+    @Test
+    public void allocatorGivenChunkFullyAllocatedWhenAllocThenBuffersNotOverlapped() {
+        BuddyFixedBufferAllocator allocator = new BuddyFixedBufferAllocator(4096, 64);
+
+        List<FixedBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 4096 / 64; i++) {
+            FixedBuffer buffer = allocator.alloc(64);
+            buffer.putInt(0, i);
+            buffers.add(buffer);
+        }
+
+        for (int i = 0; i < buffers.size(); i++) {
+            Assert.assertEquals(i, buffers.get(i).getInt(0));
+        }
+        Assert.assertEquals(1, allocator.chunkCount());
+
+        allocator.alloc(64);
+        Assert.assertEquals(2, allocator.chunkCount());
+    }
+
+    @Test
+    public void allocatorGivenAllReleasedWhenAllocWholeChunkThenBuddiesMerged() {
+        BuddyFixedBufferAllocator allocator = new BuddyFixedBufferAllocator(4096, 64);
+
+        List<FixedBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 4096 / 64; i++) {
+            buffers.add(allocator.alloc(64));
+        }
+        for (FixedBuffer buffer : buffers) {
+            allocator.release(buffer);
+        }
+
+        FixedBuffer buffer = allocator.alloc(4096);
+
+        Assert.assertEquals(4096, buffer.capacity());
+        Assert.assertEquals(1, allocator.chunkCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void allocatorWhenAllocGreaterThanChunkThenThrows() {
+        new BuddyFixedBufferAllocator(4096, 64).alloc(4097);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allocatorWhenReleaseBufferFromOtherAllocatorThenThrows() {
+        BuddyFixedBufferAllocator allocator = new BuddyFixedBufferAllocator(4096, 64);
+
+        allocator.release(new BuddyFixedBufferAllocator(4096, 64).alloc(64));
+    }
+
+    @Test
+    public void allocatorGivenReleasedWhenReleaseAgainThenThrowsAndRunNotFreedTwice() {
+        BuddyFixedBufferAllocator allocator = new BuddyFixedBufferAllocator(4096, 64);
+        FixedBuffer buffer = allocator.alloc(64);
+        allocator.release(buffer);
+        FixedBuffer reallocated = allocator.alloc(64);
+
+        try {
+            allocator.release(buffer);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        FixedBuffer next = allocator.alloc(64);
+        reallocated.putInt(0, 1);
+        next.putInt(0, 2);
+        Assert.assertEquals(1, reallocated.getInt(0));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class BufferChannelsTest {
+    @Test
+    public void pipeWhenGatheringWriteAndScatteringReadThenSameBytesAndPositionsAdvanced()
+            throws IOException {
+        FixedBuffer first = Allocators.heap().alloc(4);
+        first.putInt(1);
+        first.flip();
+        AutoBuffer second = Buffers.chunkedAutoBuffer(Allocators.heap(), 4);
+        second.putLong(2L);
+        second.flip();
+        FixedBuffer third = Allocators.unsafeHeap().alloc(4);
+        third.putInt(3);
+        third.flip();
+
+        FixedBuffer readFirst = Allocators.direct().alloc(8);
+        FixedBuffer readSecond = Allocators.unsafeDirect().alloc(8);
+
+        Pipe pipe = Pipe.open();
+        try {
+            long written = BufferChannels.write(pipe.sink(), first, second, third);
+            long read = BufferChannels.read(pipe.source(), readFirst, readSecond);
+
+            Assert.assertEquals(16, written);
+            Assert.assertEquals(16, read);
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+
+        Assert.assertFalse(first.hasRemaining());
+        Assert.assertFalse(second.hasRemaining());
+        Assert.assertFalse(third.hasRemaining());
+        Assert.assertEquals(8, readFirst.position());
+        Assert.assertEquals(8, readSecond.position());
+
+        Assert.assertEquals(1, readFirst.getInt(0));
+        Assert.assertEquals(0, readFirst.getInt(4));
+        Assert.assertEquals(2, readSecond.getInt(0));
+        Assert.assertEquals(3, readSecond.getInt(4));
+    }
+
+    @Test
+    public void fileChannelWhenWriteAndReadThenSameBytes() throws IOException {
+        Path path = Files.createTempFile("bbutils", ".bin");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            AutoBuffer buffer = Buffers.pow2AutoBuffer(Allocators.heap(), 8);
+            buffer.putLong(42L);
+            buffer.flip();
+
+            Assert.assertEquals(8, BufferChannels.write(channel, buffer));
+
+            channel.position(0);
+            AutoBuffer readBuffer = Buffers.chunkedAutoBuffer(Allocators.heap(), 4);
+            readBuffer.putLong(0L);
+            readBuffer.clear();
+
+            Assert.assertEquals(8, BufferChannels.read(channel, readBuffer));
+            Assert.assertEquals(8, readBuffer.position());
+            Assert.assertEquals(42L, readBuffer.getLong(0));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
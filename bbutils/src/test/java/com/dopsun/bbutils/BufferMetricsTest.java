@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.lang.management.ManagementFactory;
+import java.util.SortedMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class BufferMetricsTest {
+    @Test
+    public void poolGivenOneIdleWhenBorrowTwiceThenOneHitOneMiss() {
+        ConcurrentFixedBufferPool pool = new ConcurrentFixedBufferPool(
+                new HeapFixedBufferAllocator(), 16, 4, 1);
+
+        FixedBuffer buffer1 = pool.borrowBuffer();
+        FixedBuffer buffer2 = pool.borrowBuffer();
+        pool.returnBuffer(buffer1);
+        pool.returnBuffer(buffer2);
+
+        PoolStats stats = pool.poolStats();
+        Assert.assertEquals(2, stats.borrowCount());
+        Assert.assertEquals(2, stats.returnCount());
+        Assert.assertEquals(1, stats.hitCount());
+        Assert.assertEquals(1, stats.missCount());
+        Assert.assertEquals(0.5, stats.hitRate(), 0.0);
+        Assert.assertEquals(2, stats.idleSize());
+        Assert.assertEquals(2, stats.peakIdleSize());
+    }
+
+    @Test
+    public void allocatorGivenBuffersWhenReleaseOneThenOutstandingBySizeClass() {
+        HeapFixedBufferAllocator allocator = new HeapFixedBufferAllocator();
+
+        FixedBuffer buffer1 = allocator.alloc(100);
+        allocator.alloc(128);
+        allocator.alloc(16);
+        allocator.release(buffer1);
+
+        AllocatorStats stats = allocator.allocatorStats();
+        Assert.assertEquals(3, stats.allocCount());
+        Assert.assertEquals(1, stats.releaseCount());
+        Assert.assertEquals(244, stats.allocatedBytes());
+        Assert.assertEquals(144, stats.outstandingBytes());
+        Assert.assertEquals(Long.valueOf(16), stats.outstandingBytesBySizeClass().get(16));
+        Assert.assertEquals(Long.valueOf(128), stats.outstandingBytesBySizeClass().get(128));
+    }
+
+    @Test
+    public void metricsGivenExactCapacitiesWhenSnapshotThenOutstandingOfNonEmptySizeClasses() {
+        AllocatorMetrics metrics = new AllocatorMetrics(false);
+        metrics.recordAlloc(1000);
+        metrics.recordAlloc(64);
+        metrics.recordAlloc(64);
+        metrics.recordAlloc(4096);
+        metrics.recordRelease(4096);
+
+        SortedMap<Integer, Long> outstanding = metrics.snapshot().outstandingBytesBySizeClass();
+        Assert.assertEquals(2, outstanding.size());
+        Assert.assertEquals(Long.valueOf(128), outstanding.get(64));
+        Assert.assertEquals(Long.valueOf(1000), outstanding.get(1000));
+    }
+
+    @Test
+    public void poolWhenRegisterMBeanThenAttributesReadable() throws Exception {
+        ConcurrentFixedBufferPool pool = new ConcurrentFixedBufferPool(
+                new HeapFixedBufferAllocator(), 16, 4, 0);
+        pool.returnBuffer(pool.borrowBuffer());
+
+        ObjectName objectName = BufferMetrics.registerMBean("test", pool);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(1L, server.getAttribute(objectName, "BorrowCount"));
+            Assert.assertEquals(1L, server.getAttribute(objectName, "MissCount"));
+            Assert.assertEquals(1, server.getAttribute(objectName, "IdleSize"));
+        } finally {
+            BufferMetrics.unregisterMBean(objectName);
+        }
+    }
+
+    @Test
+    public void allocatorWhenEnableJfrEventsThenEnabled() {
+        Assert.assertTrue(BufferMetrics.enableJfrEvents("test", new HeapFixedBufferAllocator()));
+
+        BufferMetrics.disableJfrEvents("test");
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class ChunkedAutoBufferTest extends AbstractBufferTest {
+    private static FixedBufferAllocator allocator;
+
+    @BeforeClass
+    public static void beforeClass() {
+        allocator = Allocators.heap();
+    }
+
+    @Override
+    protected AutoBuffer allocBuffer(int capacity) {
+        return Buffers.chunkedAutoBuffer(allocator, 4);
+    }
+
+    @Override
+    protected void releaseBuffer(Buffer buffer) {
+
+    }
+
+    @Test
+    public void bufferGivenValuesStraddleChunksWhenGetThenSameValues() {
+        AutoBuffer buffer = allocBuffer(4);
+
+        buffer.putByte((byte) 1);
+        buffer.putShort((short) 0x0203);
+        buffer.putInt(0x04050607);
+        buffer.putLong(0x08090a0b0c0d0e0fL);
+        buffer.putDouble(1.5);
+        buffer.flip();
+
+        Assert.assertEquals(1, buffer.getByte());
+        Assert.assertEquals((short) 0x0203, buffer.getShort());
+        Assert.assertEquals(0x04050607, buffer.getInt());
+        Assert.assertEquals(0x08090a0b0c0d0e0fL, buffer.getLong());
+        Assert.assertEquals(1.5, buffer.getDouble(), 0);
+    }
+
+    @Test
+    public void bufferGivenVarLongStraddleChunksNotCompleteWhenGetThenRetriedAfterMoreBytes() {
+        AutoBuffer buffer = allocBuffer(4);
+        buffer.putByte((byte) 1);
+        buffer.putVarLong(1L << 35);
+        buffer.limit(5);
+        buffer.position(1);
+
+        try {
+            buffer.getVarLong();
+            Assert.fail();
+        } catch (BufferUnderflowException e) {
+            Assert.assertEquals(1, buffer.position());
+        }
+
+        buffer.limit(7);
+        Assert.assertEquals(1L << 35, buffer.getVarLong());
+        Assert.assertEquals(7, buffer.position());
+    }
+
+    @Test
+    public void bufferGivenFlippedWhenGetByteBuffersThenSameBytesAsPut() {
+        AutoBuffer buffer = allocBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            buffer.putByte((byte) i);
+        }
+        buffer.flip();
+        buffer.getByte();
+
+        ByteBuffer[] byteBuffers = ((HasByteBuffers) buffer).getByteBuffers();
+
+        Assert.assertEquals(3, byteBuffers.length);
+        int expected = 1;
+        for (ByteBuffer byteBuffer : byteBuffers) {
+            while (byteBuffer.hasRemaining()) {
+                Assert.assertEquals(expected++, byteBuffer.get());
+            }
+        }
+        Assert.assertEquals(10, expected);
+        Assert.assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void bufferWhenPutBufferThenGrowAndCopyAcrossChunks() {
+        ByteBuffer src = ByteBuffer.allocate(10);
+        for (int i = 0; i < 10; i++) {
+            src.put((byte) i);
+        }
+        src.flip();
+
+        AutoBuffer buffer = allocBuffer(4);
+        buffer.putByte((byte) -1);
+        buffer.putBuffer(Buffers.wrap(src));
+
+        Assert.assertEquals(11, buffer.position());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, buffer.getByte(i + 1));
+        }
+    }
+
+    @Test
+    public void bufferGivenLittleEndianWhenValuesStraddleChunksThenLowestByteFirst() {
+        AutoBuffer buffer = Buffers.chunkedAutoBuffer(allocator, 4, ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putByte((byte) 0);
+        buffer.putInt(0x01020304);
+        buffer.putLong(0x05060708090a0b0cL);
+        buffer.flip();
+
+        Assert.assertEquals(0x04, buffer.getByte(1));
+        Assert.assertEquals(0x01, buffer.getByte(4));
+        Assert.assertEquals(0x0c, buffer.getByte(5));
+        Assert.assertEquals(0x01020304, buffer.getInt(1));
+        Assert.assertEquals(0x05060708090a0b0cL, buffer.getLong(5));
+    }
+
+    @Test
+    public void bufferGivenChunksWhenTrimThenChunksReleased() {
+        HeapFixedBufferAllocator heap = new HeapFixedBufferAllocator();
+        AutoBuffer buffer = Buffers.chunkedAutoBuffer(heap, 4);
+        buffer.putLongs(new long[] { 1L, 2L }, 0, 2);
+        buffer.clear();
+        buffer.putInt(3);
+        buffer.putByte((byte) 4);
+
+        buffer.trim();
+
+        Assert.assertEquals(8, buffer.capacity());
+        Assert.assertEquals(8, heap.allocatorStats().outstandingBytes());
+        Assert.assertEquals(3, buffer.getInt(0));
+        Assert.assertEquals(4, buffer.getByte(4));
+
+        buffer.close();
+        Assert.assertEquals(0, heap.allocatorStats().outstandingBytes());
+    }
+
+    @Test
+    public void bufferGivenAutoShrinkWhenClearsAfterSpikeThenOneChunkKept() {
+        try (AutoBuffer buffer = Buffers.chunkedAutoBuffer(allocator, 4)) {
+            buffer.autoShrink(1);
+
+            buffer.putLongs(new long[4], 0, 4);
+            buffer.clear();
+            Assert.assertEquals(32, buffer.capacity());
+
+            buffer.putByte((byte) 1);
+            buffer.clear();
+            Assert.assertEquals(4, buffer.capacity());
+        }
+    }
+
+    @Test
+    public void bufferGivenPooledAllocatorWhenClosedThenOrderNotLeakedToNextBuffer() {
+        FixedBufferAllocator pooled = Allocators
+                .fromPool(capacity -> Pools.fromAllocator(Allocators.heap(), capacity));
+
+        AutoBuffer buffer = Buffers.chunkedAutoBuffer(pooled, 16, ByteOrder.LITTLE_ENDIAN);
+        buffer.putLongs(new long[4], 0, 4);
+        buffer.close();
+
+        try (AutoBuffer next = Buffers.chunkedAutoBuffer(pooled, 16)) {
+            Assert.assertEquals(ByteOrder.BIG_ENDIAN, next.order());
+        }
+    }
+}
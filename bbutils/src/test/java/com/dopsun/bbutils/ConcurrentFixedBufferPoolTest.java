@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class ConcurrentFixedBufferPoolTest {
+    @Test
+    public void poolGivenIdleBufferWhenBorrowThenReturnSameBuffer() throws Exception {
+        try (FixedBufferPool pool = Pools.concurrent(Allocators.heap(), 16, 4)) {
+            FixedBuffer buffer = pool.borrowBuffer();
+            buffer.putInt(1);
+            pool.returnBuffer(buffer);
+
+            FixedBuffer borrowed = pool.borrowBuffer();
+
+            Assert.assertSame(buffer, borrowed);
+            Assert.assertEquals(0, borrowed.position());
+        }
+    }
+
+    @Test
+    public void poolGivenOrderChangedWhenReturnThenOrderNotLeakedToNextBorrower() throws Exception {
+        FixedBufferPool[] pools = { Pools.fromAllocator(Allocators.heap(), 16),
+                Pools.concurrent(Allocators.heap(), 16, 4),
+                Pools.bounded(Allocators.heap(), 16, 1),
+                Pools.threadLocal(Pools.concurrent(Allocators.heap(), 16, 4), 2),
+                Pools.wrap(new FixedBuffer[] { Buffers.unsafeWrap(ByteBuffer.allocate(16),
+                        ByteOrder.LITTLE_ENDIAN) }) };
+
+        for (FixedBufferPool pool : pools) {
+            try {
+                FixedBuffer buffer = pool.borrowBuffer();
+                ByteOrder order = buffer.order();
+                buffer.order(order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN
+                        : ByteOrder.BIG_ENDIAN);
+                pool.returnBuffer(buffer);
+
+                FixedBuffer borrowed = pool.borrowBuffer();
+
+                Assert.assertSame(buffer, borrowed);
+                Assert.assertEquals(order, borrowed.order());
+            } finally {
+                pool.close();
+            }
+        }
+    }
+
+    @Test
+    public void poolGivenFullWhenReturnThenBufferNotKept() throws Exception {
+        ConcurrentFixedBufferPool pool = new ConcurrentFixedBufferPool(Allocators.heap(), 16, 2,
+                2);
+        try {
+            pool.returnBuffer(Allocators.heap().alloc(16));
+
+            Assert.assertEquals(2, pool.idleSize());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void poolGivenMaxIdleSizeOneWhenBorrowFromEmptyThenAllocates() throws Exception {
+        try (FixedBufferPool pool = Pools.concurrent(Allocators.heap(), 16, 1)) {
+            FixedBuffer buffer = pool.borrowBuffer();
+            pool.returnBuffer(buffer);
+
+            Assert.assertSame(buffer, pool.borrowBuffer());
+            Assert.assertNotSame(buffer, pool.borrowBuffer());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolWhenReturnOtherCapacityThenThrows() throws Exception {
+        try (FixedBufferPool pool = Pools.concurrent(Allocators.heap(), 16, 4)) {
+            pool.returnBuffer(Allocators.heap().alloc(32));
+        }
+    }
+
+    @Test
+    public void poolGivenManyThreadsWhenBorrowAndReturnThenBufferNotSharedByTwoThreads()
+            throws Exception {
+        final int threads = 4;
+        final int loops = 20_000;
+
+        FixedBufferPool pool = Pools.concurrent(Allocators.heap(), 16, 8, 8);
+        Set<FixedBuffer> borrowed = Collections.synchronizedSet(
+                Collections.newSetFromMap(new IdentityHashMap<FixedBuffer, Boolean>()));
+        AtomicInteger shared = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < loops; i++) {
+                        FixedBuffer buffer = pool.borrowBuffer();
+                        if (!borrowed.add(buffer)) {
+                            shared.incrementAndGet();
+                        }
+                        borrowed.remove(buffer);
+                        pool.returnBuffer(buffer);
+                    }
+                    return null;
+                });
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            pool.close();
+        }
+
+        Assert.assertEquals(0, shared.get());
+    }
+}
@@ -16,8 +16,14 @@
 
 package com.dopsun.bbutils;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 /**
  * @author Dop Sun
@@ -48,4 +54,33 @@ public class FixedBufferTest extends AbstractBufferTest {
         allocator.release(buffer);
     }
 
+    @Test
+    public void bufferGivenSlicedHeapBufferWhenPutUtf8ThenWrittenFromArrayOffset() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(16);
+        byteBuffer.position(3);
+        FixedBuffer buffer = Buffers.wrap(byteBuffer.slice());
+
+        buffer.putUtf8("\u4e2d");
+
+        byte[] expected = "\u4e2d".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], byteBuffer.get(3 + i));
+        }
+        Assert.assertEquals(0, byteBuffer.get(2));
+    }
+
+    @Test
+    public void bufferGivenNotEnoughRemainingWhenPutUtf8ThenThrowsAndNothingWritten() {
+        FixedBuffer buffer = allocBuffer(2);
+        try {
+            buffer.putUtf8("\u4e2d");
+            Assert.fail();
+        } catch (BufferOverflowException e) {
+            Assert.assertEquals(0, buffer.position());
+            Assert.assertEquals(0, buffer.getByte(0));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class IdleEvictionTest {
+    private static final long WINDOW_MILLIS = 20;
+
+    @Test
+    public void poolGivenSpikeWhenWindowsElapsedThenIdleReleased() throws Exception {
+        HeapFixedBufferAllocator allocator = new HeapFixedBufferAllocator();
+        TrimmableFixedBufferPool pool = Pools.fromAllocator(allocator, 16, 0, WINDOW_MILLIS,
+                TimeUnit.MILLISECONDS);
+
+        borrowAndReturn(pool, 8);
+        Assert.assertEquals(0, pool.trim());
+
+        int released = 0;
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(WINDOW_MILLIS + 5);
+            released += pool.trim();
+        }
+
+        Assert.assertEquals(8, released);
+        Assert.assertEquals(8, allocator.allocatorStats().releaseCount());
+    }
+
+    @Test
+    public void poolGivenSteadyUsageWhenWindowsElapsedThenPeakKept() throws Exception {
+        HeapFixedBufferAllocator allocator = new HeapFixedBufferAllocator();
+        FixedBufferPool pool = Pools.fromAllocator(allocator, 16, 0, WINDOW_MILLIS,
+                TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 4; i++) {
+            borrowAndReturn(pool, 2);
+            Thread.sleep(WINDOW_MILLIS + 5);
+        }
+        borrowAndReturn(pool, 2);
+
+        Assert.assertEquals(2, allocator.allocatorStats().allocCount());
+        Assert.assertEquals(0, allocator.allocatorStats().releaseCount());
+    }
+
+    @Test
+    public void boundedPoolGivenSpikeWhenWindowsElapsedThenIdleReleased() throws Exception {
+        BlockingFixedBufferPool pool = new BlockingFixedBufferPool(Allocators.heap(), 16, 8, 0,
+                new IdleEviction(WINDOW_MILLIS, TimeUnit.MILLISECONDS));
+
+        borrowAndReturn(pool, 8);
+        Assert.assertEquals(8, pool.size());
+
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(WINDOW_MILLIS + 5);
+            pool.trim();
+        }
+
+        Assert.assertEquals(0, pool.size());
+        Assert.assertNotNull(pool.tryBorrowBuffer());
+    }
+
+    @Test
+    public void scheduleTrimGivenTrimFailedWhenNextPeriodThenTrimmedAgain() throws Exception {
+        CountDownLatch failed = new CountDownLatch(2);
+        Trimmable failing = () -> {
+            throw new IllegalStateException("expected by test");
+        };
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            Pools.scheduleTrim(failing, scheduler, 1, TimeUnit.MILLISECONDS, e -> {
+                Assert.assertEquals("expected by test", e.getMessage());
+                failed.countDown();
+            });
+
+            Assert.assertTrue(failed.await(10, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void scheduleTrimGivenTrimFailedWhenNoErrorHandlerThenUncaughtExceptionHandlerCalled()
+            throws Exception {
+        CountDownLatch failed = new CountDownLatch(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setUncaughtExceptionHandler((t, e) -> failed.countDown());
+            return thread;
+        });
+        try {
+            Pools.scheduleTrim(() -> {
+                throw new IllegalStateException("expected by test");
+            }, scheduler, 1, TimeUnit.MILLISECONDS);
+
+            Assert.assertTrue(failed.await(10, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static void borrowAndReturn(FixedBufferPool pool, int count) {
+        List<FixedBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            buffers.add(pool.borrowBuffer());
+        }
+        for (FixedBuffer buffer : buffers) {
+            pool.returnBuffer(buffer);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class LeakDetectorTest {
+    private final List<BufferLeakException> leaks = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void poolGivenBufferNotReturnedWhenCollectedThenLeakReported() throws Exception {
+        FixedBufferPool pool = Pools.leakTracking(Pools.concurrent(Allocators.heap(), 16, 4), 1,
+                leaks::add);
+
+        leak(pool);
+        for (int i = 0; i < 100 && leaks.isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(10);
+            pool.returnBuffer(pool.borrowBuffer());
+        }
+
+        Assert.assertEquals(1, leaks.size());
+        Assert.assertEquals(16, leaks.get(0).capacity());
+        Assert.assertTrue(stackTraceContains(leaks.get(0), "leak"));
+    }
+
+    @Test
+    public void allocatorGivenBufferReleasedWhenCollectedThenNoLeakReported() {
+        LeakDetector leakDetector = new LeakDetector(1, leaks::add);
+        FixedBufferAllocator allocator = new LeakTrackingFixedBufferAllocator(Allocators.heap(),
+                leakDetector);
+
+        FixedBuffer buffer = allocator.alloc(16);
+        Assert.assertEquals(1, leakDetector.trackedCount());
+
+        allocator.release(buffer);
+        Assert.assertEquals(0, leakDetector.trackedCount());
+    }
+
+    @Test
+    public void poolGivenSamplingDisabledWhenLeakTrackingThenSamePool() {
+        FixedBufferPool pool = Pools.concurrent(Allocators.heap(), 16, 4);
+
+        Assert.assertSame(pool, Pools.leakTracking(pool, 0, leaks::add));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allocatorWhenReleaseBufferTrackedByOtherThenThrows() {
+        FixedBufferAllocator allocator1 = Allocators.leakTracking(Allocators.heap(), 1, leaks::add);
+        FixedBufferAllocator allocator2 = Allocators.leakTracking(Allocators.heap(), 1, leaks::add);
+
+        allocator2.release(allocator1.alloc(16));
+    }
+
+    private static void leak(FixedBufferPool pool) {
+        pool.borrowBuffer().putInt(1);
+    }
+
+    private static boolean stackTraceContains(Throwable throwable, String methodName) {
+        for (StackTraceElement element : throwable.getStackTrace()) {
+            if (element.getMethodName().equals(methodName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
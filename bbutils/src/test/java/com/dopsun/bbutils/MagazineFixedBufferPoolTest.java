@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MagazineFixedBufferPoolTest {
+    @Test
+    public void poolGivenReturnedOnSameThreadWhenBorrowThenReturnSameBuffer() throws Exception {
+        try (FixedBufferPool pool = Pools.threadLocal(Pools.fromAllocator(Allocators.heap(), 16),
+                4)) {
+            FixedBuffer buffer = pool.borrowBuffer();
+            pool.returnBuffer(buffer);
+
+            Assert.assertSame(buffer, pool.borrowBuffer());
+        }
+    }
+
+    @Test
+    public void poolGivenSharedPoolWithLessThanBatchWhenBorrowThenAllBuffersBorrowed()
+            throws Exception {
+        FixedBuffer[] buffers = new FixedBuffer[] { Allocators.heap().alloc(16),
+                Allocators.heap().alloc(16) };
+        try (FixedBufferPool pool = Pools.threadLocal(Pools.wrap(buffers), 8)) {
+            FixedBuffer first = pool.borrowBuffer();
+            FixedBuffer second = pool.borrowBuffer();
+
+            Assert.assertNotSame(first, second);
+        }
+    }
+
+    @Test
+    public void poolGivenBuffersCachedByOtherThreadWhenCloseThenReleasedViaSharedPool()
+            throws Exception {
+        AtomicInteger released = new AtomicInteger();
+        FixedBufferAllocator allocator = new FixedBufferAllocator() {
+            @Override
+            public FixedBuffer alloc(int capacity) {
+                return Allocators.heap().alloc(capacity);
+            }
+
+            @Override
+            public void release(FixedBuffer buffer) {
+                released.incrementAndGet();
+            }
+        };
+
+        FixedBufferPool pool = Pools.threadLocal(Pools.concurrent(allocator, 16, 16), 4);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> pool.returnBuffer(pool.borrowBuffer())).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        pool.close();
+
+        Assert.assertEquals(2, released.get());
+    }
+
+    @Test
+    public void poolGivenBoundedSharedPoolWhenCachingThreadTerminatedThenItsBuffersBorrowed()
+            throws Exception {
+        try (FixedBufferPool pool = Pools.threadLocal(Pools.bounded(Allocators.heap(), 16, 2),
+                2)) {
+            Thread thread = new Thread(() -> pool.returnBuffer(pool.borrowBuffer()));
+            thread.start();
+            thread.join();
+
+            FixedBuffer buffer1 = pool.borrowBuffer();
+            FixedBuffer buffer2 = pool.borrowBuffer();
+
+            Assert.assertNotSame(buffer1, buffer2);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MappedFixedBufferAllocatorTest {
+    @Test
+    public void allocatorGivenNamedFileWhenReopenThenContentPersisted() throws Exception {
+        Path path = Files.createTempFile("bbutils", ".test");
+        try {
+            try (CloseableFixedBufferAllocator allocator = Allocators.mapped(path)) {
+                allocator.alloc(64).putLong(8, 0x0102030405060708L);
+                FixedBuffer buffer = allocator.alloc(128);
+                buffer.putInt(4, 42);
+                allocator.release(buffer);
+            }
+
+            Assert.assertEquals(64 + 128, Files.size(path));
+
+            try (CloseableFixedBufferAllocator allocator = Allocators.mapped(path)) {
+                Assert.assertEquals(0x0102030405060708L, allocator.alloc(64).getLong(8));
+                Assert.assertEquals(42, allocator.alloc(128).getInt(4));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void allocatorGivenReleasedWhenAllocSameCapacityThenRegionReused() throws Exception {
+        try (CloseableFixedBufferAllocator allocator = Allocators.mappedTempFile()) {
+            FixedBuffer buffer = allocator.alloc(64);
+            buffer.putInt(0, 7);
+            allocator.release(buffer);
+
+            Assert.assertEquals(7, allocator.alloc(64).getInt(0));
+        }
+    }
+
+    @Test
+    public void allocatorGivenArenaWhenAllocThenSlicedFromMappedChunk() throws Exception {
+        try (CloseableFixedBufferAllocator allocator = Allocators.mappedArenaTempFile(4096, 64)) {
+            FixedBuffer buffer1 = allocator.alloc(64);
+            FixedBuffer buffer2 = allocator.alloc(64);
+            buffer1.putInt(0, 1);
+            buffer2.putInt(0, 2);
+
+            Assert.assertEquals(1, buffer1.getInt(0));
+            Assert.assertEquals(2, buffer2.getInt(0));
+            Assert.assertEquals(1, ((BuddyFixedBufferAllocator) allocator).chunkCount());
+        }
+    }
+
+    @Test
+    public void allocatorGivenInvalidCapacityWhenMappedArenaThenThrowsBeforeFileOpened()
+            throws Exception {
+        Path dir = Files.createTempDirectory("bbutils");
+        Path path = dir.resolve("arena.mapped");
+        try {
+            Allocators.mappedArena(path, 4096, 100);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertFalse(Files.exists(path));
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void allocatorGivenClosedWhenAllocThenThrows() throws Exception {
+        CloseableFixedBufferAllocator allocator = Allocators.mappedArenaTempFile(4096, 64);
+        allocator.close();
+
+        allocator.alloc(64);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MemoryBudgetTest {
+    @Test
+    public void budgetWhenReservedThenAccountedByTag() {
+        MemoryBudget budget = new MemoryBudget(1024);
+
+        Assert.assertTrue(budget.tryReserve("a", 100));
+        Assert.assertTrue(budget.tryReserve("b", 200));
+        Assert.assertTrue(budget.tryReserve("a", 300));
+
+        Assert.assertEquals(600, budget.reservedBytes());
+        Assert.assertEquals(400, budget.reservedBytes("a"));
+        Assert.assertEquals(200, budget.reservedBytesByTag().get("b").longValue());
+
+        budget.release("a", 100);
+        Assert.assertEquals(500, budget.reservedBytes());
+        Assert.assertEquals(300, budget.reservedBytes("a"));
+    }
+
+    @Test
+    public void budgetGivenUsedUpWhenTryReserveThenFalse() {
+        MemoryBudget budget = new MemoryBudget(1024);
+
+        Assert.assertTrue(budget.tryReserve("a", 1024));
+        Assert.assertFalse(budget.tryReserve("a", 1));
+        Assert.assertEquals(1024, budget.reservedBytes());
+    }
+
+    @Test
+    public void budgetGivenUsedUpWhenReleasedThenWaiterReserves() throws Exception {
+        MemoryBudget budget = new MemoryBudget(1024);
+        budget.tryReserve("a", 1024);
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return budget.reserve("b", 512, 10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        budget.release("a", 512);
+
+        Assert.assertTrue(waiter.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(512, budget.reservedBytes("b"));
+    }
+
+    @Test
+    public void budgetGivenUsedUpWhenReserveTimedOutThenFalse() throws Exception {
+        MemoryBudget budget = new MemoryBudget(1024);
+        budget.tryReserve("a", 1024);
+
+        Assert.assertFalse(budget.reserve("b", 1, 10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, budget.reservedBytes("b"));
+    }
+
+    @Test
+    public void allocatorGivenBudgetUsedUpWhenAllocThenThrows() {
+        MemoryBudget budget = new MemoryBudget(1024);
+        FixedBufferAllocator allocator = Allocators.budgeted(Allocators.direct(), budget, "a");
+
+        FixedBuffer buffer = allocator.alloc(1024);
+        Assert.assertEquals(1024, budget.reservedBytes("a"));
+
+        try {
+            allocator.alloc(1);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        allocator.release(buffer);
+        Assert.assertEquals(0, budget.reservedBytes());
+        allocator.release(allocator.alloc(1));
+    }
+
+    @Test
+    public void allocatorGivenCapacityRoundedUpWhenAllocThenRoundedCapacityReserved() {
+        MemoryBudget budget = new MemoryBudget(4096);
+        FixedBufferAllocator allocator = Allocators.budgeted(Allocators.directArena(4096, 64),
+                budget, "a");
+
+        FixedBuffer buffer = allocator.alloc(100);
+        Assert.assertEquals(128, budget.reservedBytes("a"));
+
+        allocator.release(buffer);
+        Assert.assertEquals(0, budget.reservedBytes("a"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void allocatorGivenMaxWaitWhenBudgetNotReleasedThenThrows() {
+        MemoryBudget budget = new MemoryBudget(1024);
+        FixedBufferAllocator allocator = Allocators.budgeted(Allocators.heap(), budget, "a", 10,
+                TimeUnit.MILLISECONDS);
+
+        allocator.alloc(1024);
+        allocator.alloc(1);
+    }
+
+    @Test
+    public void allocatorGivenInterruptedWhenWaitForBudgetThenThrowsInterruptedCause() {
+        MemoryBudget budget = new MemoryBudget(1024);
+        FixedBufferAllocator allocator = Allocators.budgeted(Allocators.heap(), budget, "a", 10,
+                TimeUnit.SECONDS);
+        allocator.alloc(1024);
+
+        Thread.currentThread().interrupt();
+        try {
+            allocator.alloc(1);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof InterruptedException);
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+}
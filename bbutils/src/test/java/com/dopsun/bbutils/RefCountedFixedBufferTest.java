@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class RefCountedFixedBufferTest extends AbstractBufferTest {
+    private final List<FixedBuffer> released = new ArrayList<>();
+
+    private final FixedBufferAllocator allocator = new FixedBufferAllocator() {
+        @Override
+        public FixedBuffer alloc(int capacity) {
+            return Allocators.heap().alloc(capacity);
+        }
+
+        @Override
+        public void release(FixedBuffer buffer) {
+            released.add(buffer);
+        }
+    };
+
+    @Override
+    protected RefCountedFixedBuffer allocBuffer(int capacity) {
+        return Buffers.refCounted(allocator, capacity);
+    }
+
+    @Override
+    protected void releaseBuffer(Buffer buffer) {
+        ((RefCountedFixedBuffer) buffer).release();
+    }
+
+    @Test
+    public void bufferGivenViewsWhenReleaseAllThenReleasedToAllocatorOnce() {
+        RefCountedFixedBuffer buffer = allocBuffer(16);
+        RefCountedFixedBuffer slice = buffer.slice(0, 8);
+        RefCountedFixedBuffer duplicate = buffer.duplicate();
+
+        Assert.assertEquals(3, buffer.refCount());
+        Assert.assertFalse(buffer.release());
+        Assert.assertFalse(slice.release());
+        Assert.assertTrue(released.isEmpty());
+
+        Assert.assertTrue(duplicate.release());
+        Assert.assertEquals(1, released.size());
+    }
+
+    @Test
+    public void bufferWhenLastReferenceReleasedThenReleasedToAllocator() {
+        RefCountedFixedBuffer buffer = allocBuffer(16).retain();
+
+        Assert.assertFalse(buffer.release());
+        Assert.assertTrue(buffer.release());
+        Assert.assertEquals(1, released.size());
+        Assert.assertEquals(0, buffer.refCount());
+    }
+
+    @Test
+    public void bufferWhenPutThenVisibleInSliceAndDuplicate() {
+        RefCountedFixedBuffer buffer = allocBuffer(16);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(8);
+
+        RefCountedFixedBuffer slice = buffer.slice(4, 8);
+        RefCountedFixedBuffer duplicate = buffer.duplicate();
+        buffer.putInt(4, 0x01020304);
+
+        Assert.assertEquals(8, slice.capacity());
+        Assert.assertEquals(0, slice.position());
+        Assert.assertEquals(0x01020304, slice.getInt(0));
+        Assert.assertEquals(8, duplicate.position());
+        Assert.assertEquals(0x01020304, duplicate.getInt(4));
+
+        slice.release();
+        duplicate.release();
+        buffer.release();
+    }
+
+    @Test
+    public void bufferGivenPoolWhenLastReferenceReleasedThenReturnedToPool() {
+        FixedBufferPool pool = Pools.concurrent(Allocators.unsafeHeap(), 16, 4);
+        RefCountedFixedBuffer buffer = Buffers.refCounted(pool);
+        buffer.putLong(0x0102030405060708L);
+
+        RefCountedFixedBuffer slice = buffer.slice(4, 4);
+        buffer.release();
+        Assert.assertEquals(0, ((ConcurrentFixedBufferPool) pool).idleSize());
+        Assert.assertEquals(0x05060708, slice.getInt(0));
+
+        slice.release();
+        Assert.assertEquals(1, ((ConcurrentFixedBufferPool) pool).idleSize());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bufferGivenReleasedWhenRetainThenThrows() {
+        RefCountedFixedBuffer buffer = allocBuffer(16);
+        buffer.release();
+
+        buffer.retain();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void bufferWhenSliceOutOfCapacityThenThrows() {
+        RefCountedFixedBuffer buffer = allocBuffer(16);
+        try {
+            buffer.slice(8, 9);
+        } finally {
+            buffer.release();
+        }
+    }
+}
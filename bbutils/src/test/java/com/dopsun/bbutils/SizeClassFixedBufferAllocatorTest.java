@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class SizeClassFixedBufferAllocatorTest {
+    @Test
+    public void sizeClassesGivenPow2WhenIndexOfThenSmallestClassCanHoldCapacity() {
+        assertSmallestClass(new SizeClasses(16, 4096, 1));
+    }
+
+    @Test
+    public void sizeClassesGivenFourClassesPerDoublingWhenIndexOfThenSmallestClassCanHoldCapacity() {
+        SizeClasses sizeClasses = new SizeClasses(16, 4096, 4);
+
+        Assert.assertEquals(80, sizeClasses.capacityAt(sizeClasses.indexOf(65)));
+        Assert.assertEquals(160, sizeClasses.capacityAt(sizeClasses.indexOf(129)));
+        assertSmallestClass(sizeClasses);
+    }
+
+    @Test
+    public void sizeClassesWhenCapacityGreaterThanMaxThenIndexIsNegative() {
+        Assert.assertEquals(-1, new SizeClasses(16, 4096, 4).indexOf(4097));
+    }
+
+    @Test
+    public void allocatorWhenAllocThenCapacityRoundedUpToClass() {
+        FixedBufferAllocator allocator = Allocators
+                .sizeClassed(c -> Pools.fromAllocator(Allocators.heap(), c), 64, 1 << 20, 4);
+
+        FixedBuffer buffer = allocator.alloc(1000);
+
+        Assert.assertEquals(1024, buffer.capacity());
+        allocator.release(buffer);
+        Assert.assertSame(buffer, allocator.alloc(1001));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void allocatorWhenAllocGreaterThanMaxThenThrows() {
+        Allocators.sizeClassed(c -> Pools.fromAllocator(Allocators.heap(), c), 64, 1024)
+                .alloc(1025);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allocatorWhenReleaseBufferNotInClassThenThrows() {
+        Allocators.sizeClassed(c -> Pools.fromAllocator(Allocators.heap(), c), 64, 1024)
+                .release(Allocators.heap().alloc(100));
+    }
+
+    private static void assertSmallestClass(SizeClasses sizeClasses) {
+        for (int capacity = 1; capacity <= sizeClasses.maxCapacity(); capacity++) {
+            int index = sizeClasses.indexOf(capacity);
+
+            Assert.assertTrue(sizeClasses.capacityAt(index) >= capacity);
+            if (index > 0) {
+                Assert.assertTrue(sizeClasses.capacityAt(index - 1) < capacity);
+            }
+        }
+    }
+}
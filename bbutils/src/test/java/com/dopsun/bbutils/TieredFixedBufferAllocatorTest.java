@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class TieredFixedBufferAllocatorTest {
+    @Test
+    public void slabWhenReleasedThenReusedBySameThread() {
+        SlabFixedBufferAllocator allocator = new SlabFixedBufferAllocator(1024, 16, 256, 1);
+
+        FixedBuffer buffer = allocator.alloc(100);
+        Assert.assertEquals(128, buffer.capacity());
+        Assert.assertFalse(isDirect(buffer));
+
+        allocator.release(buffer);
+        Assert.assertSame(buffer, allocator.alloc(128));
+    }
+
+    @Test
+    public void slabGivenOrderChangedWhenReleasedThenOrderNotLeakedToNextAlloc() {
+        SlabFixedBufferAllocator allocator = new SlabFixedBufferAllocator(1024, 16, 256, 1);
+        FixedBuffer buffer = allocator.alloc(100);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        allocator.release(buffer);
+
+        FixedBuffer next = allocator.alloc(100);
+
+        Assert.assertSame(buffer, next);
+        Assert.assertEquals(ByteOrder.BIG_ENDIAN, next.order());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void slabGivenReleasedWhenReleaseAgainThenThrows() {
+        SlabFixedBufferAllocator allocator = new SlabFixedBufferAllocator(1024, 16, 256, 1);
+        FixedBuffer buffer = allocator.alloc(100);
+        allocator.release(buffer);
+
+        allocator.release(buffer);
+    }
+
+    @Test
+    public void slabGivenSlabsUsedUpWhenAllocThenThrows() {
+        SlabFixedBufferAllocator allocator = new SlabFixedBufferAllocator(1024, 16, 256, 1);
+
+        for (int i = 0; i < 4; i++) {
+            allocator.alloc(256).putInt(0, i);
+        }
+
+        try {
+            allocator.alloc(256);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void slabGivenReleasedByOtherThreadWhenAllocThenReusedByOwner() throws Exception {
+        SlabFixedBufferAllocator allocator = new SlabFixedBufferAllocator(1024, 16, 1024, 1);
+        FixedBuffer buffer = allocator.alloc(1024);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> allocator.release(buffer)).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertSame(buffer, allocator.alloc(1024));
+    }
+
+    @Test
+    public void allocatorWhenAllocThenRoutedByCapacity() throws Exception {
+        SlabFixedBufferAllocator slab = new SlabFixedBufferAllocator(1024, 16, 256, 1);
+        try (CloseableFixedBufferAllocator allocator = Allocators.tiered(
+                new AllocatorTier(256, slab),
+                new AllocatorTier(Integer.MAX_VALUE, Allocators.direct()))) {
+            FixedBuffer small = allocator.alloc(256);
+            FixedBuffer large = allocator.alloc(257);
+
+            Assert.assertFalse(isDirect(small));
+            Assert.assertTrue(isDirect(large));
+            Assert.assertEquals(1, slab.allocatorStats().allocCount());
+
+            allocator.release(small);
+            allocator.release(large);
+            Assert.assertEquals(1, slab.allocatorStats().releaseCount());
+        }
+    }
+
+    @Test
+    public void allocatorGivenTierExhaustedWhenAllocThenFallsThrough() throws Exception {
+        BoundedFixedBufferPool pool = Pools.bounded(Allocators.heap(), 1024, 1);
+        try (CloseableFixedBufferAllocator allocator = Allocators.tiered(
+                new AllocatorTier(1024, Allocators.fromPool(capacity -> pool)),
+                new AllocatorTier(Integer.MAX_VALUE, Allocators.direct()))) {
+            FixedBuffer pooled = allocator.alloc(1024);
+            FixedBuffer fallen = allocator.alloc(1024);
+
+            Assert.assertFalse(isDirect(pooled));
+            Assert.assertTrue(isDirect(fallen));
+
+            allocator.release(fallen);
+            allocator.release(pooled);
+            Assert.assertEquals(1, ((HasPoolStats) pool).poolStats().returnCount());
+        }
+    }
+
+    @Test
+    public void allocatorGivenAllTiersExhaustedWhenAllocThenThrows() throws Exception {
+        try (CloseableFixedBufferAllocator allocator = Allocators.tiered(
+                new AllocatorTier(256, new SlabFixedBufferAllocator(256, 16, 256, 1)),
+                new AllocatorTier(512, new SlabFixedBufferAllocator(512, 16, 512, 1)))) {
+            allocator.alloc(256);
+            allocator.alloc(256);
+            allocator.alloc(256);
+
+            try {
+                allocator.alloc(256);
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allocatorWhenTiersNotAscendingThenThrows() {
+        Allocators.tiered(new AllocatorTier(1024, Allocators.heap()),
+                new AllocatorTier(256, Allocators.heap()));
+    }
+
+    private static boolean isDirect(FixedBuffer buffer) {
+        return ((HasByteBuffer) buffer).getByteBuffer().isDirect();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.bbutils;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class UnsafeFixedBufferTest extends AbstractBufferTest {
+    private static FixedBufferAllocator allocator;
+
+    @BeforeClass
+    public static void beforeClass() {
+        allocator = Allocators.unsafeDirect();
+    }
+
+    @Override
+    protected FixedBuffer allocBuffer(int capacity) {
+        return allocator.alloc(capacity);
+    }
+
+    @Override
+    protected void releaseBuffer(Buffer buffer) {
+        allocator.release(buffer);
+    }
+
+    @Test
+    public void bufferGivenHeapByteBufferWhenPutThenSameBytesAsByteBuffer() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(32);
+        FixedBuffer buffer = Buffers.unsafeWrap(byteBuffer);
+
+        buffer.putShort((short) 0x0102);
+        buffer.putInt(0x03040506);
+        buffer.putLong(0x0708090a0b0c0d0eL);
+        buffer.putDouble(1.5);
+
+        Assert.assertEquals((short) 0x0102, byteBuffer.getShort(0));
+        Assert.assertEquals(0x03040506, byteBuffer.getInt(2));
+        Assert.assertEquals(0x0708090a0b0c0d0eL, byteBuffer.getLong(6));
+        Assert.assertEquals(1.5, byteBuffer.getDouble(14), 0);
+    }
+
+    @Test
+    public void bufferGivenOtherBufferWhenPutBufferThenRemainingCopied() {
+        FixedBuffer src = Buffers.wrap(ByteBuffer.allocate(8));
+        src.putLong(0x0102030405060708L);
+        src.flip();
+
+        FixedBuffer buffer = allocBuffer(16);
+        try {
+            buffer.putBuffer(src);
+
+            Assert.assertEquals(8, buffer.position());
+            Assert.assertFalse(src.hasRemaining());
+            Assert.assertEquals(0x0102030405060708L, buffer.getLong(0));
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void bufferGivenNotEnoughRemainingWhenPutLongThenThrows() {
+        Buffers.unsafeWrap(ByteBuffer.allocate(4)).putLong(1L);
+    }
+
+    @Test
+    public void bufferGivenLengthBeyondRemainingWhenPutDoublesThenThrowsAndNothingWritten() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(16);
+        FixedBuffer buffer = Buffers.unsafeWrap(byteBuffer);
+
+        try {
+            buffer.putDoubles(new double[] { 1, 2, 3 }, 0, 3);
+            Assert.fail();
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals(0, byteBuffer.getLong(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void bufferWhenGetIntOutOfLimitThenThrows() {
+        Buffers.unsafeWrap(ByteBuffer.allocate(4)).getInt(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void bufferWhenPutBytesOutOfArrayThenThrows() {
+        Buffers.unsafeWrap(ByteBuffer.allocate(16)).putBytes(new byte[4], 2, 4);
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void bufferGivenNotEnoughRemainingWhenPutIntsThenThrows() {
+        Buffers.unsafeWrap(ByteBuffer.allocate(8)).putInts(new int[3], 0, 3);
+    }
+}